@@ -0,0 +1,75 @@
+package world.bentobox.islandfly;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.config.Settings;
+
+/**
+ * Throughput of {@link FlyToggleCommand#canExecute(User, String, List)}, including the
+ * protection range check. In "full" mode every call is fully evaluated, in "spam" mode one
+ * player with fly disabled repeats the command within its cooldown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlyToggleCommandBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int players;
+
+    @Param({"full", "spam"})
+    private String mode;
+
+    private FlyToggleCommand command;
+    private List<User> users;
+    private int cursor;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Spamming players ask to turn fly on, which is the throttled direction
+        final SimulatedServer server = SimulatedServer.create(this.players, "full".equals(this.mode));
+        this.command = new FlyToggleCommand(server.getIslandCommand(), server.getAddon());
+        this.users = server.getUsers();
+
+        final Settings settings = server.getAddon().getSettings();
+
+        if ("full".equals(this.mode)) {
+            settings.setCommandCooldown(0);
+            settings.setCommandMemo(0);
+        } else {
+            settings.setCommandBurst(3);
+        }
+    }
+
+
+    @Benchmark
+    public boolean canExecute() {
+        if ("spam".equals(this.mode)) {
+            return this.command.canExecute(this.users.get(0), "fly", Collections.emptyList());
+        }
+
+        final int index = this.cursor;
+        this.cursor = index + 1 == this.players ? 0 : index + 1;
+        return this.command.canExecute(this.users.get(index), "fly", Collections.emptyList());
+    }
+}
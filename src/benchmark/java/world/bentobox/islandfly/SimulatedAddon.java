@@ -0,0 +1,143 @@
+package world.bentobox.islandfly;
+
+import world.bentobox.bentobox.BentoBox;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.CommandThrottle;
+import world.bentobox.islandfly.managers.FlyStateStore;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.FlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
+
+
+/**
+ * Addon stand-in that returns real IslandFly managers without enabling the addon. Managers are
+ * set by {@link SimulatedServer} once settings are in place.
+ */
+class SimulatedAddon extends IslandFlyAddon {
+
+    private final BentoBox plugin;
+    private final IslandsManager islands;
+    private final Settings settings = new Settings();
+    private final FlyStats stats = new FlyStats(false);
+    FlyScheduler scheduler;
+    WorkQueue workQueue;
+    GraceTimerManager graceTimers;
+    FlightPolicyEvaluator flightPolicy;
+    FlyStateStore flyStates;
+    FlyerRegistry flyers;
+    MessageTemplateCache messages;
+    AlertLimiter alerts;
+    CommandThrottle commandThrottle;
+
+
+    /**
+     * @param plugin BentoBox stand-in
+     * @param islands islands manager stand-in
+     */
+    SimulatedAddon(BentoBox plugin, IslandsManager islands) {
+        this.plugin = plugin;
+        this.islands = islands;
+    }
+
+
+    @Override
+    public BentoBox getPlugin() {
+        return this.plugin;
+    }
+
+
+    @Override
+    public IslandsManager getIslands() {
+        return this.islands;
+    }
+
+
+    @Override
+    public void log(String string) {
+        // Benchmarks are quiet
+    }
+
+
+    @Override
+    public void logWarning(String string) {
+        // Benchmarks are quiet
+    }
+
+
+    @Override
+    public void logError(String string) {
+        // Benchmarks are quiet
+    }
+
+
+    @Override
+    public Settings getSettings() {
+        return this.settings;
+    }
+
+
+    @Override
+    public FlyScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+
+    @Override
+    public WorkQueue getWorkQueue() {
+        return this.workQueue;
+    }
+
+
+    @Override
+    public GraceTimerManager getGraceTimers() {
+        return this.graceTimers;
+    }
+
+
+    @Override
+    public FlightPolicyEvaluator getFlightPolicy() {
+        return this.flightPolicy;
+    }
+
+
+    @Override
+    public FlyStateStore getFlyStates() {
+        return this.flyStates;
+    }
+
+
+    @Override
+    public FlyerRegistry getFlyers() {
+        return this.flyers;
+    }
+
+
+    @Override
+    public MessageTemplateCache getMessages() {
+        return this.messages;
+    }
+
+
+    @Override
+    public AlertLimiter getAlerts() {
+        return this.alerts;
+    }
+
+
+    @Override
+    public CommandThrottle getCommandThrottle() {
+        return this.commandThrottle;
+    }
+
+
+    @Override
+    public FlyStats getStats() {
+        return this.stats;
+    }
+}
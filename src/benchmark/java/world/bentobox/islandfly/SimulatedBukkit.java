@@ -0,0 +1,68 @@
+package world.bentobox.islandfly;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+
+
+/**
+ * Bukkit server stand-in that provides the scheduler and online players.
+ */
+public abstract class SimulatedBukkit implements Server {
+
+    private static final Logger LOGGER = Logger.getLogger("IslandFlyBenchmark");
+
+    private final BukkitScheduler scheduler;
+    private final Supplier<Map<UUID, Player>> online;
+
+
+    /**
+     * @param scheduler scheduler stand-in
+     * @param online supplier of online players by unique id
+     */
+    protected SimulatedBukkit(BukkitScheduler scheduler, Supplier<Map<UUID, Player>> online) {
+        this.scheduler = scheduler;
+        this.online = online;
+    }
+
+
+    @Override
+    public Logger getLogger() {
+        return LOGGER;
+    }
+
+
+    @Override
+    public String getName() {
+        return "SimulatedServer";
+    }
+
+
+    @Override
+    public String getVersion() {
+        return "benchmark";
+    }
+
+
+    @Override
+    public String getBukkitVersion() {
+        return "benchmark";
+    }
+
+
+    @Override
+    public BukkitScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+
+    @Override
+    public Player getPlayer(UUID id) {
+        return this.online.get().get(id);
+    }
+}
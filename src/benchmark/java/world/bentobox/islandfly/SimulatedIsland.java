@@ -0,0 +1,141 @@
+package world.bentobox.islandfly;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import com.google.common.collect.ImmutableSet;
+
+import world.bentobox.bentobox.api.flags.Flag;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.RanksManager;
+
+
+/**
+ * Island stand-in with a fixed protection box, fly flag rank and members.
+ */
+public class SimulatedIsland extends Island {
+
+    private final String uniqueId;
+    private final World world;
+    private final int flyRank;
+    private final int minX;
+    private final int maxX;
+    private final BoundingBox box;
+    private ImmutableSet<UUID> members = ImmutableSet.of();
+    private List<Player> playersOnIsland = Collections.emptyList();
+    private Map<UUID, Integer> ranks = Collections.emptyMap();
+
+
+    /**
+     * @param index island index, island is centered at x = index * 400
+     * @param world island world
+     * @param flyRank minimal rank allowed to fly
+     */
+    public SimulatedIsland(int index, World world, int flyRank) {
+        this.uniqueId = "island" + index;
+        this.world = world;
+        this.flyRank = flyRank;
+        this.minX = index * 400 - 50;
+        this.maxX = index * 400 + 50;
+        this.box = new BoundingBox(this.minX, -64, -50, this.maxX, 320, 50);
+    }
+
+
+    /**
+     * @param members island members
+     */
+    public void setMembers(ImmutableSet<UUID> members) {
+        this.members = members;
+    }
+
+
+    /**
+     * @param playersOnIsland players standing on the island
+     * @param ranks rank of each player, others are visitors
+     */
+    public void setPlayersOnIsland(List<Player> playersOnIsland, Map<UUID, Integer> ranks) {
+        this.playersOnIsland = playersOnIsland;
+        this.ranks = ranks;
+    }
+
+
+    @Override
+    public String getUniqueId() {
+        return this.uniqueId;
+    }
+
+
+    @Override
+    public World getWorld() {
+        return this.world;
+    }
+
+
+    @Override
+    public int getFlag(Flag flag) {
+        return this.flyRank;
+    }
+
+
+    @Override
+    public int getRank(User user) {
+        return this.ranks.isEmpty() ? RanksManager.MEMBER_RANK
+                : this.ranks.getOrDefault(user.getUniqueId(), RanksManager.VISITOR_RANK);
+    }
+
+
+    @Override
+    public boolean onIsland(Location target) {
+        return true;
+    }
+
+
+    @Override
+    public BoundingBox getProtectionBoundingBox() {
+        return this.box;
+    }
+
+
+    @Override
+    public int getMinProtectedX() {
+        return this.minX;
+    }
+
+
+    @Override
+    public int getMaxProtectedX() {
+        return this.maxX;
+    }
+
+
+    @Override
+    public int getMinProtectedZ() {
+        return -50;
+    }
+
+
+    @Override
+    public int getMaxProtectedZ() {
+        return 50;
+    }
+
+
+    @Override
+    public ImmutableSet<UUID> getMemberSet() {
+        return this.members;
+    }
+
+
+    @Override
+    public List<Player> getPlayersOnIsland() {
+        return this.playersOnIsland;
+    }
+}
@@ -0,0 +1,57 @@
+package world.bentobox.islandfly;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.bukkit.Location;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+
+
+/**
+ * Islands manager stand-in. Islands are found by identity of player locations and by unique id.
+ * Created by {@link StandIns#allocate(Class)}, because the real constructor needs a running
+ * BentoBox.
+ */
+public class SimulatedIslands extends IslandsManager {
+
+    private Map<Location, Optional<Island>> islandAt;
+    private Map<String, Optional<Island>> islandById;
+
+
+    private SimulatedIslands() {
+        super(null);
+    }
+
+
+    /**
+     * @param islandAt island at each player location
+     * @param islandById island by unique id
+     * @return islands manager stand-in
+     */
+    static SimulatedIslands create(Map<Location, Optional<Island>> islandAt, Map<String, Optional<Island>> islandById) {
+        final SimulatedIslands islands = StandIns.allocate(SimulatedIslands.class);
+        islands.islandAt = islandAt;
+        islands.islandById = islandById;
+        return islands;
+    }
+
+
+    @Override
+    public Optional<Island> getProtectedIslandAt(Location location) {
+        return this.islandAt.getOrDefault(location, Optional.empty());
+    }
+
+
+    @Override
+    public Optional<Island> getIslandAt(Location location) {
+        return this.islandAt.getOrDefault(location, Optional.empty());
+    }
+
+
+    @Override
+    public Optional<Island> getIslandById(String uniqueId) {
+        return this.islandById.getOrDefault(uniqueId, Optional.empty());
+    }
+}
@@ -0,0 +1,132 @@
+package world.bentobox.islandfly;
+
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+
+/**
+ * Online player stand-in. Fly abilities are fixed, so every benchmark invocation takes the
+ * same code path; ability writes are accepted and ignored.
+ */
+public abstract class SimulatedPlayer implements Player {
+
+    private final UUID uniqueId;
+    private final String name;
+    private final Location location;
+    private final boolean flying;
+    private final Set<String> permissions;
+    private final Player.Spigot spigot;
+
+
+    /**
+     * @param uniqueId player unique id
+     * @param name player name
+     * @param location fixed player location
+     * @param flying true if player has fly enabled and is flying
+     * @param permissions granted permissions
+     * @param spigot shared spigot stand-in
+     */
+    protected SimulatedPlayer(UUID uniqueId, String name, Location location, boolean flying, Set<String> permissions, Player.Spigot spigot) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.location = location;
+        this.flying = flying;
+        this.permissions = permissions;
+        this.spigot = spigot;
+    }
+
+
+    @Override
+    public UUID getUniqueId() {
+        return this.uniqueId;
+    }
+
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+
+    @Override
+    public boolean isOnline() {
+        return true;
+    }
+
+
+    @Override
+    public boolean isOp() {
+        return false;
+    }
+
+
+    @Override
+    public GameMode getGameMode() {
+        return GameMode.SURVIVAL;
+    }
+
+
+    @Override
+    public Location getLocation() {
+        return this.location;
+    }
+
+
+    @Override
+    public World getWorld() {
+        return this.location.getWorld();
+    }
+
+
+    @Override
+    public boolean isFlying() {
+        return this.flying;
+    }
+
+
+    @Override
+    public void setFlying(boolean value) {
+        // Abilities are fixed
+    }
+
+
+    @Override
+    public boolean getAllowFlight() {
+        return this.flying;
+    }
+
+
+    @Override
+    public void setAllowFlight(boolean flight) {
+        // Abilities are fixed
+    }
+
+
+    @Override
+    public void setFallDistance(float distance) {
+        // Not simulated
+    }
+
+
+    @Override
+    public boolean hasPermission(String permission) {
+        return this.permissions.contains(permission);
+    }
+
+
+    @Override
+    public boolean isPermissionSet(String permission) {
+        return this.permissions.contains(permission);
+    }
+
+
+    @Override
+    public Player.Spigot spigot() {
+        return this.spigot;
+    }
+}
@@ -0,0 +1,141 @@
+package world.bentobox.islandfly;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * Bukkit scheduler stand-in. One-shot and async tasks run immediately on the calling thread.
+ * Repeating tasks run when the benchmark calls {@link #tick()}, one simulated server tick at a
+ * time, so work queues and timers drain as they would on a live server.
+ */
+public abstract class SimulatedScheduler implements BukkitScheduler {
+
+    private final List<Task> tasks = new ArrayList<>();
+    private long currentTick;
+    private int lastId;
+
+
+    @Override
+    public BukkitTask runTask(Plugin plugin, Runnable task) {
+        task.run();
+        return null;
+    }
+
+
+    @Override
+    public BukkitTask runTaskAsynchronously(Plugin plugin, Runnable task) {
+        task.run();
+        return null;
+    }
+
+
+    @Override
+    public synchronized BukkitTask runTaskTimer(Plugin plugin, Runnable task, long delay, long period) {
+        final Task bukkitTask = new Task(++this.lastId, plugin, task, this.currentTick + Math.max(1L, delay), Math.max(1L, period));
+        this.tasks.add(bukkitTask);
+        return bukkitTask;
+    }
+
+
+    /**
+     * Advances one server tick and runs repeating tasks that are due.
+     */
+    public void tick() {
+        final List<Task> due = new ArrayList<>();
+
+        synchronized (this) {
+            this.currentTick++;
+            this.tasks.removeIf(Task::isCancelled);
+
+            for (Task task : this.tasks) {
+                if (task.nextRun <= this.currentTick) {
+                    task.nextRun = this.currentTick + task.period;
+                    due.add(task);
+                }
+            }
+        }
+
+        // Tasks may schedule or cancel tasks while running
+        for (Task task : due) {
+            if (!task.isCancelled()) {
+                task.runnable.run();
+            }
+        }
+    }
+
+
+    /**
+     * @return number of repeating tasks that are not cancelled
+     */
+    public synchronized int getTaskCount() {
+        this.tasks.removeIf(Task::isCancelled);
+        return this.tasks.size();
+    }
+
+
+    /**
+     * Drops all repeating tasks, so a new simulated server starts clean.
+     */
+    synchronized void reset() {
+        this.tasks.forEach(Task::cancel);
+        this.tasks.clear();
+    }
+
+
+    /**
+     * Repeating task.
+     */
+    private static class Task implements BukkitTask {
+
+        private final int id;
+        private final Plugin owner;
+        private final Runnable runnable;
+        private final long period;
+        private long nextRun;
+        private volatile boolean cancelled;
+
+
+        private Task(int id, Plugin owner, Runnable runnable, long nextRun, long period) {
+            this.id = id;
+            this.owner = owner;
+            this.runnable = runnable;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+
+
+        @Override
+        public int getTaskId() {
+            return this.id;
+        }
+
+
+        @Override
+        public Plugin getOwner() {
+            return this.owner;
+        }
+
+
+        @Override
+        public boolean isSync() {
+            return true;
+        }
+
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+    }
+}
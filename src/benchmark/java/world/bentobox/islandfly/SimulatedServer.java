@@ -0,0 +1,329 @@
+package world.bentobox.islandfly;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Player.Spigot;
+
+import com.google.common.collect.ImmutableSet;
+
+import net.bytebuddy.matcher.ElementMatchers;
+
+import world.bentobox.bentobox.BentoBox;
+import world.bentobox.bentobox.api.addons.GameModeAddon;
+import world.bentobox.bentobox.api.commands.CompositeCommand;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.CommandsManager;
+import world.bentobox.bentobox.managers.IslandWorldManager;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.bentobox.managers.LocalesManager;
+import world.bentobox.bentobox.managers.PlaceholdersManager;
+import world.bentobox.bentobox.managers.PlayersManager;
+import world.bentobox.bentobox.managers.RanksManager;
+import world.bentobox.islandfly.database.objects.FlyData;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.CommandThrottle;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.InMemoryFlyDatabase;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.BukkitFlyScheduler;
+
+
+/**
+ * In-process stand-ins for Bukkit and BentoBox used by the benchmarks. Nothing here needs a
+ * running server, a database or network access.
+ * <p>
+ * Players, the world, islands, the islands manager and the addon are hand-written stand-ins, so
+ * hot paths do not go through a mocking framework. The addon returns real managers, including a
+ * fly state store backed by an in-memory database. Only cold BentoBox services are stub-only
+ * Mockito mocks. Island lookups are answered from identity maps built up front. Every fourth
+ * island denies fly to members, so listeners go through both the allowed and the disabling
+ * paths.
+ * <p>
+ * Bukkit scheduler runs one-shot tasks immediately. Repeating tasks run on {@link #tick()}.
+ */
+public final class SimulatedServer {
+
+    /**
+     * Players per simulated island.
+     */
+    public static final int PLAYERS_PER_ISLAND = 4;
+
+    /**
+     * Shared stand-in scheduler. Bukkit server can be set only once per JVM.
+     */
+    private static SimulatedScheduler scheduler;
+
+    /**
+     * Players of the most recently created server, looked up by the shared Bukkit server.
+     */
+    private static volatile Map<UUID, Player> online = Map.of();
+
+    private final BentoBox plugin;
+    private final IslandFlyAddon addon;
+    private final IslandsManager islands;
+    private final World world;
+    private final CompositeCommand islandCommand;
+    private final List<Player> players = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<SimulatedIsland> islandList = new ArrayList<>();
+    private final SimulatedIsland hub;
+
+
+    private SimulatedServer(int playerCount, boolean flying) {
+        this.plugin = stub(BentoBox.class);
+        setBentoBoxInstance(this.plugin);
+        User.clearUsers();
+        User.setPlugin(this.plugin);
+        installBukkit();
+
+        // World and game mode
+        this.world = StandIns.create(SimulatedWorld.class);
+
+        GameModeAddon gameMode = stub(GameModeAddon.class);
+        when(gameMode.getPermissionPrefix()).thenReturn("bskyblock.");
+
+        IslandWorldManager iwm = stub(IslandWorldManager.class);
+        when(iwm.getAddon(any())).thenReturn(Optional.of(gameMode));
+        when(iwm.getPermissionPrefix(any())).thenReturn("bskyblock.");
+        when(iwm.getFriendlyName(any())).thenReturn("BSkyBlock");
+        when(this.plugin.getIWM()).thenReturn(iwm);
+
+        // Messages are returned untranslated
+        LocalesManager lm = stub(LocalesManager.class);
+        when(lm.get(any(), any())).thenAnswer(invocation -> invocation.getArgument(1, String.class));
+        when(this.plugin.getLocalesManager()).thenReturn(lm);
+        PlaceholdersManager phm = stub(PlaceholdersManager.class);
+        when(phm.replacePlaceholders(any(), any())).thenAnswer(invocation -> invocation.getArgument(1, String.class));
+        when(this.plugin.getPlaceholdersManager()).thenReturn(phm);
+        PlayersManager pm = stub(PlayersManager.class);
+        when(pm.getLocale(any())).thenReturn("en-US");
+        when(this.plugin.getPlayers()).thenReturn(pm);
+        when(this.plugin.getCommandsManager()).thenReturn(stub(CommandsManager.class));
+
+        // Islands and players
+        final Map<Location, Optional<Island>> islandAt = new IdentityHashMap<>();
+        final Map<String, Optional<Island>> islandById = new HashMap<>();
+        final Map<UUID, Integer> hubRanks = new HashMap<>();
+        final Map<String, FlyData> flyData = new HashMap<>();
+        final Spigot spigot = StandIns.create(Spigot.class, ElementMatchers.named("sendMessage"));
+        final Set<String> permissions = Set.of("bskyblock.island.fly");
+        final int islandCount = Math.max(1, (playerCount + PLAYERS_PER_ISLAND - 1) / PLAYERS_PER_ISLAND);
+
+        for (int i = 0; i < islandCount; i++) {
+            final SimulatedIsland island =
+                new SimulatedIsland(i, this.world, i % 4 == 3 ? RanksManager.OWNER_RANK : RanksManager.MEMBER_RANK);
+            this.islandList.add(island);
+            islandById.put(island.getUniqueId(), Optional.of(island));
+        }
+
+        final List<Set<UUID>> members = new ArrayList<>();
+        this.islandList.forEach(i -> members.add(new HashSet<>()));
+
+        for (int i = 0; i < playerCount; i++) {
+            final int islandIndex = i / PLAYERS_PER_ISLAND;
+            final Island island = this.islandList.get(islandIndex);
+            final Location location = new Location(this.world, islandIndex * 400D + (i % PLAYERS_PER_ISLAND), 80D, 0.5D);
+            final UUID playerId = new UUID(0L, i);
+            final Player player = StandIns.create(SimulatedPlayer.class, playerId, "player" + i, location, flying, permissions, spigot);
+
+            islandAt.put(location, Optional.of(island));
+            members.get(islandIndex).add(playerId);
+            hubRanks.put(playerId, i % 4 == 0 ? RanksManager.VISITOR_RANK : RanksManager.MEMBER_RANK);
+            flyData.put(playerId.toString(), new FlyData(playerId.toString()));
+            this.players.add(player);
+            this.users.add(User.getInstance(player));
+        }
+
+        final Map<UUID, Player> byId = new HashMap<>();
+        this.players.forEach(player -> byId.put(player.getUniqueId(), player));
+        online = byId;
+
+        for (int i = 0; i < islandCount; i++) {
+            this.islandList.get(i).setMembers(ImmutableSet.copyOf(members.get(i)));
+        }
+
+        // Hub island holds every player, so flag changes scale with player count
+        this.hub = new SimulatedIsland(-1, this.world, RanksManager.MEMBER_RANK);
+        this.hub.setPlayersOnIsland(Collections.unmodifiableList(this.players), hubRanks);
+        islandById.put(this.hub.getUniqueId(), Optional.of(this.hub));
+
+        this.islands = SimulatedIslands.create(islandAt, islandById);
+        when(this.plugin.getIslands()).thenReturn(this.islands);
+
+        // Addon with real managers
+        final SimulatedAddon simulated = new SimulatedAddon(this.plugin, this.islands);
+        this.addon = simulated;
+        simulated.scheduler = new BukkitFlyScheduler(this.plugin);
+        simulated.workQueue = new WorkQueue(this.addon);
+        simulated.messages = new MessageTemplateCache(this.addon);
+        simulated.alerts = new AlertLimiter(this.addon);
+        simulated.commandThrottle = new CommandThrottle(this.addon);
+        simulated.graceTimers = new GraceTimerManager(this.addon);
+        simulated.flightPolicy = new FlightPolicyEvaluator(this.addon);
+        simulated.flyStates = InMemoryFlyDatabase.createStore(this.addon, flyData);
+        // Fly data is read before players join, as on a live server
+        for (User user : this.users) {
+            simulated.flyStates.prefetch(user.getUniqueId());
+            simulated.flyStates.getFlyState(user, this.getIslandOf(0).getUniqueId());
+        }
+        // Flying players are registered as flyers
+        simulated.flyers = new FlyerRegistry();
+        this.players.forEach(simulated.flyers::sync);
+
+        // Parent command of the fly command
+        this.islandCommand = stub(CompositeCommand.class);
+        when(this.islandCommand.getAddon()).thenReturn(this.addon);
+        when(this.islandCommand.getPermissionPrefix()).thenReturn("bskyblock.");
+        when(this.islandCommand.getLabel()).thenReturn("island");
+        when(this.islandCommand.getTopLabel()).thenReturn("island");
+        when(this.islandCommand.getWorld()).thenReturn(this.world);
+    }
+
+
+    /**
+     * Creates simulated server with given number of online players.
+     * @param playerCount number of players
+     * @return simulated server
+     */
+    public static SimulatedServer create(int playerCount) {
+        return new SimulatedServer(playerCount, true);
+    }
+
+
+    /**
+     * Creates simulated server with given number of online players.
+     * @param playerCount number of players
+     * @param flying true if players are flying, false if they have fly disabled
+     * @return simulated server
+     */
+    public static SimulatedServer create(int playerCount, boolean flying) {
+        return new SimulatedServer(playerCount, flying);
+    }
+
+
+    /**
+     * Advances one server tick, running repeating tasks such as the work queue ticker.
+     */
+    public void tick() {
+        scheduler.tick();
+    }
+
+
+    /**
+     * @return addon stand-in that returns real IslandFly managers
+     */
+    public IslandFlyAddon getAddon() {
+        return this.addon;
+    }
+
+
+    /**
+     * @return islands manager stand-in
+     */
+    public IslandsManager getIslands() {
+        return this.islands;
+    }
+
+
+    /**
+     * @return game mode world
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+
+    /**
+     * @return parent command for the fly command
+     */
+    public CompositeCommand getIslandCommand() {
+        return this.islandCommand;
+    }
+
+
+    /**
+     * @return online players
+     */
+    public List<Player> getPlayers() {
+        return this.players;
+    }
+
+
+    /**
+     * @return users of online players, in the same order as {@link #getPlayers()}
+     */
+    public List<User> getUsers() {
+        return this.users;
+    }
+
+
+    /**
+     * @param playerIndex index of player
+     * @return island the player stands on
+     */
+    public Island getIslandOf(int playerIndex) {
+        return this.islandList.get(playerIndex / PLAYERS_PER_ISLAND);
+    }
+
+
+    /**
+     * @return island that has every player on it
+     */
+    public Island getHub() {
+        return this.hub;
+    }
+
+
+    private static void installBukkit() {
+        if (scheduler != null) {
+            scheduler.reset();
+            return;
+        }
+
+        scheduler = StandIns.create(SimulatedScheduler.class);
+
+        final Server server = StandIns.create(SimulatedBukkit.class, scheduler, (Supplier<Map<UUID, Player>>) () -> online);
+        Bukkit.setServer(server);
+    }
+
+
+    private static void setBentoBoxInstance(BentoBox plugin) {
+        try {
+            final Field instance = BentoBox.class.getDeclaredField("instance");
+            instance.setAccessible(true);
+            instance.set(null, plugin);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not set BentoBox instance", e);
+        }
+    }
+
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
@@ -0,0 +1,33 @@
+package world.bentobox.islandfly;
+
+import org.bukkit.World;
+
+
+/**
+ * Game mode world stand-in.
+ */
+public abstract class SimulatedWorld implements World {
+
+    @Override
+    public String getName() {
+        return "bskyblock_world";
+    }
+
+
+    @Override
+    public Environment getEnvironment() {
+        return Environment.NORMAL;
+    }
+
+
+    @Override
+    public int getMinHeight() {
+        return -64;
+    }
+
+
+    @Override
+    public int getMaxHeight() {
+        return 320;
+    }
+}
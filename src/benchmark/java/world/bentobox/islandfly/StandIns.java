@@ -0,0 +1,81 @@
+package world.bentobox.islandfly;
+
+import java.lang.reflect.Constructor;
+
+import org.objenesis.ObjenesisStd;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.StubMethod;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+
+/**
+ * Creates hand-written stand-ins. Methods the benchmarks use are plain Java code in the
+ * stand-in classes, so measurements do not include any mocking framework. Bukkit interfaces
+ * have hundreds of methods the benchmarks never call; those are generated once per class and
+ * return default values.
+ */
+final class StandIns {
+
+    private static final ObjenesisStd OBJENESIS = new ObjenesisStd();
+
+    private StandIns() {}
+
+
+    /**
+     * Creates instance of abstract stand-in, with its abstract methods returning default values.
+     * @param type public abstract stand-in class
+     * @param args constructor arguments, matched by count
+     * @param <T> stand-in type
+     * @return stand-in instance
+     */
+    static <T> T create(Class<T> type, Object... args) {
+        return create(type, ElementMatchers.isAbstract(), args);
+    }
+
+
+    /**
+     * Creates instance of stand-in with matching methods returning default values.
+     * @param type public stand-in class
+     * @param stubbed methods that return default values
+     * @param args constructor arguments, matched by count
+     * @param <T> stand-in type
+     * @return stand-in instance
+     */
+    static <T> T create(Class<T> type, ElementMatcher<? super MethodDescription> stubbed, Object... args) {
+        final Class<? extends T> loaded = new ByteBuddy()
+                .subclass(type)
+                .method(stubbed)
+                .intercept(StubMethod.INSTANCE)
+                .make()
+                .load(type.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+
+        try {
+            for (Constructor<?> constructor : loaded.getDeclaredConstructors()) {
+                if (constructor.getParameterCount() == args.length) {
+                    return type.cast(constructor.newInstance(args));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create " + type.getSimpleName(), e);
+        }
+
+        throw new IllegalStateException("No constructor of " + type.getSimpleName() + " takes " + args.length + " arguments");
+    }
+
+
+    /**
+     * Creates instance of given class without running its constructors. Used for BentoBox
+     * managers whose constructors need a running plugin.
+     * @param type stand-in class
+     * @param <T> stand-in type
+     * @return stand-in instance with default field values
+     */
+    static <T> T allocate(Class<T> type) {
+        return OBJENESIS.newInstance(type);
+    }
+}
@@ -0,0 +1,76 @@
+package world.bentobox.islandfly.listeners;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.SimulatedServer;
+
+/**
+ * Throughput of {@link FlyFlagListener#onFlagChange(FlagProtectionChangeEvent)} on an island
+ * that has every simulated player on it. A quarter of the players are visitors, so they get
+ * a fly grace timer on each change. A server tick runs after every change, with the default
+ * work queue budget, and the queue depth is checked after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlyFlagListenerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int players;
+
+    private SimulatedServer server;
+    private FlyFlagListener listener;
+    private FlagProtectionChangeEvent event;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.server = SimulatedServer.create(this.players);
+        this.listener = new FlyFlagListener(this.server.getAddon());
+        this.event = mock(FlagProtectionChangeEvent.class, withSettings().stubOnly());
+        when(this.event.getEditedFlag()).thenReturn(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+        when(this.event.getIsland()).thenReturn(this.server.getHub());
+    }
+
+
+    @Benchmark
+    public void onFlagChange() {
+        this.listener.onFlagChange(this.event);
+        // Each change is followed by a server tick, so deferred disabling work drains
+        this.server.tick();
+    }
+
+
+    @TearDown(Level.Iteration)
+    public void checkQueue() {
+        // Work left over from one change may wait, but it must not pile up across changes
+        final int depth = this.server.getAddon().getWorkQueue().getDepth();
+
+        if (depth > this.players) {
+            throw new IllegalStateException("Work queue grew to " + depth + " items for " + this.players + " players");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package world.bentobox.islandfly.listeners;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerToggleFlightEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.bentobox.bentobox.api.events.island.IslandEnterEvent;
+import world.bentobox.bentobox.api.events.island.IslandExitEvent;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.islandfly.SimulatedServer;
+
+/**
+ * Throughput of {@link FlyListener} handlers. Each invocation handles the next player in turn,
+ * so caches see the same access pattern as a server with the given number of online players.
+ * <p>
+ * {@link #standInBaseline()} measures only the island lookup stand-in, which every other
+ * benchmark also pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlyListenerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int players;
+
+    private SimulatedServer server;
+    private FlyListener listener;
+    private List<User> users;
+    private IslandEnterEvent[] enterEvents;
+    private IslandExitEvent[] exitEvents;
+    private PlayerToggleFlightEvent[] toggleEvents;
+    private int cursor;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.server = SimulatedServer.create(this.players);
+        this.listener = new FlyListener(this.server.getAddon());
+        this.users = this.server.getUsers();
+        this.enterEvents = new IslandEnterEvent[this.players];
+        this.exitEvents = new IslandExitEvent[this.players];
+        this.toggleEvents = new PlayerToggleFlightEvent[this.players];
+
+        for (int i = 0; i < this.players; i++) {
+            final Player player = this.server.getPlayers().get(i);
+            final Island island = this.server.getIslandOf(i);
+
+            final IslandEnterEvent enter = mock(IslandEnterEvent.class, withSettings().stubOnly());
+            when(enter.getPlayerUUID()).thenReturn(player.getUniqueId());
+            when(enter.getIsland()).thenReturn(island);
+            this.enterEvents[i] = enter;
+
+            final IslandExitEvent exit = mock(IslandExitEvent.class, withSettings().stubOnly());
+            when(exit.getPlayerUUID()).thenReturn(player.getUniqueId());
+            when(exit.getIsland()).thenReturn(island);
+            this.exitEvents[i] = exit;
+
+            this.toggleEvents[i] = new PlayerToggleFlightEvent(player, true);
+        }
+    }
+
+
+    @Benchmark
+    public Optional<Island> standInBaseline() {
+        return this.server.getIslands().getProtectedIslandAt(this.users.get(this.next()).getLocation());
+    }
+
+
+    @Benchmark
+    public boolean removeFly() {
+        return this.listener.removeFly(this.users.get(this.next()));
+    }
+
+
+    @Benchmark
+    public void onEnterIsland() {
+        this.listener.onEnterIsland(this.enterEvents[this.next()]);
+    }
+
+
+    @Benchmark
+    public void onExitIsland() {
+        this.listener.onExitIsland(this.exitEvents[this.next()]);
+    }
+
+
+    @Benchmark
+    public void onToggleFlight() {
+        this.listener.onToggleFlight(this.toggleEvents[this.next()]);
+    }
+
+
+    private int next() {
+        final int index = this.cursor;
+        this.cursor = index + 1 == this.players ? 0 : index + 1;
+        return index;
+    }
+}
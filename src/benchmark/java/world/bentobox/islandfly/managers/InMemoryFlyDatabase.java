@@ -0,0 +1,59 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objenesis.ObjenesisStd;
+
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.database.objects.FlyData;
+
+
+/**
+ * Fly data database kept in memory, so benchmarks measure the real {@link FlyStateStore}
+ * without disk access.
+ */
+public class InMemoryFlyDatabase extends Database<FlyData> {
+
+    private Map<String, FlyData> objects;
+
+
+    private InMemoryFlyDatabase() {
+        super(null, FlyData.class);
+    }
+
+
+    /**
+     * Creates fly state store backed by in-memory database.
+     * @param addon addon that provides settings and scheduler
+     * @param objects stored fly data by unique id
+     * @return fly state store
+     */
+    public static FlyStateStore createStore(IslandFlyAddon addon, Map<String, FlyData> objects) {
+        // Real constructor sets up BentoBox database handler
+        final InMemoryFlyDatabase database = new ObjenesisStd().newInstance(InMemoryFlyDatabase.class);
+        database.objects = new ConcurrentHashMap<>(objects);
+        return new FlyStateStore(addon, database, System::currentTimeMillis);
+    }
+
+
+    @Override
+    public boolean objectExists(String uniqueId) {
+        return this.objects.containsKey(uniqueId);
+    }
+
+
+    @Override
+    public FlyData loadObject(String uniqueId) {
+        return this.objects.get(uniqueId);
+    }
+
+
+    @Override
+    public CompletableFuture<Boolean> saveObjectAsync(FlyData instance) {
+        this.objects.put(instance.getUniqueId(), instance);
+        return CompletableFuture.completedFuture(true);
+    }
+}
@@ -0,0 +1,181 @@
+package world.bentobox.islandfly;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import world.bentobox.bentobox.api.commands.CompositeCommand;
+import world.bentobox.bentobox.api.localization.TextVariables;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.managers.BorderCheckManager;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightDecisionCache;
+import world.bentobox.islandfly.policy.ProtectionBoxCache;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.LatencyHistogram;
+import world.bentobox.islandfly.stats.Probe;
+
+
+/**
+ * This admin command shows time spent in IslandFly handlers and cache efficiency.
+ * <p>
+ * Usage: {@code /<admin> flystats [reset]}
+ */
+public class FlyStatsCommand extends CompositeCommand {
+
+    private static final String RESET = "reset";
+
+    private final IslandFlyAddon islandFlyAddon;
+
+
+    /**
+     * Default constructor
+     * @param parent Instance of admin CompositeCommand
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlyStatsCommand(CompositeCommand parent, IslandFlyAddon addon) {
+        super(parent, "flystats");
+        this.islandFlyAddon = addon;
+    }
+
+
+    @Override
+    public void setup() {
+        this.setPermission("admin.fly.stats");
+        this.setParametersHelp("islandfly.admin.stats.parameters");
+        this.setDescription("islandfly.admin.stats.description");
+    }
+
+
+    @Override
+    public boolean execute(User user, String label, List<String> args) {
+        final FlyStats stats = this.islandFlyAddon.getStats();
+
+        if (args.size() == 1 && RESET.equalsIgnoreCase(args.get(0))) {
+            stats.reset();
+            this.islandFlyAddon.getLevelCache().resetCounters();
+            this.islandFlyAddon.getFlightPolicy().getDecisionCache().resetCounters();
+            this.islandFlyAddon.getFlightPolicy().getBoxCache().resetCounters();
+            this.islandFlyAddon.getWorkQueue().getDelays().reset();
+            this.islandFlyAddon.getMessages().resetCounters();
+            user.sendMessage("islandfly.admin.stats.reset");
+            return true;
+        }
+
+        if (!args.isEmpty()) {
+            this.showHelp(this, user);
+            return false;
+        }
+
+        if (!stats.isEnabled()) {
+            user.sendMessage("islandfly.admin.stats.disabled");
+        }
+
+        final long seconds = (System.currentTimeMillis() - stats.getSince()) / 1000L;
+        user.sendMessage("islandfly.admin.stats.header", TextVariables.NUMBER, String.valueOf(seconds));
+
+        for (Probe probe : Probe.values()) {
+            final LatencyHistogram histogram = stats.getHistogram(probe);
+
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+
+            user.sendMessage("islandfly.admin.stats.handler",
+                    TextVariables.NAME, probe.getKey(),
+                    "[count]", String.valueOf(histogram.getCount()),
+                    "[p50]", formatNanos(histogram.getPercentile(0.5)),
+                    "[p99]", formatNanos(histogram.getPercentile(0.99)),
+                    "[max]", formatNanos(histogram.getMax()),
+                    "[total]", formatNanos(histogram.getTotal()));
+        }
+
+        user.sendMessage("islandfly.admin.stats.grace-timers",
+                TextVariables.NUMBER, String.valueOf(this.islandFlyAddon.getGraceTimers().getPendingCount()));
+
+        user.sendMessage("islandfly.admin.stats.ability-writes",
+                "[applied]", String.valueOf(stats.getCount(Counter.ABILITY_WRITE_APPLIED)),
+                "[suppressed]", String.valueOf(stats.getCount(Counter.ABILITY_WRITE_SUPPRESSED)));
+
+        final WorkQueue workQueue = this.islandFlyAddon.getWorkQueue();
+        user.sendMessage("islandfly.admin.stats.work-queue",
+                TextVariables.NUMBER, String.valueOf(workQueue.getDepth()),
+                "[deferred]", String.valueOf(stats.getCount(Counter.WORK_DEFERRED)),
+                "[p99]", formatNanos(workQueue.getDelays().getPercentile(0.99)));
+
+        user.sendMessage("islandfly.admin.stats.alerts",
+                "[sent]", String.valueOf(stats.getCount(Counter.ALERT_SENT)),
+                "[merged]", String.valueOf(stats.getCount(Counter.ALERT_MERGED)),
+                "[limited]", String.valueOf(stats.getCount(Counter.ALERT_RATE_LIMITED)));
+
+        user.sendMessage("islandfly.admin.stats.commands",
+                "[evaluated]", String.valueOf(stats.getCount(Counter.COMMAND_EVALUATED)),
+                "[memo]", String.valueOf(stats.getCount(Counter.COMMAND_MEMO)),
+                "[throttled]", String.valueOf(stats.getCount(Counter.COMMAND_THROTTLED)));
+
+        final BorderCheckManager borderChecks = this.islandFlyAddon.getBorderChecks();
+
+        if (borderChecks != null) {
+            user.sendMessage("islandfly.admin.stats.border-checks",
+                    "[tracked]", String.valueOf(borderChecks.getTrackedCount()),
+                    "[crossed]", String.valueOf(stats.getCount(Counter.BORDER_CHECK_CROSSED)));
+        }
+
+        final FlightDecisionCache decisionCache = this.islandFlyAddon.getFlightPolicy().getDecisionCache();
+        this.sendCache(user, "decision", decisionCache.getHits(), decisionCache.getMisses());
+
+        final LevelCache levelCache = this.islandFlyAddon.getLevelCache();
+        this.sendCache(user, "level", levelCache.getHits(), levelCache.getMisses());
+
+        final ProtectionBoxCache boxCache = this.islandFlyAddon.getFlightPolicy().getBoxCache();
+        this.sendCache(user, "protection box", boxCache.getHits(), boxCache.getMisses());
+
+        final MessageTemplateCache messages = this.islandFlyAddon.getMessages();
+        this.sendCache(user, "message", messages.getHits(), messages.getMisses());
+
+        return true;
+    }
+
+
+    @Override
+    public Optional<List<String>> tabComplete(User user, String alias, List<String> args) {
+        return Optional.of(Collections.singletonList(RESET));
+    }
+
+
+    private void sendCache(User user, String name, long hits, long misses) {
+        final long lookups = hits + misses;
+        final String rate = lookups == 0 ? "0" : String.format(Locale.ROOT, "%.1f", hits * 100D / lookups);
+
+        user.sendMessage("islandfly.admin.stats.cache",
+                TextVariables.NAME, name,
+                "[hits]", String.valueOf(hits),
+                "[misses]", String.valueOf(misses),
+                "[rate]", rate);
+    }
+
+
+    /**
+     * @param nanos duration in nanoseconds
+     * @return duration in the most readable unit
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000L) {
+            return nanos + "ns";
+        }
+
+        if (nanos < 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1_000D);
+        }
+
+        if (nanos < 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000D);
+        }
+
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1_000_000_000D);
+    }
+}
@@ -1,12 +1,18 @@
 package world.bentobox.islandfly;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import world.bentobox.bentobox.api.commands.CompositeCommand;
-import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
-import world.bentobox.bentobox.util.Util;
-import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.jfr.FlyDecisionEvent;
+import world.bentobox.islandfly.managers.CommandThrottle;
+import world.bentobox.islandfly.policy.FlightDecision;
+import world.bentobox.islandfly.policy.PermissionNodes;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 import java.util.List;
 
@@ -16,8 +22,6 @@ import java.util.List;
  */
 public class FlyToggleCommand extends CompositeCommand {
 
-
-    private final Settings settings;
     private final IslandFlyAddon islandFlyAddon;
 
     /**
@@ -26,7 +30,6 @@ public class FlyToggleCommand extends CompositeCommand {
      */
     public FlyToggleCommand(CompositeCommand parent, IslandFlyAddon addon) {
         super(parent, "fly");
-        this.settings = addon.getSettings();
         this.islandFlyAddon = addon;
     }
 
@@ -40,47 +43,106 @@ public class FlyToggleCommand extends CompositeCommand {
 
     @Override
     public boolean canExecute(User user, String label, List<String> args) {
+        final FlyStats stats = this.islandFlyAddon.getStats();
 
-        // Checks world from corresponding gamemode command with the world player is executing in
-        if (this.getWorld() != Util.getWorld(user.getWorld())) {
-            user.sendMessage("islandfly.wrong-world");
-            return false;
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            final boolean result = this.check(user);
+            stats.record(Probe.FLY_COMMAND, start);
+            return result;
         }
 
-        Island island = getIslands().getIslandAt(user.getLocation()).orElse(null);
-
-        if (island == null) return false;
+        return this.check(user);
+    }
 
-        // Gets the island at User's location
 
-        // Enable fly if island is a spawn and user has permission for it
-        if (island.isSpawn() && user.hasPermission(this.getPermissionPrefix() + "island.flyspawn")) {
-            return true;
-        }
+    /**
+     * @param user user that executes command
+     * @return true if user has the fly command cooldown bypass permission
+     */
+    private boolean hasCooldownBypass(User user) {
+        final PermissionNodes nodes = this.islandFlyAddon.getFlightPolicy().getNodes(this.getWorld());
+        return nodes.isGameMode() && user.hasPermission(nodes.getCommandBypass());
+    }
 
-        if (!island.isAllowed(user, IslandFlyAddon.ISLAND_FLY_PROTECTION) && !user.hasPermission(this.getPermissionPrefix() + "island.flybypass")) {
 
-            user.sendMessage("islandfly.command.not-allowed-fly");
+    /**
+     * Checks if user may toggle fly and tells why not. Players over the command cooldown are
+     * refused, unless they turn fly off or have the bypass permission. A player that stays in
+     * place gets the remembered decision.
+     * @param user user that executes command
+     * @return true if command can be executed
+     */
+    private boolean check(User user) {
+        final CommandThrottle throttle = this.islandFlyAddon.getCommandThrottle();
+        final FlyStats stats = this.islandFlyAddon.getStats();
+
+        // Bypass permission is checked only for refused uses
+        if (throttle.isEnabled()
+                && !user.getPlayer().getAllowFlight()
+                && !throttle.tryAcquire(user.getUniqueId())
+                && !this.hasCooldownBypass(user)) {
+            this.islandFlyAddon.getAlerts().alert(user, "islandfly.command.cooldown");
+            stats.count(Counter.COMMAND_THROTTLED);
             return false;
         }
 
+        final Location location = user.getLocation();
+        FlightDecision decision = throttle.getMemo(user.getUniqueId(), location);
 
-        if (!this.settings.isAllowCommandOutsideProtectionRange()
-                && !island.getProtectionBoundingBox().contains(user.getLocation().toVector())) {
+        if (decision == null) {
+            decision = this.evaluate(user);
+            throttle.putMemo(user.getUniqueId(), location, decision);
+            stats.count(Counter.COMMAND_EVALUATED);
+        } else {
+            stats.count(Counter.COMMAND_MEMO);
+        }
 
+        switch (decision) {
+        case WRONG_WORLD:
+            user.sendMessage("islandfly.wrong-world");
+            break;
+        case SPAWN_NO_PERM, FLAG_DENIED:
+            user.sendMessage("islandfly.command.not-allowed-fly");
+            break;
+        case OUTSIDE_PROTECTION:
             user.sendMessage("islandfly.outside-protection-range");
-            return false;
+            break;
+        case LEVEL_TOO_LOW:
+            this.islandFlyAddon.getMessages().send(user, "islandfly.fly-min-level-alert",
+                    this.islandFlyAddon.getSettings().getFlyMinLevel());
+            break;
+        default:
+            break;
+        }
+
+        return decision.isAllowed();
+    }
+
 
+    /**
+     * Evaluates fly rules for the command.
+     * @param user user that executes command
+     * @return decision
+     */
+    private FlightDecision evaluate(User user) {
+        if (!FlyDecisionEvent.isRecording()) {
+            return this.islandFlyAddon.getFlightPolicy().evaluateCommand(user, this.getWorld());
         }
 
-        if(islandFlyAddon.getSettings().getFlyMinLevel() > 1 && islandFlyAddon.getLevelAddon() != null) {
-            if (islandFlyAddon.getLevelAddon().getIslandLevel(island.getWorld(), island.getOwner()) < islandFlyAddon.getSettings().getFlyMinLevel()) {
-                user.sendMessage("islandfly.fly-min-level-alert", TextVariables.NUMBER, String.valueOf(islandFlyAddon.getSettings().getFlyMinLevel()));
-                return false;
-            }
+        final FlyDecisionEvent event = new FlyDecisionEvent();
+        event.begin();
+        final FlightDecision decision = this.islandFlyAddon.getFlightPolicy().evaluateCommand(user, this.getWorld());
+        event.end();
+
+        if (event.shouldCommit()) {
+            final String island = this.islandFlyAddon.getIslands().getIslandAt(user.getLocation())
+                    .map(Island::getUniqueId).orElse("");
+            event.set(user.getName(), island, decision.name(), "command");
+            event.commit();
         }
 
-        return true;
+        return decision;
     }
 
     @Override
@@ -89,13 +151,16 @@ public class FlyToggleCommand extends CompositeCommand {
 
         if (player.getAllowFlight()) {
             // Disable fly and notify player
-            player.setFlying(false);
-            player.setAllowFlight(false);
-            user.sendMessage("islandfly.disable-fly");
+            FlyAbilities.disable(player, this.islandFlyAddon.getStats());
+            this.islandFlyAddon.getMessages().send(user, "islandfly.disable-fly");
+            this.islandFlyAddon.getFlyers().ground(user.getUniqueId());
+            this.islandFlyAddon.getStats().count(Counter.FLY_DISABLED_COMMAND);
         } else {
             // Enable fly and notify player
-            player.setAllowFlight(true);
-            user.sendMessage("islandfly.enable-fly");
+            FlyAbilities.setAllowFlight(player, true, this.islandFlyAddon.getStats());
+            this.islandFlyAddon.getMessages().send(user, "islandfly.enable-fly");
+            this.islandFlyAddon.getFlyers().update(user.getUniqueId(), false);
+            this.islandFlyAddon.getStats().count(Counter.FLY_ENABLED_COMMAND);
         }
         return true;
     }
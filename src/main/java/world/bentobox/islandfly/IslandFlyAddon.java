@@ -1,12 +1,31 @@
 package world.bentobox.islandfly;
 
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import world.bentobox.bentobox.api.addons.Addon;
 import world.bentobox.bentobox.api.configuration.Config;
 import world.bentobox.bentobox.api.flags.Flag;
 import world.bentobox.bentobox.managers.RanksManager;
 import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.config.SettingsDiff;
 import world.bentobox.islandfly.listeners.*;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.BorderCheckManager;
+import world.bentobox.islandfly.managers.CommandThrottle;
+import world.bentobox.islandfly.managers.FlyStateStore;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.GraceCountdown;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.managers.WorkPriority;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.FlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.MetricsExporter;
 import world.bentobox.level.Level;
 
 
@@ -15,15 +34,92 @@ import world.bentobox.level.Level;
  */
 public class IslandFlyAddon extends Addon {
     /**
-     * Settings object for IslandFlyAddon
+     * Settings object for IslandFlyAddon. Loaded settings are never changed, reload publishes
+     * a new object, so readers always see one consistent snapshot. Settings setters are there
+     * only for config loading and must not be called on the published object.
      */
-    private Settings settings;
+    private volatile Settings settings;
 
     /**
      * Level addon instance.
      */
     private Level levelAddon;
 
+    /**
+     * In-memory cache of island levels.
+     */
+    private LevelCache levelCache;
+
+    /**
+     * Scheduler for deferred and per-player work.
+     */
+    private FlyScheduler scheduler;
+
+    /**
+     * Tick-budgeted queue for bulk work.
+     */
+    private WorkQueue workQueue;
+
+    /**
+     * Pending fly disabling timers.
+     */
+    private GraceTimerManager graceTimers;
+
+    /**
+     * Fly eligibility rules.
+     */
+    private FlightPolicyEvaluator flightPolicy;
+
+    /**
+     * Remembered island fly states.
+     */
+    private FlyStateStore flyStates;
+
+    /**
+     * Fly states of online players.
+     */
+    private FlyerRegistry flyers;
+
+    /**
+     * Predictive border checks, null if disabled.
+     */
+    private BorderCheckManager borderChecks;
+
+    /**
+     * Countdown of grace periods, null if disabled.
+     */
+    private GraceCountdown countdown;
+
+    /**
+     * Translated fly alerts.
+     */
+    private MessageTemplateCache messages;
+
+    /**
+     * Merging and rate limiting of fly alerts.
+     */
+    private AlertLimiter alerts;
+
+    /**
+     * Fly command cooldowns and remembered decisions.
+     */
+    private CommandThrottle commandThrottle;
+
+    /**
+     * Handler latency statistics.
+     */
+    private FlyStats stats;
+
+    /**
+     * Prometheus metrics exporter.
+     */
+    private MetricsExporter metricsExporter;
+
+    /**
+     * Listener that manages fly ability, used to check players again after reload.
+     */
+    private FlyListener flyListener;
+
     /**
      * A flag to allow or disallow flight on island
      * based on player's rank
@@ -54,6 +150,21 @@ public class IslandFlyAddon extends Addon {
         // Load the plugin's config
         this.settings = new Config<>(this, Settings.class).loadConfigObject();
         this.loadSettings();
+
+        if (this.settings != null) {
+            this.scheduler = FlyScheduler.create(this.getPlugin());
+            this.workQueue = new WorkQueue(this);
+            this.levelCache = new LevelCache(this);
+            this.graceTimers = new GraceTimerManager(this);
+            this.flightPolicy = new FlightPolicyEvaluator(this);
+            this.flyStates = new FlyStateStore(this);
+            this.flyers = new FlyerRegistry();
+            this.messages = new MessageTemplateCache(this);
+            this.alerts = new AlertLimiter(this);
+            this.commandThrottle = new CommandThrottle(this);
+            this.stats = new FlyStats(this.settings.isStatsEnabled() || MetricsExporter.isEnabled(this.settings));
+            this.metricsExporter = new MetricsExporter(this);
+        }
     }
 
 
@@ -66,12 +177,91 @@ public class IslandFlyAddon extends Addon {
         super.onReload();
 
         if (this.hooked) {
-            this.loadSettings();
+            // BentoBox reloads locales together with addons
+            this.messages.clear();
+
+            final Settings loaded = new Config<>(this, Settings.class).loadConfigObject();
+
+            if (loaded == null) {
+                this.logError("IslandFly settings could not reload! Previous settings are kept.");
+                return;
+            }
+
+            final SettingsDiff diff = SettingsDiff.of(this.settings, loaded);
+            this.settings = loaded;
+            this.applySettings(diff);
             log("IslandFly addon reloaded.");
         }
     }
 
 
+    /**
+     * Applies reloaded settings. Only players affected by changed settings are checked again,
+     * in the background within the work queue budget.
+     * @param diff changes between previous and reloaded settings
+     */
+    private void applySettings(SettingsDiff diff) {
+        // Cached decisions depend on settings, permission nodes on game modes
+        this.flightPolicy.clear();
+        this.commandThrottle.clear();
+
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        this.log("Changed settings: " + diff);
+
+        if (diff.has(SettingsDiff.Change.STATS) || diff.has(SettingsDiff.Change.METRICS)) {
+            this.stats.setEnabled(this.settings.isStatsEnabled() || MetricsExporter.isEnabled(this.settings));
+        }
+
+        if (diff.has(SettingsDiff.Change.METRICS)) {
+            this.metricsExporter.stop();
+            this.metricsExporter.start();
+        }
+
+        if (diff.has(SettingsDiff.Change.FLY_TIMEOUT)) {
+            // Shorter timeout applies to running grace periods too, longer one to next periods
+            this.graceTimers.limitDelay(this.settings.getFlyTimeout() * 1000L);
+        }
+
+        if (diff.has(SettingsDiff.Change.DISABLED_GAMEMODES)) {
+            this.logWarning("Changes of disabled-gamemodes take effect after server restart.");
+        }
+
+        if (diff.has(SettingsDiff.Change.BORDER_CHECK)) {
+            if (this.borderChecks != null) {
+                this.borderChecks.cancelAll();
+                this.borderChecks = null;
+            }
+
+            if (this.settings.isBorderCheckEnabled()) {
+                this.borderChecks = new BorderCheckManager(this, this.flyListener::checkBorder);
+            }
+        }
+
+        if (diff.has(SettingsDiff.Change.COUNTDOWN)) {
+            // Running grace periods keep their countdown only if it is still enabled
+            if (this.countdown != null) {
+                this.countdown.cancelAll();
+                this.countdown = null;
+            }
+
+            if (GraceCountdown.isEnabled(this.settings)) {
+                this.countdown = new GraceCountdown(this);
+            }
+        }
+
+        if (diff.isFlyRuleChanged() || (this.borderChecks != null && diff.has(SettingsDiff.Change.BORDER_CHECK))) {
+            // Re-check also starts border checks of flying players
+            for (UUID playerId : this.flyers.getFlightEnabled()) {
+                this.workQueue.submit(WorkPriority.LOW, () -> this.scheduler
+                        .dispatchToPlayer(playerId, () -> this.flyListener.recheck(playerId)));
+            }
+        }
+    }
+
+
     /**
      * Loads addon settings and hooks into available GameModes
      */
@@ -89,6 +279,9 @@ public class IslandFlyAddon extends Addon {
                             hooked = true;
                         });
 
+                gameModeAddon.getAdminCommand().ifPresent(
+                        adminCommand -> new FlyStatsCommand(adminCommand, this));
+
                 ISLAND_FLY_PROTECTION.addGameModeAddon(gameModeAddon);
             }
         });
@@ -96,14 +289,30 @@ public class IslandFlyAddon extends Addon {
         if (hooked) {
 
             // Register Listeners
-            registerListener(new FlyListener(this));
+            this.flyListener = new FlyListener(this);
+            registerListener(this.flyListener);
             registerListener(new FlyDeathListener(this));
             registerListener(new FlyLogoutListener(this));
             registerListener(new FlyLoginListener(this));
+            registerListener(new FlyPreLoginListener(this));
             registerListener(new FlyFlagListener(this));
+            registerListener(new FlightCacheListener(this));
+
+            if (this.settings.isBorderCheckEnabled()) {
+                this.borderChecks = new BorderCheckManager(this, this.flyListener::checkBorder);
+            }
+
+            if (GraceCountdown.isEnabled(this.settings)) {
+                this.countdown = new GraceCountdown(this);
+            }
 
             // Register a flag
             registerFlag(ISLAND_FLY_PROTECTION);
+
+            // Players that are already online after a reload
+            Bukkit.getOnlinePlayers().forEach(this.flyers::sync);
+
+            this.metricsExporter.start();
         }
     }
 
@@ -113,7 +322,35 @@ public class IslandFlyAddon extends Addon {
      */
     @Override
     public void onDisable() {
-        //Nothing to do here
+        if (this.workQueue != null) {
+            this.workQueue.cancelAll();
+        }
+
+        if (this.graceTimers != null) {
+            this.graceTimers.cancelAll();
+        }
+
+        if (this.flyListener != null) {
+            this.flyListener.cancelAll();
+        }
+
+        if (this.borderChecks != null) {
+            this.borderChecks.cancelAll();
+            this.borderChecks = null;
+        }
+
+        if (this.countdown != null) {
+            this.countdown.cancelAll();
+            this.countdown = null;
+        }
+
+        if (this.flyStates != null) {
+            this.flyStates.flush();
+        }
+
+        if (this.metricsExporter != null) {
+            this.metricsExporter.stop();
+        }
     }
 
     /**
@@ -126,6 +363,11 @@ public class IslandFlyAddon extends Addon {
         {
             this.levelAddon = (Level) addon;
             this.log("Level Addon hooked into Level addon.");
+
+            if (this.hooked) {
+                // Keep cached island levels in sync with level calculations
+                this.registerListener(new LevelCacheListener(this));
+            }
         }, () ->
         {
             this.levelAddon = null;
@@ -163,4 +405,147 @@ public class IslandFlyAddon extends Addon {
     {
         return levelAddon;
     }
+
+
+    /**
+     * Gets island level cache.
+     *
+     * @return the level cache
+     */
+    public LevelCache getLevelCache()
+    {
+        return levelCache;
+    }
+
+
+    /**
+     * Gets scheduler for deferred and per-player work.
+     *
+     * @return the fly scheduler
+     */
+    public FlyScheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+
+    /**
+     * Gets tick-budgeted queue for bulk work.
+     *
+     * @return the work queue
+     */
+    public WorkQueue getWorkQueue()
+    {
+        return workQueue;
+    }
+
+
+    /**
+     * Gets pending grace timers.
+     *
+     * @return the grace timer manager
+     */
+    public GraceTimerManager getGraceTimers()
+    {
+        return graceTimers;
+    }
+
+
+    /**
+     * Gets fly eligibility rules.
+     *
+     * @return the flight policy evaluator
+     */
+    public FlightPolicyEvaluator getFlightPolicy()
+    {
+        return flightPolicy;
+    }
+
+
+    /**
+     * Gets remembered island fly states.
+     *
+     * @return the fly state store
+     */
+    public FlyStateStore getFlyStates()
+    {
+        return flyStates;
+    }
+
+
+    /**
+     * Gets fly states of online players.
+     *
+     * @return the flyer registry
+     */
+    public FlyerRegistry getFlyers()
+    {
+        return flyers;
+    }
+
+
+    /**
+     * Gets predictive border checks.
+     *
+     * @return the border check manager, or null if border checks are disabled
+     */
+    public BorderCheckManager getBorderChecks()
+    {
+        return borderChecks;
+    }
+
+
+    /**
+     * Gets countdown of grace periods.
+     *
+     * @return the grace countdown, or null if countdown is disabled
+     */
+    public GraceCountdown getCountdown()
+    {
+        return countdown;
+    }
+
+
+    /**
+     * Gets translated fly alerts.
+     *
+     * @return the message template cache
+     */
+    public MessageTemplateCache getMessages()
+    {
+        return messages;
+    }
+
+
+    /**
+     * Gets merging and rate limiting of fly alerts.
+     *
+     * @return the alert limiter
+     */
+    public AlertLimiter getAlerts()
+    {
+        return alerts;
+    }
+
+
+    /**
+     * Gets fly command cooldowns and remembered decisions.
+     *
+     * @return the command throttle
+     */
+    public CommandThrottle getCommandThrottle()
+    {
+        return commandThrottle;
+    }
+
+
+    /**
+     * Gets handler latency statistics.
+     *
+     * @return the fly stats
+     */
+    public FlyStats getStats()
+    {
+        return stats;
+    }
 }
@@ -133,6 +133,534 @@ public class Settings implements ConfigObject
     }
 
 
+    /**
+     * Method Settings#getLevelCacheTtl returns the levelCacheTtl of this object.
+     *
+     * @return the levelCacheTtl (type int) of this object.
+     */
+    public int getLevelCacheTtl()
+    {
+        return levelCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#setLevelCacheTtl sets new value for the levelCacheTtl of this object.
+     * @param levelCacheTtl new value for this object.
+     *
+     */
+    public void setLevelCacheTtl(int levelCacheTtl)
+    {
+        this.levelCacheTtl = levelCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#getLevelCacheSize returns the levelCacheSize of this object.
+     *
+     * @return the levelCacheSize (type int) of this object.
+     */
+    public int getLevelCacheSize()
+    {
+        return levelCacheSize;
+    }
+
+
+    /**
+     * Method Settings#setLevelCacheSize sets new value for the levelCacheSize of this object.
+     * @param levelCacheSize new value for this object.
+     *
+     */
+    public void setLevelCacheSize(int levelCacheSize)
+    {
+        this.levelCacheSize = levelCacheSize;
+    }
+
+
+    /**
+     * Method Settings#getRankCacheTtl returns the rankCacheTtl of this object.
+     *
+     * @return the rankCacheTtl (type int) of this object.
+     */
+    public int getRankCacheTtl()
+    {
+        return rankCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#setRankCacheTtl sets new value for the rankCacheTtl of this object.
+     * @param rankCacheTtl new value for this object.
+     *
+     */
+    public void setRankCacheTtl(int rankCacheTtl)
+    {
+        this.rankCacheTtl = rankCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#getRankCacheSize returns the rankCacheSize of this object.
+     *
+     * @return the rankCacheSize (type int) of this object.
+     */
+    public int getRankCacheSize()
+    {
+        return rankCacheSize;
+    }
+
+
+    /**
+     * Method Settings#setRankCacheSize sets new value for the rankCacheSize of this object.
+     * @param rankCacheSize new value for this object.
+     *
+     */
+    public void setRankCacheSize(int rankCacheSize)
+    {
+        this.rankCacheSize = rankCacheSize;
+    }
+
+
+    /**
+     * Method Settings#getDecisionCacheTtl returns the decisionCacheTtl of this object.
+     *
+     * @return the decisionCacheTtl (type int) of this object.
+     */
+    public int getDecisionCacheTtl()
+    {
+        return decisionCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#setDecisionCacheTtl sets new value for the decisionCacheTtl of this object.
+     * @param decisionCacheTtl new value for this object.
+     *
+     */
+    public void setDecisionCacheTtl(int decisionCacheTtl)
+    {
+        this.decisionCacheTtl = decisionCacheTtl;
+    }
+
+
+    /**
+     * Method Settings#getFlyStateFlushInterval returns the flyStateFlushInterval of this object.
+     *
+     * @return the flyStateFlushInterval (type int) of this object.
+     */
+    public int getFlyStateFlushInterval()
+    {
+        return flyStateFlushInterval;
+    }
+
+
+    /**
+     * Method Settings#setFlyStateFlushInterval sets new value for the flyStateFlushInterval of this object.
+     * @param flyStateFlushInterval new value for this object.
+     *
+     */
+    public void setFlyStateFlushInterval(int flyStateFlushInterval)
+    {
+        this.flyStateFlushInterval = flyStateFlushInterval;
+    }
+
+
+    /**
+     * Method Settings#getWorkTickBudget returns the workTickBudget of this object.
+     *
+     * @return the workTickBudget (type int) of this object.
+     */
+    public int getWorkTickBudget()
+    {
+        return workTickBudget;
+    }
+
+
+    /**
+     * Method Settings#setWorkTickBudget sets new value for the workTickBudget of this object.
+     * @param workTickBudget new value for this object.
+     *
+     */
+    public void setWorkTickBudget(int workTickBudget)
+    {
+        this.workTickBudget = workTickBudget;
+    }
+
+
+    /**
+     * Method Settings#isStatsEnabled returns the statsEnabled of this object.
+     *
+     * @return the statsEnabled (type boolean) of this object.
+     */
+    public boolean isStatsEnabled()
+    {
+        return statsEnabled;
+    }
+
+
+    /**
+     * Method Settings#setStatsEnabled sets new value for the statsEnabled of this object.
+     * @param statsEnabled new value for this object.
+     *
+     */
+    public void setStatsEnabled(boolean statsEnabled)
+    {
+        this.statsEnabled = statsEnabled;
+    }
+
+
+    /**
+     * Method Settings#getMetricsMode returns the metricsMode of this object.
+     *
+     * @return the metricsMode (type String) of this object.
+     */
+    public String getMetricsMode()
+    {
+        return metricsMode;
+    }
+
+
+    /**
+     * Method Settings#setMetricsMode sets new value for the metricsMode of this object.
+     * @param metricsMode new value for this object.
+     *
+     */
+    public void setMetricsMode(String metricsMode)
+    {
+        this.metricsMode = metricsMode;
+    }
+
+
+    /**
+     * Method Settings#getMetricsAddress returns the metricsAddress of this object.
+     *
+     * @return the metricsAddress (type String) of this object.
+     */
+    public String getMetricsAddress()
+    {
+        return metricsAddress;
+    }
+
+
+    /**
+     * Method Settings#setMetricsAddress sets new value for the metricsAddress of this object.
+     * @param metricsAddress new value for this object.
+     *
+     */
+    public void setMetricsAddress(String metricsAddress)
+    {
+        this.metricsAddress = metricsAddress;
+    }
+
+
+    /**
+     * Method Settings#getMetricsPort returns the metricsPort of this object.
+     *
+     * @return the metricsPort (type int) of this object.
+     */
+    public int getMetricsPort()
+    {
+        return metricsPort;
+    }
+
+
+    /**
+     * Method Settings#setMetricsPort sets new value for the metricsPort of this object.
+     * @param metricsPort new value for this object.
+     *
+     */
+    public void setMetricsPort(int metricsPort)
+    {
+        this.metricsPort = metricsPort;
+    }
+
+
+    /**
+     * Method Settings#getMetricsFile returns the metricsFile of this object.
+     *
+     * @return the metricsFile (type String) of this object.
+     */
+    public String getMetricsFile()
+    {
+        return metricsFile;
+    }
+
+
+    /**
+     * Method Settings#setMetricsFile sets new value for the metricsFile of this object.
+     * @param metricsFile new value for this object.
+     *
+     */
+    public void setMetricsFile(String metricsFile)
+    {
+        this.metricsFile = metricsFile;
+    }
+
+
+    /**
+     * Method Settings#getMetricsInterval returns the metricsInterval of this object.
+     *
+     * @return the metricsInterval (type int) of this object.
+     */
+    public int getMetricsInterval()
+    {
+        return metricsInterval;
+    }
+
+
+    /**
+     * Method Settings#setMetricsInterval sets new value for the metricsInterval of this object.
+     * @param metricsInterval new value for this object.
+     *
+     */
+    public void setMetricsInterval(int metricsInterval)
+    {
+        this.metricsInterval = metricsInterval;
+    }
+
+
+    /**
+     * Method Settings#isBorderCheckEnabled returns the borderCheckEnabled of this object.
+     *
+     * @return the borderCheckEnabled (type boolean) of this object.
+     */
+    public boolean isBorderCheckEnabled()
+    {
+        return borderCheckEnabled;
+    }
+
+
+    /**
+     * Method Settings#setBorderCheckEnabled sets new value for the borderCheckEnabled of this object.
+     * @param borderCheckEnabled new value for this object.
+     *
+     */
+    public void setBorderCheckEnabled(boolean borderCheckEnabled)
+    {
+        this.borderCheckEnabled = borderCheckEnabled;
+    }
+
+
+    /**
+     * Method Settings#getBorderCheckMinInterval returns the borderCheckMinInterval of this object.
+     *
+     * @return the borderCheckMinInterval (type int) of this object.
+     */
+    public int getBorderCheckMinInterval()
+    {
+        return borderCheckMinInterval;
+    }
+
+
+    /**
+     * Method Settings#setBorderCheckMinInterval sets new value for the borderCheckMinInterval of this object.
+     * @param borderCheckMinInterval new value for this object.
+     *
+     */
+    public void setBorderCheckMinInterval(int borderCheckMinInterval)
+    {
+        this.borderCheckMinInterval = borderCheckMinInterval;
+    }
+
+
+    /**
+     * Method Settings#getBorderCheckMaxInterval returns the borderCheckMaxInterval of this object.
+     *
+     * @return the borderCheckMaxInterval (type int) of this object.
+     */
+    public int getBorderCheckMaxInterval()
+    {
+        return borderCheckMaxInterval;
+    }
+
+
+    /**
+     * Method Settings#setBorderCheckMaxInterval sets new value for the borderCheckMaxInterval of this object.
+     * @param borderCheckMaxInterval new value for this object.
+     *
+     */
+    public void setBorderCheckMaxInterval(int borderCheckMaxInterval)
+    {
+        this.borderCheckMaxInterval = borderCheckMaxInterval;
+    }
+
+
+    /**
+     * Method Settings#getAlertMergeWindow returns the alertMergeWindow of this object.
+     *
+     * @return the alertMergeWindow (type int) of this object.
+     */
+    public int getAlertMergeWindow()
+    {
+        return alertMergeWindow;
+    }
+
+
+    /**
+     * Method Settings#setAlertMergeWindow sets new value for the alertMergeWindow of this object.
+     * @param alertMergeWindow new value for this object.
+     *
+     */
+    public void setAlertMergeWindow(int alertMergeWindow)
+    {
+        this.alertMergeWindow = alertMergeWindow;
+    }
+
+
+    /**
+     * Method Settings#getAlertBurst returns the alertBurst of this object.
+     *
+     * @return the alertBurst (type int) of this object.
+     */
+    public int getAlertBurst()
+    {
+        return alertBurst;
+    }
+
+
+    /**
+     * Method Settings#setAlertBurst sets new value for the alertBurst of this object.
+     * @param alertBurst new value for this object.
+     *
+     */
+    public void setAlertBurst(int alertBurst)
+    {
+        this.alertBurst = alertBurst;
+    }
+
+
+    /**
+     * Method Settings#getAlertRefill returns the alertRefill of this object.
+     *
+     * @return the alertRefill (type int) of this object.
+     */
+    public int getAlertRefill()
+    {
+        return alertRefill;
+    }
+
+
+    /**
+     * Method Settings#setAlertRefill sets new value for the alertRefill of this object.
+     * @param alertRefill new value for this object.
+     *
+     */
+    public void setAlertRefill(int alertRefill)
+    {
+        this.alertRefill = alertRefill;
+    }
+
+
+    /**
+     * Method Settings#getCommandBurst returns the commandBurst of this object.
+     *
+     * @return the commandBurst (type int) of this object.
+     */
+    public int getCommandBurst()
+    {
+        return commandBurst;
+    }
+
+
+    /**
+     * Method Settings#setCommandBurst sets new value for the commandBurst of this object.
+     * @param commandBurst new value for this object.
+     *
+     */
+    public void setCommandBurst(int commandBurst)
+    {
+        this.commandBurst = commandBurst;
+    }
+
+
+    /**
+     * Method Settings#getCommandCooldown returns the commandCooldown of this object.
+     *
+     * @return the commandCooldown (type int) of this object.
+     */
+    public int getCommandCooldown()
+    {
+        return commandCooldown;
+    }
+
+
+    /**
+     * Method Settings#setCommandCooldown sets new value for the commandCooldown of this object.
+     * @param commandCooldown new value for this object.
+     *
+     */
+    public void setCommandCooldown(int commandCooldown)
+    {
+        this.commandCooldown = commandCooldown;
+    }
+
+
+    /**
+     * Method Settings#getCommandMemo returns the commandMemo of this object.
+     *
+     * @return the commandMemo (type int) of this object.
+     */
+    public int getCommandMemo()
+    {
+        return commandMemo;
+    }
+
+
+    /**
+     * Method Settings#setCommandMemo sets new value for the commandMemo of this object.
+     * @param commandMemo new value for this object.
+     *
+     */
+    public void setCommandMemo(int commandMemo)
+    {
+        this.commandMemo = commandMemo;
+    }
+
+
+    /**
+     * Method Settings#getCommandBypassPermission returns the commandBypassPermission of this object.
+     *
+     * @return the commandBypassPermission (type String) of this object.
+     */
+    public String getCommandBypassPermission()
+    {
+        return commandBypassPermission;
+    }
+
+
+    /**
+     * Method Settings#setCommandBypassPermission sets new value for the commandBypassPermission of this object.
+     * @param commandBypassPermission new value for this object.
+     *
+     */
+    public void setCommandBypassPermission(String commandBypassPermission)
+    {
+        this.commandBypassPermission = commandBypassPermission;
+    }
+
+
+    /**
+     * Method Settings#getCountdownMode returns the countdownMode of this object.
+     *
+     * @return the countdownMode (type String) of this object.
+     */
+    public String getCountdownMode()
+    {
+        return countdownMode;
+    }
+
+
+    /**
+     * Method Settings#setCountdownMode sets new value for the countdownMode of this object.
+     * @param countdownMode new value for this object.
+     *
+     */
+    public void setCountdownMode(String countdownMode)
+    {
+        this.countdownMode = countdownMode;
+    }
+
+
     // ---------------------------------------------------------------------
     // Section: Variables
     // ---------------------------------------------------------------------
@@ -167,4 +695,150 @@ public class Settings implements ConfigObject
     @ConfigComment("This allows the player to use the command outside the island protection range.")
     @ConfigEntry(path = "allow-command-outside-protection-range")
     private boolean allowCommandOutsideProtectionRange = false;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds island levels are kept in memory before they are requested")
+    @ConfigComment("from the Level addon again. Level recalculations update the cache immediately.")
+    @ConfigEntry(path = "level-cache.ttl")
+    private int levelCacheTtl = 300;
+
+    @ConfigComment("")
+    @ConfigComment("Maximal number of island levels kept in memory.")
+    @ConfigEntry(path = "level-cache.size")
+    private int levelCacheSize = 1000;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds island fly flag thresholds are kept in memory. Flag changes")
+    @ConfigComment("update the cache immediately.")
+    @ConfigEntry(path = "rank-cache.ttl")
+    private int rankCacheTtl = 300;
+
+    @ConfigComment("")
+    @ConfigComment("Maximal number of island fly flag thresholds kept in memory.")
+    @ConfigEntry(path = "rank-cache.size")
+    private int rankCacheSize = 1000;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds a player fly decision for an island is remembered. Decisions are")
+    @ConfigComment("dropped earlier when flags, ranks, teams, island level, world or game mode change.")
+    @ConfigComment("Zero disables the cache.")
+    @ConfigEntry(path = "decision-cache.ttl")
+    private int decisionCacheTtl = 30;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds between saves of remembered island fly states. Changes are also")
+    @ConfigComment("saved when player logs out and when server shuts down.")
+    @ConfigEntry(path = "fly-state.flush-interval")
+    private int flyStateFlushInterval = 60;
+
+    @ConfigComment("")
+    @ConfigComment("Number of microseconds per tick IslandFly may spend on bulk work, like fly flag changes")
+    @ConfigComment("and fly restores on login. Work that does not fit is carried over to the next tick,")
+    @ConfigComment("most urgent first. Zero or negative number runs all work immediately.")
+    @ConfigEntry(path = "work-queue.tick-budget")
+    private int workTickBudget = 2000;
+
+    @ConfigComment("")
+    @ConfigComment("This allows to measure time spent in IslandFly event handlers and the fly command.")
+    @ConfigComment("Results are shown with the admin flystats command.")
+    @ConfigEntry(path = "stats.enabled")
+    private boolean statsEnabled = false;
+
+    @ConfigComment("")
+    @ConfigComment("This allows to export IslandFly metrics in Prometheus text format. Available modes:")
+    @ConfigComment(" none - metrics are not exported")
+    @ConfigComment(" http - metrics are served on http://<address>:<port>/metrics")
+    @ConfigComment(" file - metrics are written to a file in the addon folder")
+    @ConfigComment("Exporting metrics enables stats collection.")
+    @ConfigEntry(path = "metrics.mode")
+    private String metricsMode = "none";
+
+    @ConfigComment("")
+    @ConfigComment("Address the metrics endpoint is bound to. Keep it local unless the port is firewalled.")
+    @ConfigEntry(path = "metrics.address")
+    private String metricsAddress = "127.0.0.1";
+
+    @ConfigComment("")
+    @ConfigComment("Port of the metrics endpoint.")
+    @ConfigEntry(path = "metrics.port")
+    private int metricsPort = 9465;
+
+    @ConfigComment("")
+    @ConfigComment("Name of the metrics file in the addon folder.")
+    @ConfigEntry(path = "metrics.file")
+    private String metricsFile = "metrics.prom";
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds between metrics snapshots.")
+    @ConfigEntry(path = "metrics.interval")
+    private int metricsInterval = 15;
+
+    @ConfigComment("")
+    @ConfigComment("This allows to re-check flying players near the island border at the time they are")
+    @ConfigComment("expected to cross it, estimated from distance to the protection edge and speed.")
+    @ConfigComment("It catches border crossings without island exit event, like some teleports and knockback.")
+    @ConfigEntry(path = "border-check.enabled")
+    private boolean borderCheckEnabled = false;
+
+    @ConfigComment("")
+    @ConfigComment("Minimal number of ticks between two border checks of one player.")
+    @ConfigEntry(path = "border-check.min-interval")
+    private int borderCheckMinInterval = 2;
+
+    @ConfigComment("")
+    @ConfigComment("Maximal number of ticks between two border checks of one player.")
+    @ConfigEntry(path = "border-check.max-interval")
+    private int borderCheckMaxInterval = 100;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds in which the same fly alert is sent to a player only once.")
+    @ConfigComment("Countdown alerts are not sent again while the countdown they announced is running.")
+    @ConfigComment("Zero or negative number merges only countdown alerts.")
+    @ConfigEntry(path = "alerts.merge-window")
+    private int alertMergeWindow = 0;
+
+    @ConfigComment("")
+    @ConfigComment("Number of fly alerts a player can get in a row. Further alerts are dropped until")
+    @ConfigComment("the player earns them back. Countdown alerts and fly disabled messages are never")
+    @ConfigComment("dropped. Zero or negative number disables the limit.")
+    @ConfigEntry(path = "alerts.burst")
+    private int alertBurst = 0;
+
+    @ConfigComment("")
+    @ConfigComment("Number of seconds in which a player earns back one dropped fly alert.")
+    @ConfigEntry(path = "alerts.refill")
+    private int alertRefill = 2;
+
+    @ConfigComment("")
+    @ConfigComment("Number of fly command uses a player can make in a row before the cooldown applies.")
+    @ConfigComment("Zero or negative number disables the cooldown.")
+    @ConfigEntry(path = "command.burst")
+    private int commandBurst = 0;
+
+    @ConfigComment("")
+    @ConfigComment("Number of milliseconds in which a player earns back one fly command use.")
+    @ConfigComment("Zero or negative number disables the cooldown.")
+    @ConfigEntry(path = "command.cooldown")
+    private int commandCooldown = 1000;
+
+    @ConfigComment("")
+    @ConfigComment("Number of milliseconds the result of fly command checks is reused while the player")
+    @ConfigComment("stays on the same block. Zero or negative number checks every use.")
+    @ConfigEntry(path = "command.memo")
+    private int commandMemo = 1000;
+
+    @ConfigComment("")
+    @ConfigComment("Permission that skips the fly command cooldown. Game mode prefix is added in front,")
+    @ConfigComment("so the default is bskyblock.island.fly.nocooldown for BSkyBlock.")
+    @ConfigEntry(path = "command.bypass-permission")
+    private String commandBypassPermission = "island.fly.nocooldown";
+
+    @ConfigComment("")
+    @ConfigComment("This allows to show the seconds left until fly is disabled while a player is in a")
+    @ConfigComment("grace period. Available modes:")
+    @ConfigComment(" none - no countdown is shown")
+    @ConfigComment(" action-bar - countdown is shown above the hotbar")
+    @ConfigComment(" boss-bar - countdown is shown in a boss bar at the top of the screen")
+    @ConfigEntry(path = "countdown.mode")
+    private String countdownMode = "none";
 }
@@ -0,0 +1,145 @@
+package world.bentobox.islandfly.config;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+/**
+ * Settings changes between two loaded {@link Settings} snapshots that need action when addon
+ * is reloaded. Settings that are read every time they are used, like logout-disable-fly or
+ * level-cache.ttl, apply without any action and are not listed.
+ */
+public final class SettingsDiff {
+
+    /**
+     * Setting change that needs action.
+     */
+    public enum Change {
+        FLY_MIN_LEVEL("fly-min-level"),
+        FLY_TIMEOUT("fly-timeout"),
+        DISABLED_GAMEMODES("disabled-gamemodes"),
+        COMMAND_RANGE("allow-command-outside-protection-range"),
+        DECISION_CACHE("decision-cache"),
+        STATS("stats"),
+        METRICS("metrics"),
+        BORDER_CHECK("border-check"),
+        COUNTDOWN("countdown.mode");
+
+        /**
+         * Path of the setting in config.yml.
+         */
+        private final String path;
+
+
+        Change(String path) {
+            this.path = path;
+        }
+
+
+        /**
+         * @return path of the setting in config.yml
+         */
+        public String getPath() {
+            return this.path;
+        }
+    }
+
+
+    /**
+     * Changed settings.
+     */
+    private final Set<Change> changes;
+
+
+    private SettingsDiff(Set<Change> changes) {
+        this.changes = changes;
+    }
+
+
+    /**
+     * Compares two settings snapshots.
+     * @param previous settings that were used until now
+     * @param current newly loaded settings
+     * @return differences between snapshots
+     */
+    public static SettingsDiff of(Settings previous, Settings current) {
+        final Set<Change> changes = EnumSet.noneOf(Change.class);
+
+        if (previous.getFlyMinLevel() != current.getFlyMinLevel()) {
+            changes.add(Change.FLY_MIN_LEVEL);
+        }
+
+        if (previous.getFlyTimeout() != current.getFlyTimeout()) {
+            changes.add(Change.FLY_TIMEOUT);
+        }
+
+        if (!previous.getDisabledGameModes().equals(current.getDisabledGameModes())) {
+            changes.add(Change.DISABLED_GAMEMODES);
+        }
+
+        if (previous.isAllowCommandOutsideProtectionRange() != current.isAllowCommandOutsideProtectionRange()) {
+            changes.add(Change.COMMAND_RANGE);
+        }
+
+        if (previous.getDecisionCacheTtl() != current.getDecisionCacheTtl()) {
+            changes.add(Change.DECISION_CACHE);
+        }
+
+        if (previous.isStatsEnabled() != current.isStatsEnabled()) {
+            changes.add(Change.STATS);
+        }
+
+        if (!Objects.equals(previous.getMetricsMode(), current.getMetricsMode())
+                || !Objects.equals(previous.getMetricsAddress(), current.getMetricsAddress())
+                || previous.getMetricsPort() != current.getMetricsPort()
+                || !Objects.equals(previous.getMetricsFile(), current.getMetricsFile())
+                || previous.getMetricsInterval() != current.getMetricsInterval()) {
+            changes.add(Change.METRICS);
+        }
+
+        if (previous.isBorderCheckEnabled() != current.isBorderCheckEnabled()) {
+            changes.add(Change.BORDER_CHECK);
+        }
+
+        if (!Objects.equals(previous.getCountdownMode(), current.getCountdownMode())) {
+            changes.add(Change.COUNTDOWN);
+        }
+
+        return new SettingsDiff(changes);
+    }
+
+
+    /**
+     * @param change setting change
+     * @return true if setting changed
+     */
+    public boolean has(Change change) {
+        return this.changes.contains(change);
+    }
+
+
+    /**
+     * @return true if no setting that needs action changed
+     */
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+
+    /**
+     * Protection range setting is not a fly rule here: it applies only to the fly command, and
+     * fly of players that already fly is checked inside protection range anyway.
+     * @return true if players that may fly now must be checked again
+     */
+    public boolean isFlyRuleChanged() {
+        return this.has(Change.FLY_MIN_LEVEL);
+    }
+
+
+    @Override
+    public String toString() {
+        return this.changes.stream().map(Change::getPath).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,211 @@
+package world.bentobox.islandfly.database.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.annotations.Expose;
+
+import world.bentobox.bentobox.database.objects.DataObject;
+import world.bentobox.bentobox.database.objects.Table;
+
+
+/**
+ * Stores remembered island fly states of one player.
+ * <p>
+ * States are encoded compactly: a list of island unique ids and a bit set, where bit
+ * {@code i} tells if player was flying on island {@code islands[i]}.
+ */
+@Table(name = "IslandFlyData")
+public class FlyData implements DataObject {
+
+    /**
+     * Player unique id.
+     */
+    @Expose
+    private String uniqueId;
+
+    /**
+     * Island unique ids that have remembered fly state.
+     */
+    @Expose
+    private List<String> islands = new ArrayList<>();
+
+    /**
+     * Bit set words of fly states, indexed by position in {@link #islands}.
+     */
+    @Expose
+    private long[] flying = new long[0];
+
+    /**
+     * Island unique id to position in {@link #islands}. Built on first use.
+     */
+    private transient Map<String, Integer> index;
+
+
+    /**
+     * Default constructor for database.
+     */
+    public FlyData() {
+        // Used by database
+    }
+
+
+    /**
+     * @param uniqueId player unique id
+     */
+    public FlyData(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+
+    /**
+     * Gets remembered fly state on island.
+     * @param islandId island unique id
+     * @return true if player was flying, false if not, null if unknown
+     */
+    public Boolean getFlyState(String islandId) {
+        final Integer position = this.getIndex().get(islandId);
+        return position == null ? null : this.getBit(position);
+    }
+
+
+    /**
+     * Remembers fly state on island.
+     * @param islandId island unique id
+     * @param state true if player is flying
+     */
+    public void setFlyState(String islandId, boolean state) {
+        Integer position = this.getIndex().get(islandId);
+
+        if (position == null) {
+            position = this.islands.size();
+            this.islands.add(islandId);
+            this.index.put(islandId, position);
+        }
+
+        this.setBit(position, state);
+    }
+
+
+    /**
+     * Forgets fly state on island.
+     * @param islandId island unique id
+     * @return true if state was removed
+     */
+    public boolean removeIsland(String islandId) {
+        final Integer position = this.getIndex().remove(islandId);
+
+        if (position == null) {
+            return false;
+        }
+
+        // Move the last island into the freed position
+        final int last = this.islands.size() - 1;
+
+        if (position != last) {
+            final String moved = this.islands.get(last);
+            this.islands.set(position, moved);
+            this.setBit(position, this.getBit(last));
+            this.index.put(moved, position);
+        }
+
+        this.islands.remove(last);
+        this.setBit(last, false);
+        this.flying = Arrays.copyOf(this.flying, (this.islands.size() + 63) >>> 6);
+        return true;
+    }
+
+
+    /**
+     * @return list of island unique ids with remembered fly state
+     */
+    public List<String> getIslands() {
+        return this.islands;
+    }
+
+
+    /**
+     * @param islands the islands to set
+     */
+    public void setIslands(List<String> islands) {
+        this.islands = islands;
+        this.index = null;
+    }
+
+
+    /**
+     * @return the fly state bit set words
+     */
+    public long[] getFlying() {
+        return this.flying;
+    }
+
+
+    /**
+     * @param flying the fly state bit set words to set
+     */
+    public void setFlying(long[] flying) {
+        this.flying = flying;
+    }
+
+
+    @Override
+    public String getUniqueId() {
+        return this.uniqueId;
+    }
+
+
+    @Override
+    public void setUniqueId(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+
+    private Map<String, Integer> getIndex() {
+        if (this.index == null) {
+            if (this.islands == null) {
+                this.islands = new ArrayList<>();
+            }
+
+            if (this.flying == null) {
+                this.flying = new long[0];
+            }
+
+            this.index = new HashMap<>();
+
+            for (int i = 0; i < this.islands.size(); i++) {
+                this.index.put(this.islands.get(i), i);
+            }
+        }
+
+        return this.index;
+    }
+
+
+    private boolean getBit(int position) {
+        final int word = position >>> 6;
+        return word < this.flying.length && (this.flying[word] & (1L << position)) != 0;
+    }
+
+
+    private void setBit(int position, boolean value) {
+        final int word = position >>> 6;
+
+        if (word >= this.flying.length) {
+            if (!value) {
+                return;
+            }
+
+            this.flying = Arrays.copyOf(this.flying, word + 1);
+        }
+
+        if (value) {
+            this.flying[word] |= 1L << position;
+        } else {
+            this.flying[word] &= ~(1L << position);
+        }
+    }
+}
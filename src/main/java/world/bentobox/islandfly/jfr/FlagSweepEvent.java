@@ -0,0 +1,66 @@
+package world.bentobox.islandfly.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event for the check of all players on an island after its fly flag changed. Duration
+ * covers the whole sweep.
+ * <p>
+ * Callers create the event only when {@link #isRecording()} returns true, so a flag change
+ * allocates nothing extra when the event is not recorded.
+ */
+@Name("world.bentobox.islandfly.FlagSweep")
+@Label("Fly Flag Sweep")
+@Description("Check of players on an island after fly flag change")
+@Category({"BentoBox", "IslandFly"})
+@StackTrace(false)
+public class FlagSweepEvent extends Event {
+
+    /**
+     * Type of this event, looked up once.
+     */
+    private static final EventType TYPE = EventType.getEventType(FlagSweepEvent.class);
+
+    @Label("Island")
+    private String island;
+
+    @Label("Min Rank")
+    private int minRank;
+
+    @Label("Players Checked")
+    private int checked;
+
+    @Label("Players Disabled")
+    @Description("Players that lose fly, now or after the grace period")
+    private int disabled;
+
+
+    /**
+     * @return true if a running recording has this event enabled
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+
+    /**
+     * Sets event fields.
+     * @param island island unique id
+     * @param minRank minimal rank allowed to fly
+     * @param checked number of players on island
+     * @param disabled number of players that lose fly
+     */
+    public void set(String island, int minRank, int checked, int disabled) {
+        this.island = island;
+        this.minRank = minRank;
+        this.checked = checked;
+        this.disabled = disabled;
+    }
+}
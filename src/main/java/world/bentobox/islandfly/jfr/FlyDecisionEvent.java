@@ -0,0 +1,66 @@
+package world.bentobox.islandfly.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event for one fly eligibility check. Duration covers the policy evaluation.
+ * <p>
+ * Callers create the event only when {@link #isRecording()} returns true, and fill fields only
+ * after {@link #shouldCommit()} returns true, so a check costs nothing extra when the event is
+ * not recorded.
+ */
+@Name("world.bentobox.islandfly.FlyDecision")
+@Label("Fly Decision")
+@Description("Fly eligibility check of a player")
+@Category({"BentoBox", "IslandFly"})
+@StackTrace(false)
+public class FlyDecisionEvent extends Event {
+
+    /**
+     * Type of this event, looked up once.
+     */
+    private static final EventType TYPE = EventType.getEventType(FlyDecisionEvent.class);
+
+    @Label("Player")
+    private String player;
+
+    @Label("Island")
+    private String island;
+
+    @Label("Decision")
+    private String decision;
+
+    @Label("Source")
+    @Description("Code path that asked for the decision")
+    private String source;
+
+
+    /**
+     * @return true if a running recording has this event enabled
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+
+    /**
+     * Sets event fields.
+     * @param player player name
+     * @param island island unique id, empty if there is no island
+     * @param decision decision name
+     * @param source code path that asked for the decision
+     */
+    public void set(String player, String island, String decision, String source) {
+        this.player = player;
+        this.island = island;
+        this.decision = decision;
+        this.source = source;
+    }
+}
@@ -0,0 +1,37 @@
+package world.bentobox.islandfly.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * JFR event for fly that IslandFly took away from a player.
+ */
+@Name("world.bentobox.islandfly.FlyDisable")
+@Label("Fly Disable")
+@Description("Fly forcibly disabled by IslandFly")
+@Category({"BentoBox", "IslandFly"})
+@StackTrace(false)
+public class FlyDisableEvent extends Event {
+
+    @Label("Player")
+    private String player;
+
+    @Label("Reason")
+    private String reason;
+
+
+    /**
+     * Sets event fields.
+     * @param player player name
+     * @param reason why fly was disabled
+     */
+    public void set(String player, String reason) {
+        this.player = player;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,45 @@
+package world.bentobox.islandfly.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * JFR event for a scheduled fly grace timer.
+ */
+@Name("world.bentobox.islandfly.GraceTimer")
+@Label("Fly Grace Timer")
+@Description("Grace timer scheduled before fly is disabled")
+@Category({"BentoBox", "IslandFly"})
+@StackTrace(false)
+public class GraceTimerEvent extends Event {
+
+    @Label("Player")
+    private String player;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    private long delay;
+
+    @Label("Replaced")
+    @Description("True if a pending timer of the player was replaced")
+    private boolean replaced;
+
+
+    /**
+     * Sets event fields.
+     * @param player player unique id
+     * @param delay delay in milliseconds
+     * @param replaced true if a pending timer was replaced
+     */
+    public void set(String player, long delay, boolean replaced) {
+        this.player = player;
+        this.delay = delay;
+        this.replaced = replaced;
+    }
+}
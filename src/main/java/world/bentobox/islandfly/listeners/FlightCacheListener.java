@@ -0,0 +1,212 @@
+package world.bentobox.islandfly.listeners;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import world.bentobox.bentobox.api.events.IslandBaseEvent;
+import world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent;
+import world.bentobox.bentobox.api.events.island.IslandDeleteEvent;
+import world.bentobox.bentobox.api.events.island.IslandProtectionRangeChangeEvent;
+import world.bentobox.bentobox.api.events.island.IslandRankChangeEvent;
+import world.bentobox.bentobox.api.events.island.IslandResettedEvent;
+import world.bentobox.bentobox.api.events.team.TeamJoinedEvent;
+import world.bentobox.bentobox.api.events.team.TeamKickEvent;
+import world.bentobox.bentobox.api.events.team.TeamLeaveEvent;
+import world.bentobox.bentobox.api.events.team.TeamSetownerEvent;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.policy.FlightDecisionCache;
+
+
+/**
+ * This class drops cached fly decisions, fly rank thresholds and protection boxes when something
+ * that affects them changes. It also forgets remembered fly states of deleted islands.
+ * Handlers run with the lowest priority, so other IslandFly listeners already see fresh data.
+ */
+public class FlightCacheListener implements Listener {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlightCacheListener(IslandFlyAddon addon) {
+        this.addon = addon;
+    }
+
+
+    /**
+     * Stores new fly rank threshold and drops decisions for island which fly flag was changed.
+     * @param event Instance of FlagProtectionChangeEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onFlagChange(final FlagProtectionChangeEvent event) {
+        if (event.getEditedFlag().equals(IslandFlyAddon.ISLAND_FLY_PROTECTION)) {
+            final String islandId = event.getIsland().getUniqueId();
+            this.addon.getFlightPolicy().getRankCache().setMinRank(islandId, event.getSetTo());
+            this.getCache().invalidateIsland(islandId);
+        }
+    }
+
+
+    /**
+     * Drops decisions for island which members changed rank.
+     * @param event Instance of IslandRankChangeEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onRankChange(final IslandRankChangeEvent event) {
+        this.invalidateIsland(event);
+    }
+
+
+    /**
+     * Drops decisions for island that player joined.
+     * @param event Instance of TeamJoinedEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onTeamJoined(final TeamJoinedEvent event) {
+        this.invalidateIsland(event);
+    }
+
+
+    /**
+     * Drops decisions for island that player left.
+     * @param event Instance of TeamLeaveEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onTeamLeave(final TeamLeaveEvent event) {
+        this.invalidateIsland(event);
+    }
+
+
+    /**
+     * Drops decisions for island that player was kicked from.
+     * @param event Instance of TeamKickEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onTeamKick(final TeamKickEvent event) {
+        this.invalidateIsland(event);
+    }
+
+
+    /**
+     * Drops decisions for island that changed owner.
+     * @param event Instance of TeamSetownerEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onTeamSetowner(final TeamSetownerEvent event) {
+        this.invalidateIsland(event);
+    }
+
+
+    /**
+     * Drops cached protection boxes of island which protection range changed.
+     * @param event Instance of IslandProtectionRangeChangeEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onProtectionRangeChange(final IslandProtectionRangeChangeEvent event) {
+        this.invalidateBoxes(event);
+    }
+
+
+    /**
+     * Drops decisions for deleted island.
+     * @param event Instance of IslandDeleteEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onIslandDelete(final IslandDeleteEvent event) {
+        this.invalidateIsland(event);
+        this.invalidateRank(event);
+        this.invalidateBoxes(event);
+        this.pruneFlyStates(event);
+    }
+
+
+    /**
+     * Drops decisions for reset island.
+     * @param event Instance of IslandResettedEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onIslandReset(final IslandResettedEvent event) {
+        this.invalidateIsland(event);
+        this.invalidateRank(event);
+        this.invalidateBoxes(event);
+        this.pruneFlyStates(event);
+    }
+
+
+    /**
+     * Drops decision of player that changed world.
+     * @param event Instance of PlayerChangedWorldEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onWorldChange(final PlayerChangedWorldEvent event) {
+        this.getCache().invalidatePlayer(event.getPlayer().getUniqueId());
+    }
+
+
+    /**
+     * Drops decision of player that changed game mode.
+     * @param event Instance of PlayerGameModeChangeEvent
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onGameModeChange(final PlayerGameModeChangeEvent event) {
+        this.getCache().invalidatePlayer(event.getPlayer().getUniqueId());
+    }
+
+
+    /**
+     * Drops decision of player that left the server.
+     * @param event Instance of PlayerQuitEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final PlayerQuitEvent event) {
+        this.getCache().invalidatePlayer(event.getPlayer().getUniqueId());
+        this.addon.getFlightPolicy().getBoxCache().invalidatePlayer(event.getPlayer().getUniqueId());
+    }
+
+
+    private void invalidateIsland(IslandBaseEvent event) {
+        if (event.getIsland() != null) {
+            this.getCache().invalidateIsland(event.getIsland().getUniqueId());
+        }
+
+        if (event.getPlayerUUID() != null) {
+            this.getCache().invalidatePlayer(event.getPlayerUUID());
+        }
+    }
+
+
+    private void invalidateRank(IslandBaseEvent event) {
+        if (event.getIsland() != null) {
+            this.addon.getFlightPolicy().getRankCache().invalidate(event.getIsland().getUniqueId());
+        }
+    }
+
+
+    private void invalidateBoxes(IslandBaseEvent event) {
+        if (event.getIsland() != null) {
+            this.addon.getFlightPolicy().getBoxCache().invalidateIsland(event.getIsland().getUniqueId());
+        }
+    }
+
+
+    private void pruneFlyStates(IslandBaseEvent event) {
+        if (event.getIsland() != null) {
+            this.addon.getFlyStates().removeIsland(event.getIsland().getUniqueId());
+        }
+    }
+
+
+    private FlightDecisionCache getCache() {
+        return this.addon.getFlightPolicy().getDecisionCache();
+    }
+}
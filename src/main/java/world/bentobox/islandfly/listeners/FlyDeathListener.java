@@ -10,6 +10,10 @@ import world.bentobox.bentobox.BentoBox;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +29,11 @@ public class FlyDeathListener implements Listener {
 	 */
     private final BentoBox plugin;
 
+	/**
+	 * IslandFlyAddon instance.
+	 */
+	private final IslandFlyAddon addon;
+
 
 	/**
 	 * Default constructor.
@@ -32,6 +41,7 @@ public class FlyDeathListener implements Listener {
 	 */
 	public FlyDeathListener(final IslandFlyAddon addon){
         this.plugin = addon.getPlugin();
+        this.addon = addon;
     }
 
 
@@ -42,12 +52,27 @@ public class FlyDeathListener implements Listener {
 	 */
 	@EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
 	public void onDeath(final PlayerDeathEvent event) {
+		final FlyStats stats = this.addon.getStats();
+		if (stats.isEnabled()) {
+			final long start = System.nanoTime();
+			this.death(event);
+			stats.record(Probe.DEATH, start);
+		} else {
+			this.death(event);
+		}
+	}
+
+
+	private void death(final PlayerDeathEvent event) {
+	    //Grounded players have no fly to disable
+	    if (!addon.getFlyers().isFlightEnabled(event.getEntity())) {
+	    	return;
+	    }
+
 	    //Disable fly on death anyway
 	    final User user = User.getInstance(event.getEntity().getUniqueId());
 
-	    if (plugin.getIWM().getAddon(user.getWorld()).
-			map(a -> user.hasPermission(a.getPermissionPrefix() + "island.flybypass")).
-			orElse(false)) {
+	    if (addon.getFlightPolicy().hasBypass(user)) {
 	    	return;
 		}
 
@@ -61,18 +86,36 @@ public class FlyDeathListener implements Listener {
 	 */
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
 	public void onRespawn(PlayerRespawnEvent event) {
+		final FlyStats stats = this.addon.getStats();
+		if (stats.isEnabled()) {
+			final long start = System.nanoTime();
+			this.respawn(event);
+			stats.record(Probe.RESPAWN, start);
+		} else {
+			this.respawn(event);
+		}
+	}
+
+
+	private void respawn(final PlayerRespawnEvent event) {
 		
 	    //If a player respawns on an island that he's added to, do nothing. 
 	    //Otherwise - disable Fly
 	    final Player player = event.getPlayer();
 	    final UUID playerUUID = player.getUniqueId();
+
+	    if (!addon.getFlyers().isFlightEnabled(player)) {
+	    	return;
+	    }
+
 	    Optional<Island> island = plugin.getIslands().getIslandAt(player.getLocation());
 
 	    if (island.isPresent() &&
 			island.get().getMembers().containsKey(playerUUID) &&
 			player.getAllowFlight()) {
 	        //Enable only if it was previously enabled too
-	       player.setFlying(true);
+	       FlyAbilities.setFlying(player, true, this.addon.getStats());
+	       this.addon.getFlyers().update(playerUUID, true);
 	    }
 	}
 
@@ -82,6 +125,8 @@ public class FlyDeathListener implements Listener {
 	 * @param user Which must lose its fly ability.
 	 */
 	private void disableFly(final User user) {
-		user.getPlayer().setFlying(false);
+		FlyAbilities.setFlying(user.getPlayer(), false, this.addon.getStats());
+		this.addon.getFlyers().update(user.getUniqueId(), false);
+		this.addon.getStats().count(Counter.FLY_DISABLED_DEATH);
     }
 }
@@ -1,14 +1,18 @@
 package world.bentobox.islandfly.listeners;
 
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent;
-import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.jfr.FlagSweepEvent;
+import world.bentobox.islandfly.managers.WorkPriority;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 public class FlyFlagListener implements Listener {
 
@@ -20,21 +24,55 @@ public class FlyFlagListener implements Listener {
 
     @EventHandler
     public void onFlagChange(FlagProtectionChangeEvent e) {
+        final FlyStats stats = this.addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.flagChange(e);
+            stats.record(Probe.FLAG_CHANGE, start);
+        } else {
+            this.flagChange(e);
+        }
+    }
+
+
+    private void flagChange(FlagProtectionChangeEvent e) {
 
         if (!e.getEditedFlag().equals(IslandFlyAddon.ISLAND_FLY_PROTECTION))
             return;
 
+        final FlagSweepEvent event = FlagSweepEvent.isRecording() ? new FlagSweepEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
         Island island = e.getIsland();
+        // Threshold is resolved once for the whole island
+        final int minRank = this.addon.getFlightPolicy().getRankCache().getMinRank(island);
+        int checked = 0;
+        int disabled = 0;
+
+        // Go through all of the flying and not allowed users at
+        // the moment and warn them that their fly is about to turn off.
+        // Fly can be given without IslandFly, so all players on the island are
+        // checked, and flying ones missing from the registry are registered.
+        for (Player p : island.getPlayersOnIsland()) {
+            if (!p.isFlying() || !this.addon.getFlyers().isFlightEnabled(p)) continue;
+            checked++;
+            if (!p.isOp() && island.getRank(User.getInstance(p)) < minRank) {
+                // Disable within the tick budget, on the thread that owns the player
+                this.addon.getWorkQueue().submit(WorkPriority.HIGH, () -> this.addon.getScheduler()
+                        .dispatchToPlayer(p.getUniqueId(), () -> startDisabling(p, island)));
+                disabled++;
+            }
+        }
 
-        // Stream through all of the flying and not allowed users at
-        // the moment and warn them that their fly is about to turn off
-        island.getPlayersOnIsland()
-        .stream()
-        //.parallelStream()
-        .filter(Player::isFlying)
-        .filter(p -> !p.isOp())
-        .filter(p -> !(island.isAllowed(User.getInstance(p), IslandFlyAddon.ISLAND_FLY_PROTECTION)))
-        .forEach(p -> startDisabling(p, island));
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(island.getUniqueId(), minRank, checked, disabled);
+                event.commit();
+            }
+        }
     }
 
     private void startDisabling(Player p, Island island) {
@@ -44,20 +82,26 @@ public class FlyFlagListener implements Listener {
 
 
         // Alert player fly will be disabled
-        user.sendMessage("islandfly.fly-turning-off-alert", TextVariables.NUMBER, String.valueOf(flyTimeout));
+        this.addon.getAlerts().countdown(user, "islandfly.fly-turning-off-alert", flyTimeout);
 
         // If timeout is 0 or less disable fly immediately
         if (flyTimeout <= 0) {
 
-            p.setFlying(false);
-            p.setAllowFlight(false);
-            user.sendMessage("islandfly.disable-fly");
+            FlyAbilities.disable(p, this.addon.getStats());
+            this.addon.getAlerts().notice(user, "islandfly.disable-fly");
+            this.addon.getFlyers().ground(p.getUniqueId());
+            this.addon.getStats().count(Counter.FLY_DISABLED_FLAG_CHANGE);
 
             return;
         }
 
         // Else disable fly with a delay
-        Bukkit.getScheduler().runTaskLater(this.addon.getPlugin(), () -> disable(p, user, island), 20L* flyTimeout);
+        this.addon.getGraceTimers().schedule(p.getUniqueId(), flyTimeout * 1000L, () -> disable(p, user, island));
+        this.addon.getFlyers().startGrace(p.getUniqueId());
+
+        if (this.addon.getCountdown() != null) {
+            this.addon.getCountdown().start(p);
+        }
     }
 
     void disable(Player p, User user, Island island) {
@@ -66,19 +110,23 @@ public class FlyFlagListener implements Listener {
         if (!user.isOnline()) return;
 
         // Check if user was reallowed to fly in the meantime
-        if (!island.isAllowed(user,IslandFlyAddon.ISLAND_FLY_PROTECTION)) {
+        if (!this.addon.getFlightPolicy().getRankCache().isAllowed(user, island)) {
 
             // Silent cancel fly if player changed island in the meantime
             // It will be the job of Enter/Exit island event to turn fly off if required
-            if (!island.onIsland(p.getLocation()))
+            if (!island.onIsland(p.getLocation())) {
+                this.addon.getFlyers().endGrace(p);
                 return;
+            }
 
-            p.setFlying(false);
-            p.setAllowFlight(false);
-            user.sendMessage("islandfly.disable-fly");
+            FlyAbilities.disable(p, this.addon.getStats());
+            this.addon.getAlerts().notice(user, "islandfly.disable-fly");
+            this.addon.getFlyers().ground(p.getUniqueId());
+            this.addon.getStats().count(Counter.FLY_DISABLED_FLAG_CHANGE);
         }
         else {
             user.sendMessage("islandfly.reallowed-fly");
+            this.addon.getFlyers().endGrace(p);
         }
     }
 }
\ No newline at end of file
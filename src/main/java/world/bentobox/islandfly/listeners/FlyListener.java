@@ -1,36 +1,47 @@
 package world.bentobox.islandfly.listeners;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.UUID;
 
-import org.bukkit.Bukkit;
-import org.bukkit.GameMode;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.player.PlayerToggleFlightEvent;
-import org.eclipse.jdt.annotation.NonNull;
 
 import world.bentobox.bentobox.api.events.island.IslandEnterEvent;
 import world.bentobox.bentobox.api.events.island.IslandExitEvent;
-import world.bentobox.bentobox.api.localization.TextVariables;
-import world.bentobox.bentobox.api.metadata.MetaDataValue;
 import world.bentobox.bentobox.api.user.User;
-import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.jfr.FlyDecisionEvent;
+import world.bentobox.islandfly.jfr.FlyDisableEvent;
+import world.bentobox.islandfly.managers.BorderCheckManager;
+import world.bentobox.islandfly.managers.FlyState;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.PlayerCheckBatch;
+import world.bentobox.islandfly.policy.FlightDecision;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 /**
  * This class manages players fly ability.
  */
 public class FlyListener implements Listener {
 
-    private static final @NonNull String ISLANDFLY = "IslandFly-";
     /**
      * Addon instance object.
      */
     private final IslandFlyAddon addon;
 
+    /**
+     * Island entries which destination was not known, checked once per tick.
+     */
+    private final PlayerCheckBatch deferredChecks;
+
 
     /**
      * Default constructor.
@@ -38,20 +49,41 @@ public class FlyListener implements Listener {
      */
     public FlyListener(final IslandFlyAddon islandFlyAddon) {
         this.addon = islandFlyAddon;
+        this.deferredChecks = new PlayerCheckBatch(islandFlyAddon, this::recheck);
+    }
+
+
+    /**
+     * Drops deferred island entry checks and stops their ticker.
+     */
+    public void cancelAll() {
+        this.deferredChecks.cancelAll();
     }
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onToggleFlight(final PlayerToggleFlightEvent event) {
+        final FlyStats stats = addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            toggleFlight(event);
+            stats.record(Probe.TOGGLE_FLIGHT, start);
+        } else {
+            toggleFlight(event);
+        }
+    }
+
+    private void toggleFlight(final PlayerToggleFlightEvent event) {
         final User user = User.getInstance(event.getPlayer());
         if (checkUser(user)) {
             user.sendMessage("islandfly.not-allowed");
         } else {
+            addon.getFlyers().update(user.getUniqueId(), event.isFlying());
+            // Players who land keep fly, so they stay tracked
+            trackBorder(event.getPlayer());
             addon.getIslands().getIslandAt(user.getLocation())
-                    .filter(i -> i.getMemberSet().contains(user.getUniqueId())).ifPresent(is -> {
-                        Map<String, MetaDataValue> metaData = new HashMap<>();
-                        metaData.put("IslandFly-" + is.getUniqueId(), new MetaDataValue(event.isFlying()));
-                        user.setMetaData(metaData); // Record the fly state for this island
-                    });
+                    .filter(i -> i.getMemberSet().contains(user.getUniqueId()))
+                    // Record the fly state for this island
+                    .ifPresent(is -> addon.getFlyStates().setFlyState(user.getUniqueId(), is.getUniqueId(), event.isFlying()));
 
         }
     }
@@ -61,24 +93,106 @@ public class FlyListener implements Listener {
      * @return true if fly was blocked
      */
     private boolean checkUser(User user) {
-        String permPrefix = addon.getPlugin().getIWM().getPermissionPrefix(user.getWorld());
-        // Ignore ops
-        if (user.isOp() || user.getPlayer().getGameMode().equals(GameMode.CREATIVE)
-                || user.getPlayer().getGameMode().equals(GameMode.SPECTATOR)
-                || user.hasPermission(permPrefix + "island.flybypass")) return false;
-        return removeFly(user);
+        return checkUser(user, null);
+    }
+
+    /**
+     * @param user user
+     * @param destination location user is moving to, or null to check current location
+     * @return true if fly was blocked
+     */
+    private boolean checkUser(User user, Location destination) {
+        // Ignore ops, bypass is checked in the world user is moving to
+        if (addon.getFlightPolicy().isExempt(user, destination == null ? user.getWorld() : destination.getWorld())) return false;
+        return removeFly(user, destination);
     }
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onEnterIsland(final IslandEnterEvent event) {
+        final FlyStats stats = addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            enterIsland(event);
+            stats.record(Probe.ENTER_ISLAND, start);
+        } else {
+            enterIsland(event);
+        }
+    }
+
+    private void enterIsland(final IslandEnterEvent event) {
         final User user = User.getInstance(event.getPlayerUUID());
-        user.getMetaData(ISLANDFLY + event.getIsland().getUniqueId())
-                .ifPresent(mdv -> {
-                    user.getPlayer().setAllowFlight(true);
-                    user.getPlayer().setFlying(mdv.asBoolean());
-                });
-        // Wait until after arriving at the island
-        Bukkit.getScheduler().runTask(this.addon.getPlugin(), () -> checkUser(user));
+        final FlyerRegistry flyers = addon.getFlyers();
+        // Player is back on an island, so pending grace timer is not needed anymore
+        if (addon.getGraceTimers().cancel(user.getUniqueId())) {
+            flyers.endGrace(user.getPlayer());
+        }
+        final Boolean flying = addon.getFlyStates().getFlyState(user, event.getIsland().getUniqueId());
+        if (flying != null) {
+            FlyAbilities.setAllowFlight(user.getPlayer(), true, addon.getStats());
+            FlyAbilities.setFlying(user.getPlayer(), flying, addon.getStats());
+            flyers.update(user.getUniqueId(), flying);
+            addon.getStats().count(Counter.FLY_ENABLED_ISLAND_ENTER);
+        }
+        // Grounded players have no fly to remove
+        if (!user.isOnline() || !flyers.isFlightEnabled(user.getPlayer())) return;
+        final Location destination = event.getLocation();
+        if (destination != null) {
+            // Destination is resolved with the island, so it is checked before player arrives
+            if (!checkUser(user, destination) && user.getPlayer().isFlying()) {
+                trackBorder(user.getPlayer(), destination);
+            }
+        } else {
+            // Wait until after arriving at the island
+            deferredChecks.add(user.getUniqueId());
+        }
+    }
+
+    /**
+     * Checks again if player may keep flying where it is now. Used for island entries without
+     * known destination, once player has arrived, and after settings are reloaded.
+     * @param playerId - player unique id
+     */
+    public void recheck(final UUID playerId) {
+        final FlyerRegistry flyers = addon.getFlyers();
+        // Players in grace period are handled by their grace timer
+        if (flyers.getState(playerId) == FlyState.GRACE) return;
+        final User user = User.getInstance(playerId);
+        if (!user.isOnline() || !flyers.isFlightEnabled(user.getPlayer())) return;
+        if (!checkUser(user) && user.getPlayer().isFlying()) {
+            trackBorder(user.getPlayer(), user.getLocation());
+        }
+    }
+
+    /**
+     * Checks teleport destination, so fly is removed before player arrives at an island where
+     * it may not fly. Runs at highest priority, because it changes player state, so the
+     * destination is final unless a monitor changes it.
+     * @param event instance of PlayerTeleportEvent
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onTeleport(final PlayerTeleportEvent event) {
+        final FlyStats stats = addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            teleport(event);
+            stats.record(Probe.TELEPORT, start);
+        } else {
+            teleport(event);
+        }
+    }
+
+    private void teleport(final PlayerTeleportEvent event) {
+        final Player player = event.getPlayer();
+        final Location destination = event.getTo();
+        // Grounded players have no fly to remove
+        if (destination == null || !addon.getFlyers().isFlightEnabled(player)) return;
+        // Leaving islands is handled by the exit event and its grace period
+        if (addon.getFlightPolicy().getBoxCache().getProtectedIsland(player.getUniqueId(), destination,
+                addon.getIslands()) == null) return;
+        final User user = User.getInstance(player);
+        if (!checkUser(user, destination) && player.isFlying()) {
+            trackBorder(player, destination);
+        }
     }
 
     /**
@@ -87,14 +201,50 @@ public class FlyListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onExitIsland(final IslandExitEvent event) {
+        final FlyStats stats = addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            exitIsland(event);
+            stats.record(Probe.EXIT_ISLAND, start);
+        } else {
+            exitIsland(event);
+        }
+    }
+
+    private void exitIsland(final IslandExitEvent event) {
+        final FlyerRegistry flyers = addon.getFlyers();
+        // Grounded players have no fly to remove, and border check could have started grace already
+        if (flyers.getState(event.getPlayerUUID()) == FlyState.GRACE) return;
         final User user = User.getInstance(event.getPlayerUUID());
-        String permPrefix = addon.getPlugin().getIWM().getPermissionPrefix(user.getWorld());
+        if (!user.isOnline() || !flyers.isFlightEnabled(user.getPlayer())) return;
+        startGrace(user);
+    }
+
+    /**
+     * Re-checks flying player predicted to be near the island border. Catches border crossings
+     * that did not fire island exit event.
+     * @param player - player to check
+     */
+    public void checkBorder(final Player player) {
+        if (addon.getFlyers().getState(player.getUniqueId()) == FlyState.GRACE) return;
+        final User user = User.getInstance(player);
+        final FlightDecision decision = addon.getFlightPolicy().evaluateLocation(user);
+        // Other fly rules are enforced by their own listeners
+        if (decision == FlightDecision.NO_ISLAND || decision == FlightDecision.WRONG_WORLD) {
+            addon.getStats().count(Counter.BORDER_CHECK_CROSSED);
+            startGrace(user);
+        }
+    }
+
+    /**
+     * Starts grace period after player left the island, or removes fly if there is none.
+     * @param user - user who left the island
+     */
+    private void startGrace(final User user) {
+        untrackBorder(user);
+        final FlightPolicyEvaluator policy = addon.getFlightPolicy();
         // Ignore ops
-        if (user.isOp() || user.getPlayer().getGameMode().equals(GameMode.CREATIVE)
-                || user.getPlayer().getGameMode().equals(GameMode.SPECTATOR)
-                || user.hasPermission(permPrefix + "island.flybypass")
-                || (!user.hasPermission(permPrefix + "island.fly")
-                        && !user.hasPermission(permPrefix + "island.flyspawn"))) return;
+        if (policy.isExempt(user) || !policy.hasFlyPermission(user)) return;
         // Alert player fly will be disabled
         final int flyTimeout = this.addon.getSettings().getFlyTimeout();
 
@@ -106,10 +256,44 @@ public class FlyListener implements Listener {
 
         // Else disable fly with a delay
         if (user.getPlayer().isFlying()) {
-            user.sendMessage("islandfly.fly-outside-alert", TextVariables.NUMBER, String.valueOf(flyTimeout));
+            this.addon.getAlerts().countdown(user, "islandfly.fly-outside-alert", flyTimeout);
+        }
+
+        addon.getGraceTimers().schedule(user.getUniqueId(), flyTimeout * 1000L, () -> endGrace(user));
+        addon.getFlyers().startGrace(user.getUniqueId());
+
+        if (addon.getCountdown() != null) {
+            addon.getCountdown().start(user.getPlayer());
+        }
+    }
+
+    /**
+     * Removes fly when grace period ends, or keeps it if player is allowed to fly again.
+     * @param user - user whose grace period ended
+     */
+    private void endGrace(User user) {
+        if (!removeFly(user) && user.isOnline()) {
+            addon.getFlyers().endGrace(user.getPlayer());
+        }
+    }
+
+
+    private void trackBorder(final Player player) {
+        trackBorder(player, player.getLocation());
+    }
+
+    private void trackBorder(final Player player, final Location location) {
+        final BorderCheckManager borderChecks = addon.getBorderChecks();
+        if (borderChecks != null) {
+            borderChecks.track(player, location);
         }
+    }
 
-        Bukkit.getScheduler().runTaskLater(this.addon.getPlugin(), () -> removeFly(user), 20L * flyTimeout);
+    private void untrackBorder(final User user) {
+        final BorderCheckManager borderChecks = addon.getBorderChecks();
+        if (borderChecks != null) {
+            borderChecks.untrack(user.getUniqueId());
+        }
     }
 
 
@@ -119,56 +303,86 @@ public class FlyListener implements Listener {
      * @return true if fly is removed, otherwise false
      */
     boolean removeFly(User user) {
-        // Verify player is still online
-        if (!user.isOnline()) return false;
-
-        Island island = addon.getIslands().getProtectedIslandAt(user.getLocation()).orElse(null);
+        return removeFly(user, null);
+    }
 
-        if (island == null) {
-            disableFly(user);
+    /**
+     * Remove fly from a player if it may not fly at given location
+     * @param user - user to check
+     * @param destination - location user is moving to, or null to check current location
+     * @return true if fly is removed, otherwise false
+     */
+    private boolean removeFly(User user, Location destination) {
+        // Event is created only while it is recorded, this runs on every check
+        final FlightDecision decision = FlyDecisionEvent.isRecording() ? evaluateRecorded(user, destination)
+                : evaluate(user, destination);
+        switch (decision) {
+        case ALLOWED, BYPASS, OFFLINE:
+            return false;
+        case LEVEL_TOO_LOW:
+            disableFly(user, decision);
+            return false;
+        default:
+            disableFly(user, decision);
             return true;
         }
+    }
 
-        // Check if player is back on a spawn island
-        if (island.isSpawn()) {
-            if (this.addon.getPlugin().getIWM().getAddon(user.getWorld())
-                    .map(a -> !user.hasPermission(a.getPermissionPrefix() + "island.flyspawn")).orElse(false)) {
-
-                disableFly(user);
-                return true;
-            }
-            return false;
-        }
 
-        if (addon.getSettings().getFlyMinLevel() > 1 && addon.getLevelAddon() != null) {
-            if (addon.getLevelAddon().getIslandLevel(island.getWorld(), island.getOwner()) < addon.getSettings()
-                    .getFlyMinLevel()) {
-                disableFly(user);
-                return false;
-            }
-        }
+    /**
+     * @param user - user to check
+     * @param destination - location user is moving to, or null to check current location
+     * @return decision
+     */
+    private FlightDecision evaluate(User user, Location destination) {
+        final FlightPolicyEvaluator policy = addon.getFlightPolicy();
+        return destination == null ? policy.evaluateLocation(user) : policy.evaluateAt(user, destination);
+    }
 
-        // Check if player is allowed to fly on the island he is at that moment
-        if (!island.isAllowed(user, IslandFlyAddon.ISLAND_FLY_PROTECTION)) {
-            disableFly(user);
-            return true;
+    /**
+     * Evaluates decision and records it in a JFR event.
+     * @param user - user to check
+     * @param destination - location user is moving to, or null to check current location
+     * @return decision
+     */
+    private FlightDecision evaluateRecorded(User user, Location destination) {
+        final FlyDecisionEvent event = new FlyDecisionEvent();
+        event.begin();
+        final FlightDecision decision = evaluate(user, destination);
+        event.end();
+        if (event.shouldCommit()) {
+            // Island is the one the evaluation used, no second lookup
+            final String island = decision == FlightDecision.OFFLINE ? null
+                    : addon.getFlightPolicy().getEvaluatedIslandId(user.getUniqueId());
+            event.set(user.getName(), island == null ? "" : island, decision.name(),
+                    destination == null ? "location" : "destination");
+            event.commit();
         }
-        return false;
+        return decision;
     }
 
 
-
     /**
      * Disable player fly and alert it
      * @param user - user to disable
+     * @param reason - decision that disabled fly
      */
-    private void disableFly(final User user) {
+    private void disableFly(final User user, final FlightDecision reason) {
 
         final Player player = user.getPlayer();
         if (player.isFlying())
-            user.sendMessage("islandfly.disable-fly");
+            this.addon.getAlerts().notice(user, "islandfly.disable-fly");
+        if (player.getAllowFlight())
+            addon.getStats().countDisable(reason);
+
+        final FlyDisableEvent event = new FlyDisableEvent();
+        if (event.shouldCommit()) {
+            event.set(user.getName(), reason.name());
+            event.commit();
+        }
 
-        player.setFlying(false);
-        player.setAllowFlight(false);
+        FlyAbilities.disable(player, addon.getStats());
+        addon.getFlyers().ground(user.getUniqueId());
+        untrackBorder(user);
     }
 }
@@ -1,5 +1,8 @@
 package world.bentobox.islandfly.listeners;
 
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
@@ -7,9 +10,14 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
-import world.bentobox.bentobox.api.localization.TextVariables;
 import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.managers.WorkPriority;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 /**
  * This class disables fly mode if player quits server.
@@ -38,32 +46,101 @@ public class FlyLoginListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onLogin(final PlayerJoinEvent event) {
+        final FlyStats stats = this.islandFlyAddon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.login(event);
+            stats.record(Probe.LOGIN, start);
+        } else {
+            this.login(event);
+        }
+    }
+
+
+    private void login(final PlayerJoinEvent event) {
         final Player player = event.getPlayer();
+        // Abilities are kept between sessions
+        this.islandFlyAddon.getFlyers().sync(player);
+        // Remembered island fly states are needed on the first island entry
+        this.islandFlyAddon.getFlyStates().preload(player.getUniqueId());
+
+        // Caches of player islands are warmed when the tick has budget left
+        final UUID playerId = player.getUniqueId();
+        this.islandFlyAddon.getWorkQueue().submit(WorkPriority.LOW,
+                () -> this.islandFlyAddon.getScheduler().dispatchToPlayer(playerId, () -> this.warmUp(playerId)));
+
+        if (this.islandFlyAddon.getSettings().isFlyDisableOnLogout() || !isInAir(player)) {
+            return;
+        }
+
+        // Login bursts are spread over next ticks by the tick budget
+        this.islandFlyAddon.getWorkQueue().submit(WorkPriority.NORMAL,
+                () -> this.islandFlyAddon.getScheduler().dispatchToPlayer(playerId, () -> this.restoreDeferred(playerId)));
+    }
+
+
+    /**
+     * Loads fly rank thresholds and levels of player islands into their caches.
+     * @param playerId player unique id
+     */
+    private void warmUp(final UUID playerId) {
+        final boolean levelGate = this.islandFlyAddon.getSettings().getFlyMinLevel() > 1
+                && this.islandFlyAddon.getLevelAddon() != null;
+
+        for (Island island : this.islandFlyAddon.getIslands().getIslands(playerId)) {
+            this.islandFlyAddon.getFlightPolicy().getRankCache().getMinRank(island);
+
+            if (levelGate) {
+                this.islandFlyAddon.getLevelCache().getLevel(island);
+            }
+        }
+    }
+
+
+    /**
+     * Restores fly of player, unless it left or landed while the restore was waiting.
+     * @param playerId player unique id
+     */
+    private void restoreDeferred(final UUID playerId) {
+        final Player player = Bukkit.getPlayer(playerId);
+
+        if (player != null && player.isOnline() && isInAir(player)) {
+            this.restoreFly(player);
+        }
+    }
+
+
+    /**
+     * Restores fly of player that joined while flying, if still allowed.
+     * @param player player
+     */
+    private void restoreFly(final Player player) {
         final User user = User.getInstance(player);
-        final String permPrefix = islandFlyAddon.getPlugin().getIWM().getPermissionPrefix(player.getWorld());
-        if (player.hasPermission(permPrefix + "island.fly")
-                && !this.islandFlyAddon.getSettings().isFlyDisableOnLogout()
-                && isInAir(player)
-                && islandFlyAddon.getIslands().userIsOnIsland(user.getWorld(), user)
-                && !islandFlyAddon.getIslands().getIslandAt(user.getLocation()).map(i -> {
-
-                    if(islandFlyAddon.getSettings().getFlyMinLevel() > 1 && islandFlyAddon.getLevelAddon() != null) {
-                        if (islandFlyAddon.getLevelAddon().getIslandLevel(i.getWorld(), i.getOwner()) < islandFlyAddon.getSettings().getFlyMinLevel()) {
-                            user.sendMessage("islandfly.fly-min-level-alert", TextVariables.NUMBER, String.valueOf(islandFlyAddon.getSettings().getFlyMinLevel()));
-                            return false;
-                        }
-                    }
-                    if (i.isAllowed(user, IslandFlyAddon.ISLAND_FLY_PROTECTION)) {
-                        // Enable fly
-                        player.setFallDistance(0);
-                        player.setAllowFlight(true);
-                        player.setFlying(true);
-                        user.sendMessage("islandfly.enable-fly");
-                        return true;
-                    }
-                    return false;
-                }).orElse(false)) {
+
+        switch (this.islandFlyAddon.getFlightPolicy().evaluateLogin(user)) {
+        case ALLOWED:
+            // Enable fly
+            player.setFallDistance(0);
+            FlyAbilities.setAllowFlight(player, true, this.islandFlyAddon.getStats());
+            FlyAbilities.setFlying(player, true, this.islandFlyAddon.getStats());
+            this.islandFlyAddon.getFlyers().update(player.getUniqueId(), true);
+
+            if (this.islandFlyAddon.getBorderChecks() != null) {
+                this.islandFlyAddon.getBorderChecks().track(player);
+            }
+
+            this.islandFlyAddon.getMessages().send(user, "islandfly.enable-fly");
+            this.islandFlyAddon.getStats().count(Counter.FLY_ENABLED_LOGIN);
+            break;
+        case LEVEL_TOO_LOW:
+            this.islandFlyAddon.getMessages().send(user, "islandfly.fly-min-level-alert", islandFlyAddon.getSettings().getFlyMinLevel());
+            user.sendMessage("islandfly.command.not-allowed-fly");
+            break;
+        case FLAG_DENIED:
             user.sendMessage("islandfly.command.not-allowed-fly");
+            break;
+        default:
+            break;
         }
     }
 
@@ -6,6 +6,10 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.FlyAbilities;
 
 
 /**
@@ -35,14 +39,39 @@ public class FlyLogoutListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onLogout(final PlayerQuitEvent event) {
+        final FlyStats stats = this.addon.getStats();
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.logout(event);
+            stats.record(Probe.LOGOUT, start);
+        } else {
+            this.logout(event);
+        }
+    }
+
+
+    private void logout(final PlayerQuitEvent event) {
         final Player player = event.getPlayer();
+        // Pending grace timer is useless for offline player
+        this.addon.getGraceTimers().cancel(player.getUniqueId());
+
+        if (this.addon.getBorderChecks() != null) {
+            this.addon.getBorderChecks().untrack(player.getUniqueId());
+        }
+        this.addon.getAlerts().forget(player.getUniqueId());
+        this.addon.getCommandThrottle().forget(player.getUniqueId());
+        // Save remembered fly states of this player and release them
+        this.addon.getFlyStates().unload(player.getUniqueId());
+        // Forget fly state, grounded players have nothing to disable. Fly given without
+        // IslandFly is not in the registry, so abilities are checked as well.
+        final boolean flightEnabled = this.addon.getFlyers().remove(player.getUniqueId()) || player.getAllowFlight();
 
-        if (player.getAllowFlight() && this.addon.getSettings().isFlyDisableOnLogout())
+        if (flightEnabled && this.addon.getSettings().isFlyDisableOnLogout())
         {
             addon.logWarning("Disabling flight");
             // Disable fly
-            player.setFlying(false);
-            player.setAllowFlight(false);
+            FlyAbilities.disable(player, this.addon.getStats());
+            this.addon.getStats().count(Counter.FLY_DISABLED_LOGOUT);
         }
     }
 }
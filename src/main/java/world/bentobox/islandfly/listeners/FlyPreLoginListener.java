@@ -0,0 +1,57 @@
+package world.bentobox.islandfly.listeners;
+
+import java.util.UUID;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+
+
+/**
+ * This class reads fly data of player from database while player is still logging in, on the
+ * async pre-login thread, so it is already in memory when join event arrives.
+ * <p>
+ * Only the IslandFly database is read here. Island lookups and the Level addon are not known to
+ * be safe off the server thread, so island levels and fly rank thresholds are warmed by
+ * {@link FlyLoginListener} after join.
+ */
+public class FlyPreLoginListener implements Listener {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlyPreLoginListener(IslandFlyAddon addon) {
+        this.addon = addon;
+    }
+
+
+    /**
+     * Prefetches player data if login is allowed.
+     * @param event Instance of AsyncPlayerPreLoginEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(final AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        final UUID playerId = event.getUniqueId();
+
+        try {
+            this.addon.getFlyStates().prefetch(playerId);
+        } catch (Exception e) {
+            // Prefetch is only an optimization, join handler will load anything missing
+            this.addon.logWarning("Could not prefetch fly data for " + playerId + ": " + e.getMessage());
+        }
+    }
+}
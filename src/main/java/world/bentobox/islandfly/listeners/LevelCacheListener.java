@@ -0,0 +1,44 @@
+package world.bentobox.islandfly.listeners;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.level.events.IslandLevelCalculatedEvent;
+
+
+/**
+ * This class keeps the island level cache in sync with Level addon calculations.
+ * It must be registered only if Level addon is present.
+ */
+public class LevelCacheListener implements Listener {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public LevelCacheListener(IslandFlyAddon addon) {
+        this.addon = addon;
+    }
+
+
+    /**
+     * Stores freshly calculated island level in the cache.
+     * @param event Instance of IslandLevelCalculatedEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLevelCalculated(final IslandLevelCalculatedEvent event) {
+        if (event.getIsland() == null) return;
+
+        this.addon.getLevelCache().put(event.getIsland().getUniqueId(), event.getLevel());
+        // Level gate result may have changed for everyone on this island
+        this.addon.getFlightPolicy().getDecisionCache().invalidateIsland(event.getIsland().getUniqueId());
+    }
+}
@@ -0,0 +1,201 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.stats.Counter;
+
+
+/**
+ * This class sends fly alerts that players get without asking for them, like alerts on island
+ * exit, and keeps border-hopping players from getting a burst of them.
+ * <p>
+ * The same alert sent again within the merge window is merged into the previous one. Countdown
+ * alerts hold their alert for the whole countdown, whatever the merge window is, so a countdown
+ * in progress is not announced again. Other alerts that are not merged take a token from the
+ * player's bucket, which holds {@link Settings#getAlertBurst()} tokens and earns one back every
+ * {@link Settings#getAlertRefill()} seconds. Alerts without a token are dropped. Countdown
+ * alerts and notices, like fly being disabled, never take a token, so they are never dropped.
+ * Both limits are off by default.
+ * <p>
+ * The limiter can be used from any thread.
+ */
+public class AlertLimiter {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Alert state of each player who got an alert.
+     */
+    private final Map<UUID, AlertState> states = new ConcurrentHashMap<>();
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public AlertLimiter(IslandFlyAddon addon) {
+        this(addon, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in milliseconds
+     */
+    AlertLimiter(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Sends alert unless it is merged or rate limited.
+     * @param user user who receives alert
+     * @param reference translation reference
+     */
+    public void alert(User user, String reference) {
+        if (this.tryAcquire(user.getUniqueId(), reference, 0L, true)) {
+            this.addon.getMessages().send(user, reference);
+        }
+    }
+
+
+    /**
+     * Sends countdown alert unless it is merged or rate limited. Alert is merged while the
+     * countdown announced by the previous one is running.
+     * @param user user who receives alert
+     * @param reference translation reference
+     * @param seconds length of the countdown, also value of the number variable
+     */
+    public void countdown(User user, String reference, int seconds) {
+        if (this.tryAcquire(user.getUniqueId(), reference, seconds * 1000L, false)) {
+            this.addon.getMessages().send(user, reference, seconds);
+        }
+    }
+
+
+    /**
+     * Sends notice that must reach the player, like fly being disabled. Notice is never merged
+     * or rate limited.
+     * @param user user who receives notice
+     * @param reference translation reference
+     */
+    public void notice(User user, String reference) {
+        this.addon.getStats().count(Counter.ALERT_SENT);
+        this.addon.getMessages().send(user, reference);
+    }
+
+
+    /**
+     * Removes alert state of player who left.
+     * @param playerId player unique id
+     */
+    public void forget(UUID playerId) {
+        this.states.remove(playerId);
+    }
+
+
+    /**
+     * @return number of players with alert state
+     */
+    public int size() {
+        return this.states.size();
+    }
+
+
+    /**
+     * Decides if alert may be sent and counts the result.
+     * @param playerId player unique id
+     * @param reference translation reference
+     * @param holdMillis time in which the same alert is merged, if longer than merge window
+     * @param limited true if alert takes a token
+     * @return true if alert may be sent
+     */
+    boolean tryAcquire(UUID playerId, String reference, long holdMillis, boolean limited) {
+        final Settings settings = this.addon.getSettings();
+        final long now = this.clock.getAsLong();
+        final Counter result;
+
+        final AlertState state = this.states.computeIfAbsent(playerId, id -> new AlertState(settings.getAlertBurst(), now));
+
+        synchronized (state) {
+            result = state.acquire(reference, now, holdMillis, limited, settings);
+        }
+
+        this.addon.getStats().count(result);
+        return result == Counter.ALERT_SENT;
+    }
+
+
+    /**
+     * Alert state of one player.
+     */
+    private static class AlertState {
+
+        /**
+         * Tokens left in the bucket.
+         */
+        private double tokens;
+
+        /**
+         * Time the bucket was last refilled.
+         */
+        private long refilledAt;
+
+        /**
+         * Reference of the last sent alert.
+         */
+        private String lastReference;
+
+        /**
+         * Time until which the last sent alert merges the same alert.
+         */
+        private long heldUntil;
+
+        private AlertState(int burst, long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+
+        private Counter acquire(String reference, long now, long holdMillis, boolean limited, Settings settings) {
+            if (now < this.heldUntil && reference.equals(this.lastReference)) {
+                return Counter.ALERT_MERGED;
+            }
+
+            final int burst = settings.getAlertBurst();
+
+            if (limited && burst > 0) {
+                final long refillMillis = Math.max(1, settings.getAlertRefill()) * 1000L;
+                this.tokens = Math.min(burst, this.tokens + (now - this.refilledAt) / (double) refillMillis);
+                this.refilledAt = now;
+
+                if (this.tokens < 1D) {
+                    return Counter.ALERT_RATE_LIMITED;
+                }
+
+                this.tokens--;
+            }
+
+            // Countdown is held for its whole length even without merge window
+            final long windowMillis = Math.max(0, settings.getAlertMergeWindow()) * 1000L;
+            this.lastReference = reference;
+            this.heldUntil = now + Math.max(windowMillis, holdMillis);
+            return Counter.ALERT_SENT;
+        }
+    }
+}
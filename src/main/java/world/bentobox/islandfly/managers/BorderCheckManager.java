@@ -0,0 +1,354 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.scheduler.FlyTask;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.TimingWheel;
+
+
+/**
+ * This class re-checks players with fly before they can reach the edge of island protection
+ * range. BentoBox exit events are not fired for every way of leaving an island, for example
+ * some teleports and knockback, so a missed crossing is caught by the next border check.
+ * <p>
+ * The next check of a player is scheduled from the distance to the nearest protection edge and
+ * the player speed, which is the larger of the player velocity and the distance moved since the
+ * previous check. Player is checked again at half of the estimated crossing time, so speeding up
+ * to twice the measured speed is still noticed before the edge. Players far from the edge are
+ * checked rarely, players close to it often. Players keep being checked while fly is allowed,
+ * even if they do not fly yet, and are not checked at all once fly is disabled.
+ * <p>
+ * Checks are stored in one {@link TimingWheel}, like grace timers, and are dispatched to the
+ * thread that owns their player.
+ */
+public class BorderCheckManager {
+
+    /**
+     * Length of one wheel tick in milliseconds. Matches server tick length.
+     */
+    private static final long TICK_MILLIS = 50L;
+
+    /**
+     * Number of wheel buckets. Covers 12.8 seconds in one round.
+     */
+    private static final int WHEEL_SIZE = 256;
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Check that is run for a player when border check is due.
+     */
+    private final Consumer<Player> check;
+
+    /**
+     * Clock used for deadlines.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Wheel that stores all pending checks.
+     */
+    private final TimingWheel<BorderCheck> wheel;
+
+    /**
+     * Map of player unique id to its pending border check.
+     */
+    private final Map<UUID, TimingWheel.Timeout<BorderCheck>> checks = new HashMap<>();
+
+    /**
+     * Checks that became due in current tick.
+     */
+    private final List<BorderCheck> due = new ArrayList<>();
+
+    /**
+     * Collects due checks into the batch list.
+     */
+    private final Consumer<BorderCheck> collector = this.due::add;
+
+    /**
+     * Repeating task that advances the wheel.
+     */
+    private FlyTask ticker;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     * @param check check that is run for a player when border check is due
+     */
+    public BorderCheckManager(IslandFlyAddon addon, Consumer<Player> check) {
+        this(addon, check, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param check check that is run for a player when border check is due
+     * @param clock supplier of the current time in milliseconds
+     */
+    BorderCheckManager(IslandFlyAddon addon, Consumer<Player> check, LongSupplier clock) {
+        this.addon = addon;
+        this.check = check;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(clock.getAsLong(), TICK_MILLIS, WHEEL_SIZE);
+    }
+
+
+    /**
+     * Starts border checks of given player with fly, replacing any pending check. Nothing is
+     * scheduled if player is not inside island protection range. Must be called from the thread
+     * that owns the player.
+     * @param player player to check
+     */
+    public void track(Player player) {
+        this.track(player, player.getLocation());
+    }
+
+
+    /**
+     * Starts border checks of given player with fly that is about to arrive at given location,
+     * replacing any pending check. Nothing is scheduled if location is not inside island
+     * protection range. Must be called from the thread that owns the player.
+     * @param player player to check
+     * @param location location player is at or is moving to
+     */
+    public void track(Player player, Location location) {
+        this.untrack(player.getUniqueId());
+        this.schedule(player, location, null);
+    }
+
+
+    /**
+     * Stops border checks of given player.
+     * @param playerId player unique id
+     */
+    public synchronized void untrack(UUID playerId) {
+        final TimingWheel.Timeout<BorderCheck> timeout = this.checks.remove(playerId);
+
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return true if player has pending border check
+     */
+    public synchronized boolean isTracked(UUID playerId) {
+        return this.checks.containsKey(playerId);
+    }
+
+
+    /**
+     * @return number of players with pending border check
+     */
+    public synchronized int getTrackedCount() {
+        return this.checks.size();
+    }
+
+
+    /**
+     * Cancels all pending checks and stops the ticker.
+     */
+    public synchronized void cancelAll() {
+        this.checks.values().forEach(TimingWheel.Timeout::cancel);
+        this.checks.clear();
+        this.stopTicker();
+    }
+
+
+    /**
+     * Advances the wheel and dispatches all checks that became due, in one batch.
+     */
+    void tick() {
+        final FlyStats stats = this.addon.getStats();
+
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.runDue();
+            stats.record(Probe.BORDER_CHECKS, start);
+        } else {
+            this.runDue();
+        }
+    }
+
+
+    private void runDue() {
+        final List<BorderCheck> batch;
+
+        synchronized (this) {
+            this.wheel.advance(this.clock.getAsLong(), this.collector);
+
+            if (this.due.isEmpty()) {
+                batch = List.of();
+            } else {
+                batch = new ArrayList<>(this.due);
+                this.due.clear();
+                batch.forEach(check -> this.checks.remove(check.player.getUniqueId()));
+            }
+
+            if (this.checks.isEmpty()) {
+                this.stopTicker();
+            }
+        }
+
+        for (BorderCheck check : batch) {
+            this.addon.getScheduler().dispatchToPlayer(check.player.getUniqueId(), () -> this.run(check));
+        }
+    }
+
+
+    private void run(BorderCheck previous) {
+        final Player player = previous.player;
+
+        if (!this.hasFly(player)) {
+            return;
+        }
+
+        try {
+            this.check.accept(player);
+        } catch (Exception e) {
+            this.addon.logError("Border check failed for " + player.getName() + ": " + e.getMessage());
+            return;
+        }
+
+        // Check could have disabled fly or started grace period
+        if (this.hasFly(player) && !this.isTracked(player.getUniqueId())) {
+            this.schedule(player, player.getLocation(), previous);
+        }
+    }
+
+
+    /**
+     * @param player player to check
+     * @return true if player still has fly given by this addon, flying or not
+     */
+    private boolean hasFly(Player player) {
+        if (!player.isOnline()) {
+            return false;
+        }
+
+        final FlyState state = this.addon.getFlyers().getState(player.getUniqueId());
+        return state == FlyState.ALLOWED || state == FlyState.FLYING;
+    }
+
+
+    private void schedule(Player player, Location location, BorderCheck previous) {
+        final Island island = this.addon.getFlightPolicy().getBoxCache()
+                .getProtectedIsland(player.getUniqueId(), location, this.addon.getIslands());
+
+        if (island == null) {
+            // Outside of islands nothing can be crossed, exit is already handled
+            return;
+        }
+
+        final long now = this.clock.getAsLong();
+        final double x = location.getX();
+        final double z = location.getZ();
+
+        final double distance = Math.min(
+                Math.min(x - island.getMinProtectedX(), island.getMaxProtectedX() - x),
+                Math.min(z - island.getMinProtectedZ(), island.getMaxProtectedZ() - z));
+
+        // Server rarely knows velocity of flying players, so measured movement is used as well
+        final Vector velocity = player.getVelocity();
+        double speed = Math.hypot(velocity.getX(), velocity.getZ());
+
+        if (previous != null && previous.world == location.getWorld()) {
+            final long elapsed = Math.max(1L, (now - previous.time) / TICK_MILLIS);
+            speed = Math.max(speed, Math.hypot(x - previous.x, z - previous.z) / elapsed);
+        }
+
+        final Settings settings = this.addon.getSettings();
+        final long delay = delayTicks(distance, speed,
+                settings.getBorderCheckMinInterval(), settings.getBorderCheckMaxInterval());
+        final BorderCheck check = new BorderCheck(player, location.getWorld(), x, z, now);
+
+        synchronized (this) {
+            if (this.ticker == null) {
+                // Fast forward idle wheel to current time
+                this.wheel.advance(now, this.collector);
+                this.due.clear();
+                this.ticker = this.addon.getScheduler().runTimer(this::tick, 1L, 1L);
+            }
+
+            this.checks.put(player.getUniqueId(), this.wheel.schedule(now + delay * TICK_MILLIS, check));
+        }
+
+        this.addon.getStats().count(Counter.BORDER_CHECK_SCHEDULED);
+    }
+
+
+    /**
+     * Estimates number of ticks until next border check.
+     * @param distance distance to the nearest protection edge in blocks
+     * @param speed horizontal speed in blocks per tick
+     * @param minTicks minimal delay
+     * @param maxTicks maximal delay
+     * @return half of the estimated crossing time, clamped to given bounds
+     */
+    static long delayTicks(double distance, double speed, int minTicks, int maxTicks) {
+        final long min = Math.max(1, minTicks);
+        final long max = Math.max(min, maxTicks);
+
+        if (distance <= 0) {
+            return min;
+        }
+
+        if (speed <= 0) {
+            return max;
+        }
+
+        return Math.max(min, Math.min(max, (long) (distance / speed / 2)));
+    }
+
+
+    private void stopTicker() {
+        if (this.ticker != null) {
+            this.ticker.cancel();
+            this.ticker = null;
+        }
+    }
+
+
+    /**
+     * Pending border check with player position when it was scheduled.
+     */
+    private static class BorderCheck {
+        private final Player player;
+        private final World world;
+        private final double x;
+        private final double z;
+        private final long time;
+
+        private BorderCheck(Player player, World world, double x, double z, long time) {
+            this.player = player;
+            this.world = world;
+            this.x = x;
+            this.z = z;
+            this.time = time;
+        }
+    }
+}
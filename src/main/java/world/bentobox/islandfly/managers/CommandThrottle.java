@@ -0,0 +1,229 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.policy.FlightDecision;
+
+
+/**
+ * This class keeps fly command spam cheap. Each player has a bucket of
+ * {@link Settings#getCommandBurst()} command uses that earns one use back every
+ * {@link Settings#getCommandCooldown()} milliseconds, and a memo of the last command decision.
+ * The cooldown is off unless both settings are positive.
+ * <p>
+ * The memo is reused while player stays in the same block column of the same world, so it
+ * belongs to one island and one position in its protection range. Height does not matter for
+ * island rules. The memo lives only {@link Settings#getCommandMemo()} milliseconds, which covers
+ * changes that are not seen here, like flag, rank and permission changes.
+ * <p>
+ * The throttle can be used from any thread.
+ */
+public class CommandThrottle {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Command state of each player who used the command.
+     */
+    private final Map<UUID, CommandState> states = new ConcurrentHashMap<>();
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public CommandThrottle(IslandFlyAddon addon) {
+        this(addon, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in milliseconds
+     */
+    CommandThrottle(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+    }
+
+
+    /**
+     * @return true if the command cooldown is on
+     */
+    public boolean isEnabled() {
+        final Settings settings = this.addon.getSettings();
+        return settings.getCommandBurst() > 0 && settings.getCommandCooldown() > 0;
+    }
+
+
+    /**
+     * Takes one command use from player bucket.
+     * @param playerId player unique id
+     * @return true if player may use the command now
+     */
+    public boolean tryAcquire(UUID playerId) {
+        if (!this.isEnabled()) {
+            return true;
+        }
+
+        final Settings settings = this.addon.getSettings();
+        final long now = this.clock.getAsLong();
+        final CommandState state = this.getState(playerId, settings, now);
+
+        synchronized (state) {
+            state.tokens = Math.min(settings.getCommandBurst(), state.tokens + (now - state.refilledAt) / (double) settings.getCommandCooldown());
+            state.refilledAt = now;
+
+            if (state.tokens < 1D) {
+                return false;
+            }
+
+            state.tokens--;
+            return true;
+        }
+    }
+
+
+    /**
+     * Gets remembered command decision.
+     * @param playerId player unique id
+     * @param location player location
+     * @return decision of the last command in the same block column, or null if there is none
+     */
+    public FlightDecision getMemo(UUID playerId, Location location) {
+        final CommandState state = this.states.get(playerId);
+
+        if (state == null) {
+            return null;
+        }
+
+        synchronized (state) {
+            if (state.decision == null || this.clock.getAsLong() >= state.memoUntil
+                    || state.world != location.getWorld()
+                    || state.x != location.getBlockX()
+                    || state.z != location.getBlockZ()) {
+                return null;
+            }
+
+            return state.decision;
+        }
+    }
+
+
+    /**
+     * Remembers command decision at given location.
+     * @param playerId player unique id
+     * @param location player location
+     * @param decision decision of the command
+     */
+    public void putMemo(UUID playerId, Location location, FlightDecision decision) {
+        final Settings settings = this.addon.getSettings();
+
+        if (settings.getCommandMemo() <= 0) {
+            return;
+        }
+
+        final long now = this.clock.getAsLong();
+        final CommandState state = this.getState(playerId, settings, now);
+
+        synchronized (state) {
+            state.decision = decision;
+            state.memoUntil = now + settings.getCommandMemo();
+            state.world = location.getWorld();
+            state.x = location.getBlockX();
+            state.z = location.getBlockZ();
+        }
+    }
+
+
+    /**
+     * Drops all remembered decisions. Cooldowns are kept.
+     */
+    public void clear() {
+        for (CommandState state : this.states.values()) {
+            synchronized (state) {
+                state.decision = null;
+                state.world = null;
+            }
+        }
+    }
+
+
+    /**
+     * Removes command state of player who left.
+     * @param playerId player unique id
+     */
+    public void forget(UUID playerId) {
+        this.states.remove(playerId);
+    }
+
+
+    /**
+     * @return number of players with command state
+     */
+    public int size() {
+        return this.states.size();
+    }
+
+
+    private CommandState getState(UUID playerId, Settings settings, long now) {
+        return this.states.computeIfAbsent(playerId,
+                id -> new CommandState(Math.max(1, settings.getCommandBurst()), now));
+    }
+
+
+    /**
+     * Command state of one player.
+     */
+    private static class CommandState {
+
+        /**
+         * Command uses left in the bucket.
+         */
+        private double tokens;
+
+        /**
+         * Time the bucket was last refilled.
+         */
+        private long refilledAt;
+
+        /**
+         * Remembered decision, or null.
+         */
+        private FlightDecision decision;
+
+        /**
+         * Time until which the decision may be reused.
+         */
+        private long memoUntil;
+
+        /**
+         * World and block column of the remembered decision.
+         */
+        private World world;
+        private int x;
+        private int z;
+
+        private CommandState(int burst, long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package world.bentobox.islandfly.managers;
+
+
+/**
+ * Fly state of an online player, as tracked by {@link FlyerRegistry}.
+ */
+public enum FlyState {
+    /**
+     * Player cannot fly.
+     */
+    GROUNDED,
+
+    /**
+     * Player can fly, but is not flying.
+     */
+    ALLOWED,
+
+    /**
+     * Player is flying.
+     */
+    FLYING,
+
+    /**
+     * Player can fly, but fly will be disabled when grace timer ends.
+     */
+    GRACE;
+
+
+    /**
+     * @return true if player in this state can fly
+     */
+    public boolean isFlightEnabled() {
+        return this != GROUNDED;
+    }
+}
@@ -0,0 +1,488 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import world.bentobox.bentobox.api.metadata.MetaDataValue;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.database.objects.FlyData;
+import world.bentobox.islandfly.scheduler.FlyTask;
+
+
+/**
+ * This class remembers if player was flying on an island, so fly can be restored when player
+ * comes back. States are stored in a dedicated {@link FlyData} object per player.
+ * <p>
+ * Changes are kept in memory and saved in batches, on the configured interval, on logout and
+ * on shutdown. Each flush saves every changed player once, no matter how many times they
+ * toggled fly in the meantime.
+ * <p>
+ * When data is loaded, states of islands that do not exist anymore are pruned. States stored
+ * in player metadata by older versions are migrated on first load.
+ * <p>
+ * Data is only ever read from database off the server thread: on async pre-login, or in the
+ * background when player joins or when a state is used before data is loaded. Until then
+ * remembered states are unknown, and changes are queued and merged once data arrives. Data
+ * prefetched for players who never join expires.
+ * <p>
+ * Public methods are synchronized, so they can be called from the thread that owns the player
+ * on region-threaded servers. {@link #prefetch(UUID)} can be called from async thread.
+ */
+public class FlyStateStore {
+
+    /**
+     * Metadata key prefix used by older versions.
+     */
+    public static final String ISLANDFLY = "IslandFly-";
+
+    /**
+     * Read result of player that has no fly data in database.
+     */
+    private static final FlyData MISSING = new FlyData();
+
+    /**
+     * Milliseconds prefetched data waits to be picked up before it is dropped.
+     */
+    private static final long PREFETCH_EXPIRY = 60_000L;
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Loaded fly data by player unique id.
+     */
+    private final Map<UUID, FlyData> loaded = new HashMap<>();
+
+    /**
+     * Players with unsaved changes.
+     */
+    private final Set<UUID> dirty = new HashSet<>();
+
+    /**
+     * Fly data read from database by async prefetch, waiting to be picked up on main thread.
+     */
+    private final Map<UUID, Prefetched> prefetched = new ConcurrentHashMap<>();
+
+    /**
+     * Players whose fly data is being read in the background.
+     */
+    private final Set<UUID> loading = new HashSet<>();
+
+    /**
+     * Fly states changed before data of player was loaded, by player unique id.
+     */
+    private final Map<UUID, Map<String, Boolean>> pending = new HashMap<>();
+
+    /**
+     * Players who left with queued changes while their data was being read.
+     */
+    private final Set<UUID> detached = new HashSet<>();
+
+    /**
+     * Fly data database. Created on first use.
+     */
+    private Database<FlyData> database;
+
+    /**
+     * Repeating flush task.
+     */
+    private FlyTask flushTask;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlyStateStore(IslandFlyAddon addon) {
+        this(addon, null, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the database and the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param database fly data database, or null to create it on first use
+     * @param clock supplier of the current time in milliseconds
+     */
+    FlyStateStore(IslandFlyAddon addon, Database<FlyData> database, LongSupplier clock) {
+        this.addon = addon;
+        this.database = database;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Gets remembered fly state of player on island. Database is never read here: if data of
+     * player is not loaded yet, it is loaded in the background and the state is unknown.
+     * @param user user
+     * @param islandId island unique id
+     * @return true if player was flying, false if player was not flying, null if unknown
+     */
+    public synchronized Boolean getFlyState(User user, String islandId) {
+        final UUID playerId = user.getUniqueId();
+        final FlyData data = this.getData(playerId);
+
+        if (data != null) {
+            return data.getFlyState(islandId);
+        }
+
+        this.preload(playerId);
+        final Map<String, Boolean> states = this.pending.get(playerId);
+        return states == null ? null : states.get(islandId);
+    }
+
+
+    /**
+     * Remembers fly state of player on island. The state is saved on the next flush. If data of
+     * player is not loaded yet, the change is queued until it is.
+     * @param playerId player unique id
+     * @param islandId island unique id
+     * @param flying true if player is flying
+     */
+    public synchronized void setFlyState(UUID playerId, String islandId, boolean flying) {
+        final FlyData data = this.getData(playerId);
+
+        if (data == null) {
+            this.pending.computeIfAbsent(playerId, id -> new LinkedHashMap<>()).put(islandId, flying);
+            this.preload(playerId);
+            return;
+        }
+
+        data.setFlyState(islandId, flying);
+        this.markDirty(playerId);
+    }
+
+
+    /**
+     * Forgets fly states of all loaded players on given island.
+     * @param islandId island unique id
+     */
+    public synchronized void removeIsland(String islandId) {
+        this.loaded.forEach((playerId, data) -> {
+            if (data.removeIsland(islandId)) {
+                this.markDirty(playerId);
+            }
+        });
+        this.pending.values().forEach(states -> states.remove(islandId));
+    }
+
+
+    /**
+     * Reads fly data of given player from database, so it does not need to be read on the main
+     * thread when player joins. Can be called from async thread. Data of players who do not
+     * join in time is dropped.
+     * @param playerId player unique id
+     */
+    public void prefetch(UUID playerId) {
+        final FlyData data = this.read(playerId);
+        final long now = this.clock.getAsLong();
+        this.expirePrefetched(now);
+
+        synchronized (this) {
+            // Data loaded meanwhile is newer than this read
+            if (!this.loaded.containsKey(playerId)) {
+                this.prefetched.put(playerId, new Prefetched(data, now + PREFETCH_EXPIRY));
+            }
+        }
+    }
+
+
+    /**
+     * Reads fly data of given player in the background, unless it is already in memory or
+     * being read. Data read after player left is dropped.
+     * @param playerId player unique id
+     */
+    public synchronized void preload(UUID playerId) {
+        if (this.loaded.containsKey(playerId) || this.prefetched.containsKey(playerId) || !this.loading.add(playerId)) {
+            return;
+        }
+
+        this.addon.getScheduler().runAsync(() -> {
+            FlyData data = null;
+
+            try {
+                data = this.read(playerId);
+            } catch (Exception e) {
+                this.addon.logError("Could not load fly data of " + playerId + ": " + e.getMessage());
+            }
+
+            synchronized (this) {
+                this.loaded(playerId, data);
+            }
+        });
+    }
+
+
+    /**
+     * Saves all unsaved fly data.
+     */
+    public synchronized void flush() {
+        // Queued changes of players whose data arrived are merged first
+        for (UUID playerId : new ArrayList<>(this.pending.keySet())) {
+            this.getData(playerId);
+        }
+
+        this.expirePrefetched(this.clock.getAsLong());
+
+        Iterator<UUID> iterator = this.dirty.iterator();
+
+        while (iterator.hasNext()) {
+            FlyData data = this.loaded.get(iterator.next());
+            iterator.remove();
+
+            if (data != null) {
+                this.getDatabase().saveObjectAsync(data);
+            }
+        }
+
+        this.stopTask();
+    }
+
+
+    /**
+     * Saves fly data of given player and unloads it.
+     * @param playerId player unique id
+     */
+    public synchronized void unload(UUID playerId) {
+        this.getData(playerId);
+
+        if (this.pending.containsKey(playerId) && this.loading.contains(playerId)) {
+            // Queued changes are saved when the read finishes
+            this.detached.add(playerId);
+        } else {
+            this.pending.remove(playerId);
+            this.loading.remove(playerId);
+        }
+
+        this.prefetched.remove(playerId);
+        final FlyData data = this.loaded.remove(playerId);
+
+        if (this.dirty.remove(playerId) && data != null) {
+            this.getDatabase().saveObjectAsync(data);
+        }
+
+        if (this.dirty.isEmpty()) {
+            this.stopTask();
+        }
+    }
+
+
+    /**
+     * @return number of players with unsaved fly data
+     */
+    public synchronized int getDirtyCount() {
+        return this.dirty.size();
+    }
+
+
+    /**
+     * Gets loaded fly data, or takes data read in the background and merges queued changes into
+     * it. Database is never read here.
+     * @param playerId player unique id
+     * @return fly data, or null if it was not read yet
+     */
+    private FlyData getData(UUID playerId) {
+        FlyData data = this.loaded.get(playerId);
+
+        if (data != null) {
+            return data;
+        }
+
+        final Prefetched entry = this.prefetched.remove(playerId);
+
+        if (entry == null) {
+            return null;
+        }
+
+        data = this.load(playerId, entry.data);
+        this.loaded.put(playerId, data);
+        final Map<String, Boolean> states = this.pending.remove(playerId);
+
+        if (states != null) {
+            states.forEach(data::setFlyState);
+            this.markDirty(playerId);
+        }
+
+        return data;
+    }
+
+
+    /**
+     * Handles data read in the background. Data of players who left is dropped, unless they
+     * left queued changes, which are then saved.
+     * @param playerId player unique id
+     * @param data read data, or null if read failed
+     */
+    private void loaded(UUID playerId, FlyData data) {
+        if (!this.loading.remove(playerId)) {
+            return;
+        }
+
+        if (this.detached.remove(playerId)) {
+            final Map<String, Boolean> states = this.pending.remove(playerId);
+
+            if (data != null && states != null) {
+                final FlyData saved = data == MISSING ? new FlyData(playerId.toString()) : data;
+                states.forEach(saved::setFlyState);
+                this.getDatabase().saveObjectAsync(saved);
+            }
+
+            return;
+        }
+
+        if (data != null) {
+            this.prefetched.put(playerId, new Prefetched(data, this.clock.getAsLong() + PREFETCH_EXPIRY));
+        }
+    }
+
+
+    /**
+     * Prepares fly data read from database: prunes states of deleted islands and migrates
+     * states from player metadata.
+     * @param playerId player unique id
+     * @param data read data
+     * @return fly data
+     */
+    private FlyData load(UUID playerId, FlyData data) {
+        final String id = playerId.toString();
+        boolean changed = false;
+
+        if (data == MISSING) {
+            data = new FlyData(id);
+            changed = this.migrate(playerId, data);
+        }
+
+        for (String islandId : data.getIslands().toArray(new String[0])) {
+            if (this.addon.getIslands().getIslandById(islandId).isEmpty()) {
+                changed |= data.removeIsland(islandId);
+            }
+        }
+
+        if (changed) {
+            this.markDirty(playerId);
+        }
+
+        return data;
+    }
+
+
+    /**
+     * Reads fly data from database.
+     * @param playerId player unique id
+     * @return fly data, or {@link #MISSING} if player has none
+     */
+    private FlyData read(UUID playerId) {
+        final String id = playerId.toString();
+        final Database<FlyData> db = this.getDatabase();
+        final FlyData data = db.objectExists(id) ? db.loadObject(id) : null;
+        return data == null ? MISSING : data;
+    }
+
+
+    /**
+     * Moves fly states stored in player metadata into fly data.
+     * @param playerId player unique id
+     * @param data fly data
+     * @return true if anything was migrated
+     */
+    private boolean migrate(UUID playerId, FlyData data) {
+        try {
+            final User user = User.getInstance(playerId);
+            final Map<String, MetaDataValue> metaData = user.getMetaData().orElse(null);
+
+            if (metaData == null) {
+                return false;
+            }
+
+            final Map<String, MetaDataValue> remaining = new HashMap<>();
+            boolean migrated = false;
+
+            for (Map.Entry<String, MetaDataValue> entry : metaData.entrySet()) {
+                if (entry.getKey().startsWith(ISLANDFLY)) {
+                    data.setFlyState(entry.getKey().substring(ISLANDFLY.length()), entry.getValue().asBoolean());
+                    migrated = true;
+                } else {
+                    remaining.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (migrated) {
+                user.setMetaData(remaining);
+            }
+
+            return migrated;
+        } catch (Exception e) {
+            this.addon.logError("Could not migrate fly states of " + playerId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+
+    /**
+     * Drops prefetched data of players who passed pre-login but never joined.
+     * @param now current time
+     */
+    private void expirePrefetched(long now) {
+        this.prefetched.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+
+    private void markDirty(UUID playerId) {
+        this.dirty.add(playerId);
+
+        if (this.flushTask == null) {
+            final long interval = Math.max(1, this.addon.getSettings().getFlyStateFlushInterval()) * 20L;
+            this.flushTask = this.addon.getScheduler().runTimer(this::flush, interval, interval);
+        }
+    }
+
+
+    private synchronized Database<FlyData> getDatabase() {
+        if (this.database == null) {
+            this.database = new Database<>(this.addon, FlyData.class);
+        }
+
+        return this.database;
+    }
+
+
+    private void stopTask() {
+        if (this.flushTask != null) {
+            this.flushTask.cancel();
+            this.flushTask = null;
+        }
+    }
+
+
+    /**
+     * Fly data read in advance, with the time it is dropped if nobody picked it up.
+     */
+    private static class Prefetched {
+
+        private final FlyData data;
+
+        private final long expiresAt;
+
+        private Prefetched(FlyData data, long expiresAt) {
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
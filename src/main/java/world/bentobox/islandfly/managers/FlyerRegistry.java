@@ -0,0 +1,166 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class tracks {@link FlyState} of every online player. Only players that can fly are
+ * stored, so the stored key set is the set of flight-enabled players.
+ * <p>
+ * Listeners update the registry whenever they change fly of a player, and use it to ignore
+ * events of grounded players. Fly can also be given without IslandFly, for example by other
+ * plugins or game mode changes, so players missing from the registry are checked with
+ * {@link #isFlightEnabled(Player)}, which reads player abilities and registers them.
+ * <p>
+ * State changes:
+ * <ul>
+ *     <li>{@link #update(UUID, boolean)} moves player to {@link FlyState#ALLOWED} or
+ *     {@link FlyState#FLYING}, unless grace timer is pending.</li>
+ *     <li>{@link #startGrace(UUID)} moves flight-enabled player to {@link FlyState#GRACE}.</li>
+ *     <li>{@link #endGrace(Player)} leaves {@link FlyState#GRACE} according to player
+ *     abilities.</li>
+ *     <li>{@link #ground(UUID)} moves player to {@link FlyState#GROUNDED}.</li>
+ * </ul>
+ * The registry can be used from any thread.
+ */
+public class FlyerRegistry {
+
+    /**
+     * States of flight-enabled players.
+     */
+    private final Map<UUID, FlyState> states = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param playerId player unique id
+     * @return fly state of player, {@link FlyState#GROUNDED} if unknown
+     */
+    public FlyState getState(UUID playerId) {
+        return this.states.getOrDefault(playerId, FlyState.GROUNDED);
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return true if player can fly
+     */
+    public boolean isFlightEnabled(UUID playerId) {
+        return this.states.containsKey(playerId);
+    }
+
+
+    /**
+     * Checks if player can fly. Player missing from the registry is checked against its
+     * abilities and registered if it can fly.
+     * @param player player
+     * @return true if player can fly
+     */
+    public boolean isFlightEnabled(Player player) {
+        if (this.states.containsKey(player.getUniqueId())) {
+            return true;
+        }
+
+        if (!player.getAllowFlight()) {
+            return false;
+        }
+
+        this.update(player.getUniqueId(), player.isFlying());
+        return true;
+    }
+
+
+    /**
+     * @return unmodifiable view of flight-enabled players
+     */
+    public Set<UUID> getFlightEnabled() {
+        return Collections.unmodifiableSet(this.states.keySet());
+    }
+
+
+    /**
+     * @return number of flight-enabled players
+     */
+    public int size() {
+        return this.states.size();
+    }
+
+
+    /**
+     * Reads state from player abilities. Pending grace is kept while player can fly.
+     * @param player player
+     */
+    public void sync(Player player) {
+        if (player.getAllowFlight()) {
+            this.update(player.getUniqueId(), player.isFlying());
+        } else {
+            this.ground(player.getUniqueId());
+        }
+    }
+
+
+    /**
+     * Marks player as able to fly. Pending grace is kept.
+     * @param playerId player unique id
+     * @param flying true if player is flying
+     */
+    public void update(UUID playerId, boolean flying) {
+        final FlyState state = flying ? FlyState.FLYING : FlyState.ALLOWED;
+        this.states.merge(playerId, state, (old, value) -> old == FlyState.GRACE ? old : value);
+    }
+
+
+    /**
+     * Marks that fly of player will be disabled after grace period. Does nothing if player
+     * cannot fly.
+     * @param playerId player unique id
+     */
+    public void startGrace(UUID playerId) {
+        this.states.computeIfPresent(playerId, (id, old) -> FlyState.GRACE);
+    }
+
+
+    /**
+     * Marks that grace period of player ended without disabling fly. State is read from
+     * player abilities.
+     * @param player player
+     */
+    public void endGrace(Player player) {
+        this.states.computeIfPresent(player.getUniqueId(), (id, old) -> {
+            if (old != FlyState.GRACE) {
+                return old;
+            }
+
+            // Returning null removes grounded player
+            if (!player.getAllowFlight()) {
+                return null;
+            }
+
+            return player.isFlying() ? FlyState.FLYING : FlyState.ALLOWED;
+        });
+    }
+
+
+    /**
+     * Marks player as not able to fly.
+     * @param playerId player unique id
+     */
+    public void ground(UUID playerId) {
+        this.states.remove(playerId);
+    }
+
+
+    /**
+     * Forgets player that left the server.
+     * @param playerId player unique id
+     * @return true if player could fly
+     */
+    public boolean remove(UUID playerId) {
+        return this.states.remove(playerId) != null;
+    }
+}
@@ -0,0 +1,268 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.scheduler.FlyTask;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+
+
+/**
+ * This class shows seconds left of running grace periods on the action bar or in a boss bar.
+ * <p>
+ * All countdowns are updated by one repeating task, which runs only while some countdown is
+ * shown. Each run reads remaining time from {@link GraceTimerManager} and sends an update only to
+ * players whose shown second changed, on the thread that owns the player. Countdown ends when
+ * player grace timer is no longer pending, because it expired or was cancelled.
+ */
+public class GraceCountdown {
+
+    /**
+     * Countdown mode that uses the action bar.
+     */
+    public static final String ACTION_BAR = "action-bar";
+
+    /**
+     * Countdown mode that uses a boss bar.
+     */
+    public static final String BOSS_BAR = "boss-bar";
+
+    /**
+     * Ticks between countdown updates. Often enough to show each second on time.
+     */
+    private static final long PERIOD_TICKS = 5L;
+
+    /**
+     * Translation reference of countdown text.
+     */
+    private static final String REFERENCE = "islandfly.countdown";
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * True if countdown is shown in a boss bar.
+     */
+    private final boolean bossBar;
+
+    /**
+     * Map of player unique id to its shown countdown.
+     */
+    private final Map<UUID, Display> displays = new HashMap<>();
+
+    /**
+     * Repeating task that updates countdowns.
+     */
+    private FlyTask ticker;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public GraceCountdown(IslandFlyAddon addon) {
+        this.addon = addon;
+        this.bossBar = BOSS_BAR.equalsIgnoreCase(addon.getSettings().getCountdownMode());
+    }
+
+
+    /**
+     * @param settings addon settings
+     * @return true if configured countdown mode shows a countdown
+     */
+    public static boolean isEnabled(Settings settings) {
+        final String mode = settings.getCountdownMode();
+        return ACTION_BAR.equalsIgnoreCase(mode) || BOSS_BAR.equalsIgnoreCase(mode);
+    }
+
+
+    /**
+     * Starts showing countdown of grace timer that was just scheduled for given player. Must be
+     * called from the thread that owns the player.
+     * @param player player in grace period
+     */
+    public void start(Player player) {
+        final long remaining = this.addon.getGraceTimers().getRemaining(player.getUniqueId());
+
+        if (remaining < 0) {
+            return;
+        }
+
+        synchronized (this) {
+            final Display display = this.displays.get(player.getUniqueId());
+
+            if (display == null) {
+                this.displays.put(player.getUniqueId(), new Display(player, remaining));
+            } else {
+                // Grace period started again, keep the shown bar
+                display.total = remaining;
+                display.shown = -1L;
+            }
+
+            if (this.ticker == null) {
+                this.ticker = this.addon.getScheduler().runTimer(this::tick, 1L, PERIOD_TICKS);
+            }
+        }
+    }
+
+
+    /**
+     * @return number of shown countdowns
+     */
+    public synchronized int size() {
+        return this.displays.size();
+    }
+
+
+    /**
+     * Hides all countdowns and stops the ticker.
+     */
+    public synchronized void cancelAll() {
+        this.displays.values().forEach(this::hide);
+        this.displays.clear();
+        this.stopTicker();
+    }
+
+
+    /**
+     * Updates all countdowns whose shown second changed, in one batch.
+     */
+    void tick() {
+        final FlyStats stats = this.addon.getStats();
+
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.update();
+            stats.record(Probe.COUNTDOWN, start);
+        } else {
+            this.update();
+        }
+    }
+
+
+    private void update() {
+        final GraceTimerManager graceTimers = this.addon.getGraceTimers();
+        final List<Runnable> batch = new ArrayList<>();
+
+        synchronized (this) {
+            final Iterator<Display> iterator = this.displays.values().iterator();
+
+            while (iterator.hasNext()) {
+                final Display display = iterator.next();
+                final long remaining = graceTimers.getRemaining(display.player.getUniqueId());
+
+                if (remaining < 0 || !display.player.isOnline()) {
+                    iterator.remove();
+                    batch.add(() -> this.hide(display));
+                    continue;
+                }
+
+                final long seconds = (remaining + 999L) / 1000L;
+
+                if (seconds != display.shown) {
+                    display.shown = seconds;
+                    final double progress = display.total > 0 ? Math.min(1D, remaining / (double) display.total) : 0D;
+                    batch.add(() -> this.show(display, seconds, progress));
+                }
+            }
+
+            if (this.displays.isEmpty()) {
+                this.stopTicker();
+            }
+        }
+
+        // Updates are sent outside of the lock, on the threads that own the players
+        batch.forEach(Runnable::run);
+    }
+
+
+    private void show(Display display, long seconds, double progress) {
+        final Player player = display.player;
+
+        this.addon.getScheduler().dispatchToPlayer(player.getUniqueId(), () -> {
+            final String text = this.addon.getMessages().render(User.getInstance(player), REFERENCE, seconds);
+
+            if (!this.bossBar) {
+                player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(TextComponent.fromLegacyText(text)));
+                return;
+            }
+
+            if (display.bar == null) {
+                display.bar = Bukkit.createBossBar(text, BarColor.RED, BarStyle.SOLID);
+                display.bar.addPlayer(player);
+            } else {
+                display.bar.setTitle(text);
+            }
+
+            display.bar.setProgress(progress);
+        });
+    }
+
+
+    private void hide(Display display) {
+        this.addon.getScheduler().dispatchToPlayer(display.player.getUniqueId(), () -> {
+            if (display.bar != null) {
+                display.bar.removeAll();
+                display.bar = null;
+            } else if (!this.bossBar && display.shown >= 0 && display.player.isOnline()) {
+                // Clear countdown that is still on the action bar
+                display.player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(""));
+            }
+        });
+    }
+
+
+    private void stopTicker() {
+        if (this.ticker != null) {
+            this.ticker.cancel();
+            this.ticker = null;
+        }
+    }
+
+
+    /**
+     * Countdown shown to one player.
+     */
+    private static class Display {
+
+        private final Player player;
+
+        /**
+         * Length of the grace period in milliseconds, for boss bar progress.
+         */
+        private long total;
+
+        /**
+         * Shown number of seconds, or -1 if nothing is shown yet.
+         */
+        private long shown = -1L;
+
+        /**
+         * Boss bar of the player. Used only from the thread that owns the player.
+         */
+        private BossBar bar;
+
+        private Display(Player player, long total) {
+            this.player = player;
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.jfr.GraceTimerEvent;
+import world.bentobox.islandfly.scheduler.FlyTask;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.Probe;
+import world.bentobox.islandfly.util.TimingWheel;
+
+
+/**
+ * This class keeps track of pending fly disabling timers. Each player can have at most one
+ * outstanding grace timer: scheduling a new one replaces the previous timer, and the timer can
+ * be cancelled when player is allowed to fly again.
+ * <p>
+ * All timers are stored in one {@link TimingWheel} with wall-clock deadlines, which is advanced
+ * by a single repeating task. The task runs only while there are pending timers.
+ * <p>
+ * Timers can be scheduled and cancelled from any thread that owns the player. Expired tasks are
+ * dispatched to the thread that owns their player, outside of the timer lock.
+ */
+public class GraceTimerManager {
+
+    /**
+     * Length of one wheel tick in milliseconds. Matches server tick length.
+     */
+    private static final long TICK_MILLIS = 50L;
+
+    /**
+     * Number of wheel buckets. Covers 25 seconds in one round.
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock used for deadlines.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Wheel that stores all pending timers.
+     */
+    private final TimingWheel<GraceTimer> wheel;
+
+    /**
+     * Map of player unique id to its pending grace timer.
+     */
+    private final Map<UUID, TimingWheel.Timeout<GraceTimer>> timers = new HashMap<>();
+
+    /**
+     * Timers that expired in current tick.
+     */
+    private final List<GraceTimer> expired = new ArrayList<>();
+
+    /**
+     * Collects expired timers into the batch list.
+     */
+    private final Consumer<GraceTimer> collector = this.expired::add;
+
+    /**
+     * Repeating task that advances the wheel.
+     */
+    private FlyTask ticker;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public GraceTimerManager(IslandFlyAddon addon) {
+        this(addon, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in milliseconds
+     */
+    GraceTimerManager(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(clock.getAsLong(), TICK_MILLIS, WHEEL_SIZE);
+    }
+
+
+    /**
+     * Schedules task that will be run for given player after delay. Any previously scheduled
+     * timer for this player is cancelled.
+     * @param playerId player unique id
+     * @param delayMillis delay in milliseconds
+     * @param task task to run when grace period ends
+     */
+    public synchronized void schedule(UUID playerId, long delayMillis, Runnable task) {
+        final boolean replaced = this.cancel(playerId);
+
+        final long now = this.clock.getAsLong();
+
+        if (this.ticker == null) {
+            // Fast forward idle wheel to current time
+            this.wheel.advance(now, this.collector);
+            this.ticker = this.addon.getScheduler().runTimer(this::tick, 1L, 1L);
+        }
+
+        GraceTimer timer = new GraceTimer(playerId, task);
+        this.timers.put(playerId, this.wheel.schedule(now + delayMillis, timer));
+        this.addon.getStats().count(Counter.GRACE_TIMER_STARTED);
+
+        final GraceTimerEvent event = new GraceTimerEvent();
+        if (event.shouldCommit()) {
+            event.set(playerId.toString(), delayMillis, replaced);
+            event.commit();
+        }
+    }
+
+
+    /**
+     * Cancels pending timer for given player.
+     * @param playerId player unique id
+     * @return true if a timer was cancelled
+     */
+    public synchronized boolean cancel(UUID playerId) {
+        TimingWheel.Timeout<GraceTimer> timeout = this.timers.remove(playerId);
+
+        if (timeout != null && timeout.cancel()) {
+            this.addon.getStats().count(Counter.GRACE_TIMER_CANCELLED);
+            return true;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Brings every pending timer that is due later than given delay forward to that delay.
+     * Used when fly timeout is shortened, so no player keeps a longer grace period.
+     * @param maxDelayMillis maximal delay from now in milliseconds
+     * @return number of shortened timers
+     */
+    public synchronized int limitDelay(long maxDelayMillis) {
+        final long deadline = this.clock.getAsLong() + Math.max(0L, maxDelayMillis);
+        int shortened = 0;
+
+        for (Map.Entry<UUID, TimingWheel.Timeout<GraceTimer>> entry : this.timers.entrySet()) {
+            final TimingWheel.Timeout<GraceTimer> timeout = entry.getValue();
+
+            if (timeout.getDeadline() > deadline && timeout.cancel()) {
+                entry.setValue(this.wheel.schedule(deadline, timeout.getPayload()));
+                shortened++;
+            }
+        }
+
+        return shortened;
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return milliseconds until pending grace timer of player expires, or -1 if there is none
+     */
+    public synchronized long getRemaining(UUID playerId) {
+        final TimingWheel.Timeout<GraceTimer> timeout = this.timers.get(playerId);
+        return timeout == null ? -1L : Math.max(0L, timeout.getDeadline() - this.clock.getAsLong());
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return true if player has pending grace timer
+     */
+    public synchronized boolean isPending(UUID playerId) {
+        return this.timers.containsKey(playerId);
+    }
+
+
+    /**
+     * @return number of pending grace timers
+     */
+    public synchronized int getPendingCount() {
+        return this.timers.size();
+    }
+
+
+    /**
+     * Cancels all pending timers and stops the ticker.
+     */
+    public synchronized void cancelAll() {
+        this.timers.values().forEach(TimingWheel.Timeout::cancel);
+        this.timers.clear();
+        this.stopTicker();
+    }
+
+
+    /**
+     * Advances the wheel and runs all timers that became due, in one batch.
+     */
+    void tick() {
+        final FlyStats stats = this.addon.getStats();
+
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.runExpired();
+            stats.record(Probe.GRACE_TIMERS, start);
+        } else {
+            this.runExpired();
+        }
+    }
+
+
+    private void runExpired() {
+        final List<GraceTimer> due;
+
+        synchronized (this) {
+            this.wheel.advance(this.clock.getAsLong(), this.collector);
+
+            if (this.expired.isEmpty()) {
+                due = List.of();
+            } else {
+                final FlyStats stats = this.addon.getStats();
+                due = new ArrayList<>(this.expired);
+                this.expired.clear();
+
+                for (GraceTimer timer : due) {
+                    this.timers.remove(timer.playerId);
+                    stats.count(Counter.GRACE_TIMER_EXPIRED);
+                }
+            }
+
+            if (this.timers.isEmpty()) {
+                this.stopTicker();
+            }
+        }
+
+        for (GraceTimer timer : due) {
+            this.addon.getScheduler().dispatchToPlayer(timer.playerId, () -> this.run(timer));
+        }
+    }
+
+
+    private void run(GraceTimer timer) {
+        try {
+            timer.task.run();
+        } catch (Exception e) {
+            this.addon.logError("Grace timer failed for " + timer.playerId + ": " + e.getMessage());
+        }
+    }
+
+
+    private void stopTicker() {
+        if (this.ticker != null) {
+            this.ticker.cancel();
+            this.ticker = null;
+        }
+    }
+
+
+    /**
+     * Pending grace timer.
+     */
+    private static class GraceTimer {
+        private final UUID playerId;
+        private final Runnable task;
+
+        private GraceTimer(UUID playerId, Runnable task) {
+            this.playerId = playerId;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import org.bukkit.World;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.util.ExpiringLongMap;
+import world.bentobox.level.Level;
+
+
+/**
+ * This class keeps island levels in memory, so the fly-min-level gate does not need to ask
+ * the Level addon every time a player enters, exits or toggles fly.
+ * <p>
+ * Entries expire after the configured time to live and the least recently used entries are
+ * evicted once the cache is full. Level recalculations push the new value straight into the
+ * cache through {@link #put(String, long)}. The Level addon is never asked on the calling
+ * thread: a missing level is read in the background, and until it arrives the expired level,
+ * or 0 if there is none, is used.
+ * <p>
+ * All methods are synchronized, because the cache is filled from async threads.
+ */
+public class LevelCache {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock used to compute entry expiration.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Map from island unique id to cached level.
+     */
+    private final ExpiringLongMap levels = new ExpiringLongMap();
+
+    /**
+     * Islands which level is being read in the background.
+     */
+    private final Set<String> loading = new HashSet<>();
+
+    /**
+     * Number of lookups answered from memory.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that were not answered from memory.
+     */
+    private long misses;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public LevelCache(IslandFlyAddon addon) {
+        this(addon, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in milliseconds
+     */
+    LevelCache(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Gets the level of the given island. If the level is not cached or has expired, it is
+     * requested from the Level addon in the background, and the expired level, or 0 if there is
+     * none, is returned meanwhile.
+     * @param island island which level must be returned
+     * @return island level or 0 if Level addon is not present or level is not known yet
+     */
+    public synchronized long getLevel(Island island) {
+        final Level levelAddon = this.addon.getLevelAddon();
+
+        if (levelAddon == null) {
+            return 0L;
+        }
+
+        final long level = this.levels.get(island.getUniqueId(), this.clock.getAsLong());
+
+        if (level != ExpiringLongMap.MISSING) {
+            this.hits++;
+            return level;
+        }
+
+        this.misses++;
+        this.load(levelAddon, island);
+        final long stale = this.levels.getStale(island.getUniqueId());
+        return stale == ExpiringLongMap.MISSING ? 0L : stale;
+    }
+
+
+    /**
+     * Stores new level for given island.
+     * @param islandId island unique id
+     * @param level new island level
+     */
+    public synchronized void put(String islandId, long level) {
+        this.store(islandId, level, this.clock.getAsLong());
+    }
+
+
+    /**
+     * Removes cached level for given island.
+     * @param islandId island unique id
+     */
+    public synchronized void invalidate(String islandId) {
+        this.levels.remove(islandId);
+    }
+
+
+    /**
+     * Removes all cached levels.
+     */
+    public synchronized void clear() {
+        this.levels.clear();
+    }
+
+
+    /**
+     * @return number of cached islands
+     */
+    public synchronized int size() {
+        return this.levels.size();
+    }
+
+
+    /**
+     * @return number of lookups answered from memory
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+
+    /**
+     * @return number of lookups that were not answered from memory
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public synchronized void resetCounters() {
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+
+    /**
+     * Reads island level in the background, unless it is being read already. Fly decisions of
+     * the island are dropped when the level arrives, so the next check uses it.
+     * @param levelAddon Level addon
+     * @param island island
+     */
+    private void load(Level levelAddon, Island island) {
+        final String islandId = island.getUniqueId();
+
+        if (!this.loading.add(islandId)) {
+            return;
+        }
+
+        final World world = island.getWorld();
+        final UUID owner = island.getOwner();
+
+        this.addon.getScheduler().runAsync(() -> {
+            try {
+                this.put(islandId, levelAddon.getIslandLevel(world, owner));
+                this.addon.getFlightPolicy().getDecisionCache().invalidateIsland(islandId);
+            } catch (Exception e) {
+                this.addon.logError("Could not read level of island " + islandId + ": " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    this.loading.remove(islandId);
+                }
+            }
+        });
+    }
+
+
+    private void store(String islandId, long level, long now) {
+        final long ttl = Math.max(1, this.addon.getSettings().getLevelCacheTtl()) * 1000L;
+        this.levels.put(islandId, level, now, ttl, this.addon.getSettings().getLevelCacheSize());
+    }
+}
@@ -0,0 +1,236 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.bukkit.ChatColor;
+
+import world.bentobox.bentobox.api.localization.TextVariables;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.IslandFlyAddon;
+
+
+/**
+ * This class stores IslandFly messages already translated and colored for each locale, split at
+ * the {@link TextVariables#NUMBER} slot. Sending a cached message only joins its parts with the
+ * number, without translation lookup and variable replacement.
+ * <p>
+ * Only messages whose translation has no other variables and no PlaceholderAPI placeholders are
+ * cached, because those may differ per player or per world. Other messages, and messages of
+ * users without a locale, are sent through {@link User#sendMessage(String, String...)} as
+ * before. Cache must be cleared when locales are reloaded.
+ * <p>
+ * The cache can be used from any thread.
+ */
+public class MessageTemplateCache {
+
+    /**
+     * Message that is not cached and is always sent through BentoBox.
+     */
+    private static final Template UNCACHED = new Template(null);
+
+    /**
+     * Split pattern of the number slot.
+     */
+    private static final Pattern NUMBER_SLOT = Pattern.compile(Pattern.quote(TextVariables.NUMBER));
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Templates by locale and translation reference.
+     */
+    private final Map<Locale, Map<String, Template>> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public MessageTemplateCache(IslandFlyAddon addon) {
+        this.addon = addon;
+    }
+
+
+    /**
+     * Sends message without variables.
+     * @param user user who receives message
+     * @param reference translation reference
+     */
+    public void send(User user, String reference) {
+        final Template template = this.getTemplate(user, reference);
+
+        if (template == UNCACHED) {
+            user.sendMessage(reference);
+        } else if (template.parts.length > 0) {
+            user.sendRawMessage(template.fill(TextVariables.NUMBER));
+        }
+    }
+
+
+    /**
+     * Sends message with {@link TextVariables#NUMBER} variable.
+     * @param user user who receives message
+     * @param reference translation reference
+     * @param number value of the number variable
+     */
+    public void send(User user, String reference, long number) {
+        final Template template = this.getTemplate(user, reference);
+
+        if (template == UNCACHED) {
+            user.sendMessage(reference, TextVariables.NUMBER, String.valueOf(number));
+        } else if (template.parts.length > 0) {
+            user.sendRawMessage(template.fill(String.valueOf(number)));
+        }
+    }
+
+
+    /**
+     * Translates message with {@link TextVariables#NUMBER} variable without sending it.
+     * @param user user whose locale is used
+     * @param reference translation reference
+     * @param number value of the number variable
+     * @return translated message, empty if message is blank
+     */
+    public String render(User user, String reference, long number) {
+        final Template template = this.getTemplate(user, reference);
+
+        if (template == UNCACHED) {
+            return user.getTranslation(reference, TextVariables.NUMBER, String.valueOf(number));
+        }
+
+        return template.parts.length > 0 ? template.fill(String.valueOf(number)) : "";
+    }
+
+
+    /**
+     * Removes all templates. Must be called when locales are reloaded.
+     */
+    public void clear() {
+        this.templates.clear();
+    }
+
+
+    /**
+     * @return number of cached templates
+     */
+    public int size() {
+        return this.templates.values().stream().mapToInt(Map::size).sum();
+    }
+
+
+    /**
+     * @return messages sent from cached template
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+
+    /**
+     * @return messages that needed translation
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+
+
+    private Template getTemplate(User user, String reference) {
+        final Locale locale = user.getLocale();
+
+        if (locale == null) {
+            return UNCACHED;
+        }
+
+        final Map<String, Template> byReference =
+                this.templates.computeIfAbsent(locale, key -> new ConcurrentHashMap<>());
+        Template template = byReference.get(reference);
+
+        if (template != null) {
+            this.hits.increment();
+            return template;
+        }
+
+        this.misses.increment();
+        template = this.parse(user, reference);
+        byReference.put(reference, template);
+        return template;
+    }
+
+
+    /**
+     * Translates message for given user and splits it at the number slot.
+     * @param user user whose locale is used
+     * @param reference translation reference
+     * @return template, or {@link #UNCACHED} if message cannot be shared by all users of locale
+     */
+    private Template parse(User user, String reference) {
+        final String raw = this.addon.getPlugin().getLocalesManager().get(user, reference);
+
+        if (raw == null || raw.indexOf('%') >= 0 || raw.replace(TextVariables.NUMBER, "").indexOf('[') >= 0) {
+            return UNCACHED;
+        }
+
+        final String translation = user.getTranslation(reference);
+
+        if (translation == null) {
+            return UNCACHED;
+        }
+
+        if (ChatColor.stripColor(translation).trim().isEmpty()) {
+            // BentoBox does not send blank messages
+            return new Template(new String[0]);
+        }
+
+        return new Template(NUMBER_SLOT.split(translation, -1));
+    }
+
+
+    /**
+     * Translated message split at the number slot.
+     */
+    private static class Template {
+
+        /**
+         * Message parts between number slots. Empty if message is blank.
+         */
+        private final String[] parts;
+
+        private Template(String[] parts) {
+            this.parts = parts;
+        }
+
+        private String fill(String number) {
+            if (this.parts.length == 1) {
+                return this.parts[0];
+            }
+
+            final StringBuilder builder = new StringBuilder(this.parts[0]);
+
+            for (int i = 1; i < this.parts.length; i++) {
+                builder.append(number).append(this.parts[i]);
+            }
+
+            return builder.toString();
+        }
+    }
+}
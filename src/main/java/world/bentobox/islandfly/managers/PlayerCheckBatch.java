@@ -0,0 +1,121 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.scheduler.FlyTask;
+
+
+/**
+ * This class collects player checks that must wait until the next tick and runs them in one
+ * batch. A player that is added more than once before the batch runs is checked once.
+ * <p>
+ * The batch is driven by a single repeating task, which runs only while checks keep coming.
+ * Each check is dispatched to the thread that owns its player.
+ */
+public class PlayerCheckBatch {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Check that is run for each player in the batch.
+     */
+    private final Consumer<UUID> check;
+
+    /**
+     * Players waiting for the next batch, in order of arrival.
+     */
+    private final Set<UUID> pending = new LinkedHashSet<>();
+
+    /**
+     * Repeating task that runs the batch.
+     */
+    private FlyTask ticker;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     * @param check check that is run for each player in the batch
+     */
+    public PlayerCheckBatch(IslandFlyAddon addon, Consumer<UUID> check) {
+        this.addon = addon;
+        this.check = check;
+    }
+
+
+    /**
+     * Adds player to the next batch.
+     * @param playerId player unique id
+     */
+    public synchronized void add(UUID playerId) {
+        if (this.pending.add(playerId) && this.ticker == null) {
+            this.ticker = this.addon.getScheduler().runTimer(this::flush, 1L, 1L);
+        }
+    }
+
+
+    /**
+     * @return number of players waiting for the next batch
+     */
+    public synchronized int size() {
+        return this.pending.size();
+    }
+
+
+    /**
+     * Drops all waiting players and stops the ticker.
+     */
+    public synchronized void cancelAll() {
+        this.pending.clear();
+        this.stopTicker();
+    }
+
+
+    /**
+     * Runs checks of all waiting players.
+     */
+    void flush() {
+        final List<UUID> batch;
+
+        synchronized (this) {
+            if (this.pending.isEmpty()) {
+                // Ticker is kept for one idle tick, so steady entries do not restart it
+                this.stopTicker();
+                return;
+            }
+
+            batch = new ArrayList<>(this.pending);
+            this.pending.clear();
+        }
+
+        for (UUID playerId : batch) {
+            this.addon.getScheduler().dispatchToPlayer(playerId, () -> this.run(playerId));
+        }
+    }
+
+
+    private void run(UUID playerId) {
+        try {
+            this.check.accept(playerId);
+        } catch (Exception e) {
+            this.addon.logError("Deferred fly check failed for " + playerId + ": " + e.getMessage());
+        }
+    }
+
+
+    private void stopTicker() {
+        if (this.ticker != null) {
+            this.ticker.cancel();
+            this.ticker = null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package world.bentobox.islandfly.managers;
+
+
+/**
+ * Priority of {@link WorkQueue} items. Items of higher priority run first, items of the same
+ * priority run in order of submission.
+ */
+public enum WorkPriority {
+    /**
+     * Work that takes fly away, so players do not keep fly they lost.
+     */
+    HIGH,
+    /**
+     * Work that gives fly back to players.
+     */
+    NORMAL,
+    /**
+     * Re-evaluation that is not caused by a player action, like a reload.
+     */
+    LOW
+}
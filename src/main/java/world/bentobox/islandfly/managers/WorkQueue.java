@@ -0,0 +1,269 @@
+package world.bentobox.islandfly.managers;
+
+import java.util.ArrayDeque;
+import java.util.function.LongSupplier;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.scheduler.FlyTask;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.islandfly.stats.LatencyHistogram;
+import world.bentobox.islandfly.stats.Probe;
+
+
+/**
+ * This class runs IslandFly bulk work within a per-tick time budget, so IslandFly never causes
+ * a tick spike on its own.
+ * <p>
+ * Submitted work runs immediately while nothing is waiting and the budget of the current tick
+ * is not spent. Otherwise it waits in the queue of its {@link WorkPriority}. A repeating task
+ * runs waiting work every tick, highest priority first, until the budget is spent, and stops
+ * when the queue is empty. At least one item runs every tick, so the queue always makes
+ * progress. Time between submission and run of waiting work is recorded in a histogram.
+ * <p>
+ * Work that must run on the thread of a player dispatches itself, so the budget covers all
+ * work on servers with a single main thread.
+ */
+public class WorkQueue {
+
+    /**
+     * Length of one tick in nanoseconds.
+     */
+    private static final long TICK_NANOS = 50_000_000L;
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock used for budget and delay in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Waiting work by priority ordinal.
+     */
+    private final ArrayDeque<Work>[] queues;
+
+    /**
+     * Time waiting work spent in the queue.
+     */
+    private final LatencyHistogram delays = new LatencyHistogram();
+
+    /**
+     * Number of waiting items.
+     */
+    private int depth;
+
+    /**
+     * Start of the current budget window.
+     */
+    private long windowStart;
+
+    /**
+     * Time spent on work in the current budget window.
+     */
+    private long spent;
+
+    /**
+     * Repeating task that runs waiting work.
+     */
+    private FlyTask ticker;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public WorkQueue(IslandFlyAddon addon) {
+        this(addon, System::nanoTime);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in nanoseconds
+     */
+    @SuppressWarnings("unchecked")
+    WorkQueue(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+        this.queues = new ArrayDeque[WorkPriority.values().length];
+
+        for (int i = 0; i < this.queues.length; i++) {
+            this.queues[i] = new ArrayDeque<>();
+        }
+
+        this.windowStart = clock.getAsLong();
+    }
+
+
+    /**
+     * Runs work now if it fits into the budget of the current tick, or queues it.
+     * @param priority priority of the work
+     * @param task work to run
+     */
+    public void submit(WorkPriority priority, Runnable task) {
+        final long budget = this.getBudget();
+        final long now = this.clock.getAsLong();
+
+        synchronized (this) {
+            if (now - this.windowStart >= TICK_NANOS) {
+                this.windowStart = now;
+                this.spent = 0;
+            }
+
+            if (budget > 0 && (this.depth > 0 || this.spent >= budget)) {
+                this.queues[priority.ordinal()].add(new Work(task, now));
+                this.depth++;
+                this.addon.getStats().count(Counter.WORK_DEFERRED);
+
+                if (this.ticker == null) {
+                    this.ticker = this.addon.getScheduler().runTimer(this::tick, 1L, 1L);
+                }
+
+                return;
+            }
+        }
+
+        this.addon.getStats().count(Counter.WORK_IMMEDIATE);
+        this.run(task);
+
+        synchronized (this) {
+            this.spent += this.clock.getAsLong() - now;
+        }
+    }
+
+
+    /**
+     * @return number of waiting items
+     */
+    public synchronized int getDepth() {
+        return this.depth;
+    }
+
+
+    /**
+     * @return histogram of time waiting work spent in the queue
+     */
+    public LatencyHistogram getDelays() {
+        return this.delays;
+    }
+
+
+    /**
+     * Drops all waiting work and stops the ticker.
+     */
+    public synchronized void cancelAll() {
+        for (ArrayDeque<Work> queue : this.queues) {
+            queue.clear();
+        }
+
+        this.depth = 0;
+        this.stopTicker();
+    }
+
+
+    /**
+     * Runs waiting work until the budget of this tick is spent.
+     */
+    void tick() {
+        final FlyStats stats = this.addon.getStats();
+
+        if (stats.isEnabled()) {
+            final long start = System.nanoTime();
+            this.runWaiting();
+            stats.record(Probe.WORK_QUEUE, start);
+        } else {
+            this.runWaiting();
+        }
+    }
+
+
+    private void runWaiting() {
+        final long budget = this.getBudget();
+        final long start = this.clock.getAsLong();
+        long now = start;
+
+        synchronized (this) {
+            this.windowStart = start;
+            this.spent = 0;
+        }
+
+        do {
+            final Work work = this.poll();
+
+            if (work == null) {
+                return;
+            }
+
+            this.delays.record(now - work.submitted);
+            this.run(work.task);
+            now = this.clock.getAsLong();
+        } while (budget <= 0 || now - start < budget);
+
+        synchronized (this) {
+            this.spent = now - start;
+        }
+    }
+
+
+    /**
+     * Takes the first item of the highest priority, or stops the ticker if there is none.
+     * @return waiting work or null
+     */
+    private synchronized Work poll() {
+        for (ArrayDeque<Work> queue : this.queues) {
+            final Work work = queue.poll();
+
+            if (work != null) {
+                this.depth--;
+                return work;
+            }
+        }
+
+        this.stopTicker();
+        return null;
+    }
+
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            this.addon.logError("IslandFly work failed: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * @return budget per tick in nanoseconds, zero or negative if unlimited
+     */
+    private long getBudget() {
+        return this.addon.getSettings().getWorkTickBudget() * 1000L;
+    }
+
+
+    private void stopTicker() {
+        if (this.ticker != null) {
+            this.ticker.cancel();
+            this.ticker = null;
+        }
+    }
+
+
+    /**
+     * Waiting work.
+     */
+    private static class Work {
+        private final Runnable task;
+        private final long submitted;
+
+        private Work(Runnable task, long submitted) {
+            this.task = task;
+            this.submitted = submitted;
+        }
+    }
+}
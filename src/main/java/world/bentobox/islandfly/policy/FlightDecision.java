@@ -0,0 +1,66 @@
+package world.bentobox.islandfly.policy;
+
+
+/**
+ * Result of the fly eligibility evaluation.
+ */
+public enum FlightDecision {
+    /**
+     * Player may fly.
+     */
+    ALLOWED(true),
+    /**
+     * Player is exempt from IslandFly rules: op, creative, spectator or has flybypass permission.
+     */
+    BYPASS(true),
+    /**
+     * Player is not online anymore.
+     */
+    OFFLINE(false),
+    /**
+     * Player is not in the world of the game mode that is asked.
+     */
+    WRONG_WORLD(false),
+    /**
+     * There is no island at player location.
+     */
+    NO_ISLAND(false),
+    /**
+     * Player is not a member of the island they are at.
+     */
+    NOT_MEMBER(false),
+    /**
+     * Player does not have permission to use fly.
+     */
+    NO_PERMISSION(false),
+    /**
+     * Island is a spawn and player does not have flyspawn permission.
+     */
+    SPAWN_NO_PERM(false),
+    /**
+     * Island fly protection flag does not allow player rank to fly.
+     */
+    FLAG_DENIED(false),
+    /**
+     * Player is outside island protection range.
+     */
+    OUTSIDE_PROTECTION(false),
+    /**
+     * Island level is lower than fly-min-level.
+     */
+    LEVEL_TOO_LOW(false);
+
+    private final boolean allowed;
+
+    FlightDecision(boolean allowed) {
+        this.allowed = allowed;
+    }
+
+
+    /**
+     * @return true if this decision allows player to fly
+     */
+    public boolean isAllowed() {
+        return this.allowed;
+    }
+}
@@ -0,0 +1,194 @@
+package world.bentobox.islandfly.policy;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import world.bentobox.bentobox.database.objects.Island;
+
+
+/**
+ * This class stores the last island decision of each player, keyed by player and island.
+ * While player stays in the same context, repeated checks are a single hash lookup.
+ * <p>
+ * Entries are invalidated by the events that can change the decision: flag changes, team and
+ * rank changes, island deletion or reset, world or game mode change and level recalculation.
+ * A short time to live covers the changes that do not fire any event, like permission updates.
+ * <p>
+ * The cache can be used from any thread. An entry is changed only by the thread that owns its
+ * player, other threads only remove entries.
+ */
+public class FlightDecisionCache {
+
+    /**
+     * Clock used to compute entry expiration.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Last decision of each player.
+     */
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Time to live of entries in milliseconds.
+     */
+    private volatile long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Default constructor.
+     * @param ttlSeconds time to live of entries in seconds
+     */
+    public FlightDecisionCache(int ttlSeconds) {
+        this(ttlSeconds, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param ttlSeconds time to live of entries in seconds
+     * @param clock supplier of the current time in milliseconds
+     */
+    FlightDecisionCache(int ttlSeconds, LongSupplier clock) {
+        this.clock = clock;
+        this.setTtl(ttlSeconds);
+    }
+
+
+    /**
+     * Sets time to live of new entries.
+     * @param ttlSeconds time to live in seconds, zero or negative disables the cache
+     */
+    public void setTtl(int ttlSeconds) {
+        this.ttlMillis = Math.max(0, ttlSeconds) * 1000L;
+
+        if (this.ttlMillis == 0) {
+            this.entries.clear();
+        }
+    }
+
+
+    /**
+     * Gets cached decision.
+     * @param playerId player unique id
+     * @param island island player is at
+     * @return cached decision or null if there is none
+     */
+    public FlightDecision get(UUID playerId, Island island) {
+        final Entry entry = this.entries.get(playerId);
+
+        if (entry != null && entry.expiresAt > this.clock.getAsLong() && entry.islandId.equals(island.getUniqueId())) {
+            this.hits.increment();
+            return entry.decision;
+        }
+
+        this.misses.increment();
+        return null;
+    }
+
+
+    /**
+     * Stores decision.
+     * @param playerId player unique id
+     * @param island island player is at
+     * @param decision decision to store
+     */
+    public void put(UUID playerId, Island island, FlightDecision decision) {
+        if (this.ttlMillis == 0) {
+            return;
+        }
+
+        final long expiresAt = this.clock.getAsLong() + this.ttlMillis;
+        final Entry entry = this.entries.get(playerId);
+
+        if (entry == null) {
+            this.entries.put(playerId, new Entry(island.getUniqueId(), decision, expiresAt));
+        } else {
+            entry.islandId = island.getUniqueId();
+            entry.decision = decision;
+            entry.expiresAt = expiresAt;
+        }
+    }
+
+
+    /**
+     * Removes cached decision of given player.
+     * @param playerId player unique id
+     */
+    public void invalidatePlayer(UUID playerId) {
+        this.entries.remove(playerId);
+    }
+
+
+    /**
+     * Removes cached decisions of all players on given island.
+     * @param islandId island unique id
+     */
+    public void invalidateIsland(String islandId) {
+        this.entries.values().removeIf(entry -> entry.islandId.equals(islandId));
+    }
+
+
+    /**
+     * Removes all cached decisions.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+
+    /**
+     * @return number of cached decisions
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+
+    /**
+     * @return number of lookups answered from cache
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+
+    /**
+     * @return number of lookups that were not cached
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+
+    /**
+     * Mutable cache entry, so updating a decision does not allocate.
+     */
+    private static class Entry {
+        private String islandId;
+        private FlightDecision decision;
+        private long expiresAt;
+
+        private Entry(String islandId, FlightDecision decision, long expiresAt) {
+            this.islandId = islandId;
+            this.decision = decision;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package world.bentobox.islandfly.policy;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import world.bentobox.bentobox.api.addons.GameModeAddon;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.util.Util;
+import world.bentobox.islandfly.IslandFlyAddon;
+
+
+/**
+ * This class contains all IslandFly eligibility rules. Listeners and the fly command only
+ * decide what to do with the returned {@link FlightDecision}.
+ * <p>
+ * Permission nodes are compiled once per game mode and cached per world, so the checks do not
+ * build permission strings. Apart from the optionals returned by BentoBox island lookups, the
+ * evaluation does not allocate.
+ * <p>
+ * Island rules for a player are stored in {@link FlightDecisionCache}, so they are evaluated
+ * again only when player context changes. Protected area of the island player is in is stored
+ * in {@link ProtectionBoxCache}, so location checks look islands up only when player leaves it.
+ */
+public class FlightPolicyEvaluator {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Permission nodes by world.
+     */
+    private final Map<World, PermissionNodes> nodesByWorld = new ConcurrentHashMap<>();
+
+    /**
+     * Permission nodes by permission prefix, so all worlds of one game mode share them.
+     */
+    private final Map<String, PermissionNodes> nodesByPrefix = new ConcurrentHashMap<>();
+
+    /**
+     * Last island decision of each player.
+     */
+    private final FlightDecisionCache decisionCache;
+
+    /**
+     * Minimal rank allowed to fly on each island.
+     */
+    private final FlyRankCache rankCache;
+
+    /**
+     * Protected area of the island each player is in.
+     */
+    private final ProtectionBoxCache boxCache = new ProtectionBoxCache();
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlightPolicyEvaluator(IslandFlyAddon addon) {
+        this.addon = addon;
+        this.decisionCache = new FlightDecisionCache(addon.getSettings().getDecisionCacheTtl());
+        this.rankCache = new FlyRankCache(addon);
+    }
+
+
+    /**
+     * @return the decision cache
+     */
+    public FlightDecisionCache getDecisionCache() {
+        return this.decisionCache;
+    }
+
+
+    /**
+     * @return the fly flag rank threshold cache
+     */
+    public FlyRankCache getRankCache() {
+        return this.rankCache;
+    }
+
+
+    /**
+     * @return the protection box cache
+     */
+    public ProtectionBoxCache getBoxCache() {
+        return this.boxCache;
+    }
+
+
+    /**
+     * Gets permission nodes for given world.
+     * @param world world
+     * @return permission nodes, never null
+     */
+    public PermissionNodes getNodes(World world) {
+        if (world == null) {
+            return PermissionNodes.NONE;
+        }
+
+        return this.nodesByWorld.computeIfAbsent(world, this::compile);
+    }
+
+
+    /**
+     * Clears compiled permission nodes and cached decisions.
+     */
+    public void clear() {
+        this.nodesByWorld.clear();
+        this.nodesByPrefix.clear();
+        this.decisionCache.setTtl(this.addon.getSettings().getDecisionCacheTtl());
+        this.decisionCache.clear();
+        this.rankCache.clear();
+        this.boxCache.clear();
+    }
+
+
+    /**
+     * Checks if player is exempt from IslandFly rules: ops, players in creative or spectator mode
+     * and players with flybypass permission.
+     * @param user user to check
+     * @return true if user is exempt
+     */
+    public boolean isExempt(User user) {
+        return this.isExempt(user, user.getWorld());
+    }
+
+
+    /**
+     * Checks if player is exempt from IslandFly rules in given world, for example in the world
+     * it teleports to.
+     * @param user user to check
+     * @param world world which flybypass permission is checked
+     * @return true if user is exempt
+     */
+    public boolean isExempt(User user, World world) {
+        final Player player = user.getPlayer();
+        final GameMode gameMode = player.getGameMode();
+
+        return user.isOp() || gameMode == GameMode.CREATIVE || gameMode == GameMode.SPECTATOR
+                || this.hasBypass(user, world);
+    }
+
+
+    /**
+     * @param user user to check
+     * @return true if user has flybypass permission in its current world
+     */
+    public boolean hasBypass(User user) {
+        return this.hasBypass(user, user.getWorld());
+    }
+
+
+    /**
+     * @param user user to check
+     * @param world world which game mode permission is checked
+     * @return true if user has flybypass permission in given world
+     */
+    public boolean hasBypass(User user, World world) {
+        final PermissionNodes nodes = this.getNodes(world);
+        return nodes.isGameMode() && user.hasPermission(nodes.getFlyBypass());
+    }
+
+
+    /**
+     * @param user user to check
+     * @return true if user has fly or flyspawn permission in its current world
+     */
+    public boolean hasFlyPermission(User user) {
+        final PermissionNodes nodes = this.getNodes(user.getWorld());
+        return nodes.isGameMode()
+                && (user.hasPermission(nodes.getFly()) || user.hasPermission(nodes.getFlySpawn()));
+    }
+
+
+    /**
+     * Evaluates if player may keep flying at its current location. Only the protected area of
+     * islands is considered.
+     * @param user user to check
+     * @return decision
+     */
+    public FlightDecision evaluateLocation(User user) {
+        if (!user.isOnline()) {
+            return FlightDecision.OFFLINE;
+        }
+
+        final Island island = this.boxCache.getProtectedIsland(user.getUniqueId(), user.getLocation(),
+                this.addon.getIslands());
+        return this.evaluate(user, island, this.getNodes(user.getWorld()), false);
+    }
+
+
+    /**
+     * Evaluates if player may fly at given location before it arrives there, for example at the
+     * destination of a teleport. Only the protected area of islands is considered.
+     * @param user user to check
+     * @param location location player is moving to
+     * @return decision
+     */
+    public FlightDecision evaluateAt(User user, Location location) {
+        if (!user.isOnline()) {
+            return FlightDecision.OFFLINE;
+        }
+
+        final Island island = this.boxCache.getProtectedIsland(user.getUniqueId(), location,
+                this.addon.getIslands());
+        return this.evaluate(user, island, this.getNodes(location.getWorld()), false);
+    }
+
+
+    /**
+     * Gets island used by the last {@link #evaluateLocation(User)} or
+     * {@link #evaluateAt(User, Location)} of given player that found the player online.
+     * @param playerId player unique id
+     * @return island unique id, or null if player was not on an island
+     */
+    public String getEvaluatedIslandId(UUID playerId) {
+        return this.boxCache.getIslandId(playerId);
+    }
+
+
+    /**
+     * Evaluates if player may toggle fly with the fly command.
+     * @param user user to check
+     * @param commandWorld world of the game mode that owns the command
+     * @return decision
+     */
+    public FlightDecision evaluateCommand(User user, World commandWorld) {
+        // Checks world from corresponding gamemode command with the world player is executing in
+        if (commandWorld != Util.getWorld(user.getWorld())) {
+            return FlightDecision.WRONG_WORLD;
+        }
+
+        final Island island = this.addon.getIslands().getIslandAt(user.getLocation()).orElse(null);
+        return this.evaluate(user, island, this.getNodes(commandWorld), true);
+    }
+
+
+    /**
+     * Evaluates if fly can be restored when player joins the server. Player must have fly
+     * permission and must be on an island where it is a member.
+     * @param user user to check
+     * @return decision
+     */
+    public FlightDecision evaluateLogin(User user) {
+        final PermissionNodes nodes = this.getNodes(user.getWorld());
+
+        if (!nodes.isGameMode() || !user.hasPermission(nodes.getFly())) {
+            return FlightDecision.NO_PERMISSION;
+        }
+
+        final Location location = user.getLocation();
+        final Island island = this.addon.getIslands().getIslandAt(location).orElse(null);
+
+        if (island == null) {
+            return FlightDecision.NO_ISLAND;
+        }
+
+        if (!island.onIsland(location) || !island.getMemberSet().contains(user.getUniqueId())) {
+            return FlightDecision.NOT_MEMBER;
+        }
+
+        if (this.isLevelTooLow(island)) {
+            return FlightDecision.LEVEL_TOO_LOW;
+        }
+
+        return this.rankCache.isAllowed(user, island) ?
+                FlightDecision.ALLOWED : FlightDecision.FLAG_DENIED;
+    }
+
+
+    /**
+     * Evaluates island rules for given user.
+     * @param user user to check
+     * @param island island at user location, may be null
+     * @param nodes permission nodes of the game mode
+     * @param command true if user toggles fly with the fly command
+     * @return decision
+     */
+    private FlightDecision evaluate(User user, Island island, PermissionNodes nodes, boolean command) {
+        if (island == null) {
+            return FlightDecision.NO_ISLAND;
+        }
+
+        FlightDecision decision = this.decisionCache.get(user.getUniqueId(), island);
+
+        if (decision == null) {
+            decision = this.evaluateIsland(user, island, nodes);
+            this.decisionCache.put(user.getUniqueId(), island, decision);
+        }
+
+        return command ? this.evaluateCommand(user, island, nodes, decision) : decision;
+    }
+
+
+    /**
+     * Applies the fly command order to cached island decision: flyspawn at spawn, then fly
+     * flag, then protection range, then level. Without flyspawn, spawn is checked like any other
+     * island.
+     * @param user user to check
+     * @param island island at user location
+     * @param nodes permission nodes of the game mode
+     * @param decision island decision
+     * @return decision
+     */
+    private FlightDecision evaluateCommand(User user, Island island, PermissionNodes nodes, FlightDecision decision) {
+        final boolean spawnDenied = decision == FlightDecision.SPAWN_NO_PERM;
+
+        if (decision == FlightDecision.ALLOWED && island.isSpawn() && nodes.isGameMode()
+                && user.hasPermission(nodes.getFlySpawn())) {
+            return FlightDecision.ALLOWED;
+        }
+
+        if ((spawnDenied || decision == FlightDecision.LEVEL_TOO_LOW) && !this.isFlagAllowed(user, island, nodes)) {
+            return FlightDecision.FLAG_DENIED;
+        }
+
+        if (!spawnDenied && decision != FlightDecision.ALLOWED && decision != FlightDecision.LEVEL_TOO_LOW) {
+            return decision;
+        }
+
+        // Protection range depends on player position, so it is never cached
+        if (!this.addon.getSettings().isAllowCommandOutsideProtectionRange()
+                && !this.boxCache.isInside(user.getUniqueId(), island, user.getLocation())) {
+            return FlightDecision.OUTSIDE_PROTECTION;
+        }
+
+        if (spawnDenied) {
+            return this.isLevelTooLow(island) ? FlightDecision.LEVEL_TOO_LOW : FlightDecision.ALLOWED;
+        }
+
+        return decision;
+    }
+
+
+    /**
+     * Evaluates rules that depend only on player and island. Level is checked before the fly flag.
+     * @param user user to check
+     * @param island island at user location
+     * @param nodes permission nodes of the game mode
+     * @return decision
+     */
+    private FlightDecision evaluateIsland(User user, Island island, PermissionNodes nodes) {
+        // Spawn is controlled only by the flyspawn permission
+        if (island.isSpawn() && nodes.isGameMode()) {
+            if (user.hasPermission(nodes.getFlySpawn())) {
+                return FlightDecision.ALLOWED;
+            }
+
+            if (!user.hasPermission(nodes.getFlyBypass())) {
+                return FlightDecision.SPAWN_NO_PERM;
+            }
+        }
+
+        if (this.isLevelTooLow(island)) {
+            return FlightDecision.LEVEL_TOO_LOW;
+        }
+
+        return this.isFlagAllowed(user, island, nodes) ? FlightDecision.ALLOWED : FlightDecision.FLAG_DENIED;
+    }
+
+
+    /**
+     * @param user user to check
+     * @param island island at user location
+     * @param nodes permission nodes of the game mode
+     * @return true if island fly flag allows user rank, or user has fly bypass permission
+     */
+    private boolean isFlagAllowed(User user, Island island, PermissionNodes nodes) {
+        return this.rankCache.isAllowed(user, island)
+                || (nodes.isGameMode() && user.hasPermission(nodes.getFlyBypass()));
+    }
+
+
+    /**
+     * @param island island to check
+     * @return true if island level is below fly-min-level
+     */
+    private boolean isLevelTooLow(Island island) {
+        final long minLevel = this.addon.getSettings().getFlyMinLevel();
+
+        return minLevel > 1 && this.addon.getLevelAddon() != null
+                && this.addon.getLevelCache().getLevel(island) < minLevel;
+    }
+
+
+    private PermissionNodes compile(World world) {
+        final GameModeAddon gameMode = this.addon.getPlugin().getIWM().getAddon(world).orElse(null);
+
+        if (gameMode == null) {
+            return PermissionNodes.NONE;
+        }
+
+        final String prefix = gameMode.getPermissionPrefix();
+        return this.nodesByPrefix.computeIfAbsent(prefix,
+                key -> new PermissionNodes(key, this.addon.getSettings().getCommandBypassPermission()));
+    }
+}
@@ -0,0 +1,130 @@
+package world.bentobox.islandfly.policy;
+
+import java.util.function.LongSupplier;
+
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.util.ExpiringLongMap;
+
+
+/**
+ * This class stores the minimal rank that is allowed to fly on each island, as set by the
+ * {@link IslandFlyAddon#ISLAND_FLY_PROTECTION} flag. Deciding flight for a player is then
+ * a comparison of its rank with the cached threshold.
+ * <p>
+ * Thresholds are refreshed from flag change events and dropped when island is deleted or reset.
+ * Entries expire after the configured time to live and the least recently used entries are
+ * evicted once the cache is full, so islands that are no longer visited do not stay in memory.
+ * <p>
+ * All methods are synchronized, because thresholds are read from the threads that own players.
+ */
+public class FlyRankCache {
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Clock used to compute entry expiration.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Map from island unique id to minimal rank allowed to fly.
+     */
+    private final ExpiringLongMap minRanks = new ExpiringLongMap();
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public FlyRankCache(IslandFlyAddon addon) {
+        this(addon, System::currentTimeMillis);
+    }
+
+
+    /**
+     * Constructor that allows to replace the clock.
+     * @param addon instance of IslandFlyAddon
+     * @param clock supplier of the current time in milliseconds
+     */
+    FlyRankCache(IslandFlyAddon addon, LongSupplier clock) {
+        this.addon = addon;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Gets minimal rank that is allowed to fly on given island.
+     * @param island island
+     * @return minimal rank
+     */
+    public synchronized int getMinRank(Island island) {
+        final long now = this.clock.getAsLong();
+        final long cached = this.minRanks.get(island.getUniqueId(), now);
+
+        if (cached != ExpiringLongMap.MISSING) {
+            return (int) cached;
+        }
+
+        final int rank = island.getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+        this.store(island.getUniqueId(), rank, now);
+        return rank;
+    }
+
+
+    /**
+     * Checks if user rank on island is high enough to fly. Equivalent of
+     * {@code island.isAllowed(user, IslandFlyAddon.ISLAND_FLY_PROTECTION)}.
+     * @param user user
+     * @param island island
+     * @return true if user is allowed to fly by the island flag
+     */
+    public boolean isAllowed(User user, Island island) {
+        return island.getRank(user) >= this.getMinRank(island);
+    }
+
+
+    /**
+     * Sets minimal rank that is allowed to fly on given island.
+     * @param islandId island unique id
+     * @param rank new minimal rank
+     */
+    public synchronized void setMinRank(String islandId, int rank) {
+        this.store(islandId, rank, this.clock.getAsLong());
+    }
+
+
+    /**
+     * Removes cached threshold of given island.
+     * @param islandId island unique id
+     */
+    public synchronized void invalidate(String islandId) {
+        this.minRanks.remove(islandId);
+    }
+
+
+    /**
+     * Removes all cached thresholds.
+     */
+    public synchronized void clear() {
+        this.minRanks.clear();
+    }
+
+
+    /**
+     * @return number of cached islands
+     */
+    public synchronized int size() {
+        return this.minRanks.size();
+    }
+
+
+    private void store(String islandId, int rank, long now) {
+        final long ttl = Math.max(1, this.addon.getSettings().getRankCacheTtl()) * 1000L;
+        this.minRanks.put(islandId, rank, now, ttl, this.addon.getSettings().getRankCacheSize());
+    }
+}
@@ -0,0 +1,77 @@
+package world.bentobox.islandfly.policy;
+
+
+/**
+ * Precompiled IslandFly permission nodes for one game mode.
+ */
+public class PermissionNodes {
+
+    /**
+     * Nodes used in worlds that do not belong to any game mode. Nobody has them.
+     */
+    static final PermissionNodes NONE = new PermissionNodes(null, null);
+
+    private final String fly;
+    private final String flySpawn;
+    private final String flyBypass;
+    private final String commandBypass;
+
+
+    /**
+     * @param permissionPrefix game mode permission prefix, or null if world is not a game mode world
+     * @param commandBypassPermission fly command cooldown bypass permission without prefix
+     */
+    PermissionNodes(String permissionPrefix, String commandBypassPermission) {
+        if (permissionPrefix == null) {
+            this.fly = null;
+            this.flySpawn = null;
+            this.flyBypass = null;
+            this.commandBypass = null;
+        } else {
+            this.fly = permissionPrefix + "island.fly";
+            this.flySpawn = permissionPrefix + "island.flyspawn";
+            this.flyBypass = permissionPrefix + "island.flybypass";
+            this.commandBypass = permissionPrefix + commandBypassPermission;
+        }
+    }
+
+
+    /**
+     * @return true if these nodes belong to a game mode
+     */
+    public boolean isGameMode() {
+        return this.fly != null;
+    }
+
+
+    /**
+     * @return the fly permission node
+     */
+    public String getFly() {
+        return this.fly;
+    }
+
+
+    /**
+     * @return the flyspawn permission node
+     */
+    public String getFlySpawn() {
+        return this.flySpawn;
+    }
+
+
+    /**
+     * @return the flybypass permission node
+     */
+    public String getFlyBypass() {
+        return this.flyBypass;
+    }
+
+
+    /**
+     * @return the fly command cooldown bypass permission node
+     */
+    public String getCommandBypass() {
+        return this.commandBypass;
+    }
+}
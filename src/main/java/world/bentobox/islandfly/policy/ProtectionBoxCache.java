@@ -0,0 +1,208 @@
+package world.bentobox.islandfly.policy;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+
+
+/**
+ * This class stores, for each player, the integer block bounds of the protected area of the
+ * island the player was last found in. While player stays inside these bounds, "still on the
+ * same island" is four int comparisons and a world check, without island lookup.
+ * <p>
+ * Bounds follow {@link Island#onIsland(Location)}: minimal coordinates are inclusive, maximal
+ * coordinates are exclusive. BentoBox lookup is used only when player leaves the cached box.
+ * Entries are invalidated when island protection range changes and when island is deleted.
+ * <p>
+ * The cache can be used from any thread. A box is changed only by the thread that owns its
+ * player, other threads only remove boxes.
+ */
+public class ProtectionBoxCache {
+
+    /**
+     * Cached box of each player.
+     */
+    private final Map<UUID, Box> boxes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Gets protected island at location of given player.
+     * @param playerId player unique id
+     * @param location player location
+     * @param islands BentoBox islands manager, used when location is outside cached box
+     * @return island which protected area contains location, or null
+     */
+    public Island getProtectedIsland(UUID playerId, Location location, IslandsManager islands) {
+        final int x = location.getBlockX();
+        final int z = location.getBlockZ();
+        final Box box = this.boxes.get(playerId);
+
+        if (box != null && box.contains(location.getWorld(), x, z)) {
+            this.hits.increment();
+            return box.island;
+        }
+
+        this.misses.increment();
+        final Island island = islands.getProtectedIslandAt(location).orElse(null);
+
+        if (island == null) {
+            this.boxes.remove(playerId);
+        } else {
+            this.store(playerId, box, island, location.getWorld(), x, z);
+        }
+
+        return island;
+    }
+
+
+    /**
+     * Checks if location of given player is inside protected area of given island.
+     * @param playerId player unique id
+     * @param island island to check
+     * @param location player location
+     * @return true if location is inside island protection range
+     */
+    public boolean isInside(UUID playerId, Island island, Location location) {
+        final int x = location.getBlockX();
+        final int z = location.getBlockZ();
+        final Box box = this.boxes.get(playerId);
+
+        if (box != null && box.island == island && box.contains(location.getWorld(), x, z)) {
+            this.hits.increment();
+            return true;
+        }
+
+        // Island is known, so bounds can be read without lookup
+        this.misses.increment();
+        return this.store(playerId, box, island, location.getWorld(), x, z);
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return unique id of the island in cached box of given player, or null if there is none
+     */
+    public String getIslandId(UUID playerId) {
+        final Box box = this.boxes.get(playerId);
+        return box == null ? null : box.islandId;
+    }
+
+
+    /**
+     * Removes cached box of given player.
+     * @param playerId player unique id
+     */
+    public void invalidatePlayer(UUID playerId) {
+        this.boxes.remove(playerId);
+    }
+
+
+    /**
+     * Removes cached boxes of given island.
+     * @param islandId island unique id
+     */
+    public void invalidateIsland(String islandId) {
+        this.boxes.values().removeIf(box -> box.islandId.equals(islandId));
+    }
+
+
+    /**
+     * Removes all cached boxes.
+     */
+    public void clear() {
+        this.boxes.clear();
+    }
+
+
+    /**
+     * @return number of cached boxes
+     */
+    public int size() {
+        return this.boxes.size();
+    }
+
+
+    /**
+     * @return number of checks answered from cache
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+
+    /**
+     * @return number of checks that read island bounds
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+
+    /**
+     * Stores bounds of island for player if they contain given block.
+     * @return true if island protected area contains given block
+     */
+    private boolean store(UUID playerId, Box box, Island island, World world, int x, int z) {
+        final int minX = island.getMinProtectedX();
+        final int maxX = island.getMaxProtectedX();
+        final int minZ = island.getMinProtectedZ();
+        final int maxZ = island.getMaxProtectedZ();
+
+        if (x < minX || x >= maxX || z < minZ || z >= maxZ) {
+            return false;
+        }
+
+        final Box target = box == null ? new Box() : box;
+        target.island = island;
+        target.islandId = island.getUniqueId();
+        target.world = world;
+        target.minX = minX;
+        target.maxX = maxX;
+        target.minZ = minZ;
+        target.maxZ = maxZ;
+
+        if (box == null) {
+            this.boxes.put(playerId, target);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Mutable cache entry, so moving to another island does not allocate.
+     */
+    private static class Box {
+        private Island island;
+        private String islandId;
+        private World world;
+        private int minX;
+        private int maxX;
+        private int minZ;
+        private int maxZ;
+
+        private boolean contains(World world, int x, int z) {
+            return this.world == world && x >= this.minX && x < this.maxX && z >= this.minZ && z < this.maxZ;
+        }
+    }
+}
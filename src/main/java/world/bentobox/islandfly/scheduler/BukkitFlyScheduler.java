@@ -0,0 +1,52 @@
+package world.bentobox.islandfly.scheduler;
+
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * {@link FlyScheduler} that runs everything on the Bukkit main thread.
+ */
+public class BukkitFlyScheduler implements FlyScheduler {
+
+    private final Plugin plugin;
+
+
+    /**
+     * Default constructor.
+     * @param plugin plugin that owns the tasks
+     */
+    public BukkitFlyScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+
+    @Override
+    public FlyTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        final BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(this.plugin, task, delayTicks, periodTicks);
+        return () -> bukkitTask.cancel();
+    }
+
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(this.plugin, task);
+    }
+
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        Bukkit.getScheduler().runTask(this.plugin, task);
+    }
+
+
+    @Override
+    public void dispatchToPlayer(UUID playerId, Runnable task) {
+        // Callers are already on the main thread, which owns every player
+        task.run();
+    }
+}
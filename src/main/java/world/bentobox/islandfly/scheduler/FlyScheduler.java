@@ -0,0 +1,62 @@
+package world.bentobox.islandfly.scheduler;
+
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+
+/**
+ * Schedules IslandFly work on the right thread.
+ * <p>
+ * On a regular server every method that is not async runs on the main thread. On a
+ * region-threaded server, such as Folia, work that touches a player runs on the thread that owns
+ * the player and addon-wide work runs on the global region thread.
+ */
+public interface FlyScheduler {
+
+    /**
+     * Starts repeating addon-wide task.
+     * @param task task to run
+     * @param delayTicks ticks before the first run, at least 1
+     * @param periodTicks ticks between runs
+     * @return handle that cancels the task
+     */
+    FlyTask runTimer(Runnable task, long delayTicks, long periodTicks);
+
+
+    /**
+     * Runs task outside of any server tick thread.
+     * @param task task to run
+     */
+    void runAsync(Runnable task);
+
+
+    /**
+     * Runs task on the next tick of the thread that owns given player. On region-threaded
+     * servers the task is dropped if player leaves before that.
+     * @param player player
+     * @param task task to run
+     */
+    void runForPlayer(Player player, Runnable task);
+
+
+    /**
+     * Runs task as soon as possible on the thread that owns given player. On a regular server
+     * the task runs immediately, so this must be called from the main thread. The task is
+     * dropped if player is offline.
+     * @param playerId player unique id
+     * @param task task to run
+     */
+    void dispatchToPlayer(UUID playerId, Runnable task);
+
+
+    /**
+     * Creates scheduler for the running server.
+     * @param plugin plugin that owns the tasks
+     * @return Folia scheduler on region-threaded servers, otherwise Bukkit scheduler
+     */
+    static FlyScheduler create(Plugin plugin) {
+        return FoliaFlyScheduler.isSupported() ? new FoliaFlyScheduler(plugin) : new BukkitFlyScheduler(plugin);
+    }
+}
@@ -0,0 +1,14 @@
+package world.bentobox.islandfly.scheduler;
+
+
+/**
+ * Handle of a repeating task started by {@link FlyScheduler}.
+ */
+@FunctionalInterface
+public interface FlyTask {
+
+    /**
+     * Stops the task.
+     */
+    void cancel();
+}
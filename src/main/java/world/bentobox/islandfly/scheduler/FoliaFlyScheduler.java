@@ -0,0 +1,128 @@
+package world.bentobox.islandfly.scheduler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+
+/**
+ * {@link FlyScheduler} for region-threaded servers. Player work goes to the player's entity
+ * scheduler, addon-wide work to the global region scheduler.
+ * <p>
+ * Folia scheduler API is not part of the Spigot API this addon compiles against, so it is
+ * resolved once with reflection.
+ */
+class FoliaFlyScheduler implements FlyScheduler {
+
+    private static final String PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Plugin plugin;
+
+    private final Object globalScheduler;
+
+    private final Object asyncScheduler;
+
+    private final Method runAtFixedRate;
+
+    private final Method runNow;
+
+    private final Method getScheduler;
+
+    private final Method execute;
+
+    private final Method cancel;
+
+
+    FoliaFlyScheduler(Plugin plugin) {
+        this(plugin, Bukkit.class, Entity.class);
+    }
+
+
+    /**
+     * Constructor that allows to replace the classes that provide Folia schedulers.
+     * @param plugin plugin that owns the tasks
+     * @param serverClass class with static global region and async scheduler getters
+     * @param entityClass class with entity scheduler getter
+     */
+    FoliaFlyScheduler(Plugin plugin, Class<?> serverClass, Class<?> entityClass) {
+        this.plugin = plugin;
+
+        try {
+            this.globalScheduler = serverClass.getMethod("getGlobalRegionScheduler").invoke(null);
+            this.asyncScheduler = serverClass.getMethod("getAsyncScheduler").invoke(null);
+            this.runAtFixedRate = Class.forName(PACKAGE + "GlobalRegionScheduler")
+                    .getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            this.runNow = Class.forName(PACKAGE + "AsyncScheduler").getMethod("runNow", Plugin.class, Consumer.class);
+            this.getScheduler = entityClass.getMethod("getScheduler");
+            this.execute = Class.forName(PACKAGE + "EntityScheduler")
+                    .getMethod("execute", Plugin.class, Runnable.class, Runnable.class, long.class);
+            this.cancel = Class.forName(PACKAGE + "ScheduledTask").getMethod("cancel");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler API is not available", e);
+        }
+    }
+
+
+    /**
+     * @return true if server is region-threaded
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+
+    @Override
+    public FlyTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        final Consumer<Object> consumer = scheduled -> task.run();
+        final Object scheduled = this.invoke(this.runAtFixedRate, this.globalScheduler,
+                this.plugin, consumer, Math.max(1L, delayTicks), Math.max(1L, periodTicks));
+        return () -> this.invoke(this.cancel, scheduled);
+    }
+
+
+    @Override
+    public void runAsync(Runnable task) {
+        final Consumer<Object> consumer = scheduled -> task.run();
+        this.invoke(this.runNow, this.asyncScheduler, this.plugin, consumer);
+    }
+
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        final Object scheduler = this.invoke(this.getScheduler, player);
+        // Retired callback is not needed, player left
+        this.invoke(this.execute, scheduler, this.plugin, task, null, 1L);
+    }
+
+
+    @Override
+    public void dispatchToPlayer(UUID playerId, Runnable task) {
+        final Player player = Bukkit.getPlayer(playerId);
+
+        if (player != null) {
+            this.runForPlayer(player, task);
+        }
+    }
+
+
+    private Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package world.bentobox.islandfly.stats;
+
+
+/**
+ * Counted IslandFly events. Fly disables caused by fly rules are counted by
+ * {@link world.bentobox.islandfly.policy.FlightDecision} instead.
+ */
+public enum Counter {
+    FLY_ENABLED_COMMAND("fly_enabled", "reason", "command"),
+    FLY_ENABLED_LOGIN("fly_enabled", "reason", "login"),
+    FLY_ENABLED_ISLAND_ENTER("fly_enabled", "reason", "island-enter"),
+    FLY_DISABLED_COMMAND("fly_disabled", "reason", "command"),
+    FLY_DISABLED_LOGOUT("fly_disabled", "reason", "logout"),
+    FLY_DISABLED_DEATH("fly_disabled", "reason", "death"),
+    FLY_DISABLED_FLAG_CHANGE("fly_disabled", "reason", "flag-change"),
+    GRACE_TIMER_STARTED("grace_timers", "event", "started"),
+    GRACE_TIMER_CANCELLED("grace_timers", "event", "cancelled"),
+    GRACE_TIMER_EXPIRED("grace_timers", "event", "expired"),
+    ABILITY_WRITE_APPLIED("ability_writes", "result", "applied"),
+    ABILITY_WRITE_SUPPRESSED("ability_writes", "result", "suppressed"),
+    BORDER_CHECK_SCHEDULED("border_checks", "event", "scheduled"),
+    BORDER_CHECK_CROSSED("border_checks", "event", "crossed"),
+    WORK_IMMEDIATE("work_items", "result", "immediate"),
+    WORK_DEFERRED("work_items", "result", "deferred"),
+    ALERT_SENT("alerts", "result", "sent"),
+    ALERT_MERGED("alerts", "result", "merged"),
+    ALERT_RATE_LIMITED("alerts", "result", "rate-limited"),
+    COMMAND_EVALUATED("commands", "result", "evaluated"),
+    COMMAND_MEMO("commands", "result", "memo"),
+    COMMAND_THROTTLED("commands", "result", "throttled");
+
+    /**
+     * Metric name without prefix and suffix.
+     */
+    private final String metric;
+
+    /**
+     * Label that tells counters of the same metric apart.
+     */
+    private final String label;
+
+    /**
+     * Value of the label.
+     */
+    private final String value;
+
+
+    Counter(String metric, String label, String value) {
+        this.metric = metric;
+        this.label = label;
+        this.value = value;
+    }
+
+
+    /**
+     * @return metric name without prefix and suffix
+     */
+    public String getMetric() {
+        return this.metric;
+    }
+
+
+    /**
+     * @return label that tells counters of the same metric apart
+     */
+    public String getLabel() {
+        return this.label;
+    }
+
+
+    /**
+     * @return value of the label
+     */
+    public String getValue() {
+        return this.value;
+    }
+}
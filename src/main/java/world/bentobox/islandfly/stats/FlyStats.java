@@ -0,0 +1,178 @@
+package world.bentobox.islandfly.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import world.bentobox.islandfly.policy.FlightDecision;
+
+
+/**
+ * This class collects latency of IslandFly handlers and counts fly changes and grace timers.
+ * <p>
+ * Measured code checks {@link #isEnabled()} once and only reads the clock when stats are
+ * enabled:
+ * <pre>
+ * if (stats.isEnabled()) {
+ *     final long start = System.nanoTime();
+ *     handle(event);
+ *     stats.record(Probe.EXIT_ISLAND, start);
+ * } else {
+ *     handle(event);
+ * }
+ * </pre>
+ * Histograms and counters are lock-free, so they can be read from any thread. Counting is a
+ * no-op while stats are disabled.
+ */
+public class FlyStats {
+
+    /**
+     * Histogram of each probe.
+     */
+    private final Map<Probe, LatencyHistogram> histograms = new EnumMap<>(Probe.class);
+
+    /**
+     * Event counters by {@link Counter} ordinal.
+     */
+    private final LongAdder[] counters = newAdders(Counter.values().length);
+
+    /**
+     * Fly disables caused by fly rules by {@link FlightDecision} ordinal.
+     */
+    private final LongAdder[] disables = newAdders(FlightDecision.values().length);
+
+    /**
+     * True if handlers should be measured.
+     */
+    private volatile boolean enabled;
+
+    /**
+     * Time of the last reset in milliseconds.
+     */
+    private volatile long since = System.currentTimeMillis();
+
+
+    /**
+     * Default constructor.
+     * @param enabled true if handlers should be measured
+     */
+    public FlyStats(boolean enabled) {
+        this.enabled = enabled;
+
+        for (Probe probe : Probe.values()) {
+            this.histograms.put(probe, new LatencyHistogram());
+        }
+    }
+
+
+    /**
+     * @return true if handlers should be measured
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+
+    /**
+     * @param enabled true if handlers should be measured
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    /**
+     * Records time elapsed since given start.
+     * @param probe measured code path
+     * @param startNanos value of {@link System#nanoTime()} when measured code started
+     */
+    public void record(Probe probe, long startNanos) {
+        this.histograms.get(probe).record(System.nanoTime() - startNanos);
+    }
+
+
+    /**
+     * Counts one event.
+     * @param counter counted event
+     */
+    public void count(Counter counter) {
+        if (this.enabled) {
+            this.counters[counter.ordinal()].increment();
+        }
+    }
+
+
+    /**
+     * Counts one fly disable caused by fly rules.
+     * @param reason decision that disabled fly
+     */
+    public void countDisable(FlightDecision reason) {
+        if (this.enabled) {
+            this.disables[reason.ordinal()].increment();
+        }
+    }
+
+
+    /**
+     * @param counter counted event
+     * @return number of counted events
+     */
+    public long getCount(Counter counter) {
+        return this.counters[counter.ordinal()].sum();
+    }
+
+
+    /**
+     * @param reason decision that disabled fly
+     * @return number of fly disables caused by given decision
+     */
+    public long getDisableCount(FlightDecision reason) {
+        return this.disables[reason.ordinal()].sum();
+    }
+
+
+    /**
+     * @param probe measured code path
+     * @return histogram of given probe
+     */
+    public LatencyHistogram getHistogram(Probe probe) {
+        return this.histograms.get(probe);
+    }
+
+
+    /**
+     * @return time of the last reset in milliseconds
+     */
+    public long getSince() {
+        return this.since;
+    }
+
+
+    /**
+     * Clears all histograms and counters.
+     */
+    public void reset() {
+        this.histograms.values().forEach(LatencyHistogram::reset);
+
+        for (LongAdder adder : this.counters) {
+            adder.reset();
+        }
+
+        for (LongAdder adder : this.disables) {
+            adder.reset();
+        }
+
+        this.since = System.currentTimeMillis();
+    }
+
+
+    private static LongAdder[] newAdders(int size) {
+        final LongAdder[] adders = new LongAdder[size];
+
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+
+        return adders;
+    }
+}
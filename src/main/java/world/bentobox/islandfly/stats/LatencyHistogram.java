@@ -0,0 +1,170 @@
+package world.bentobox.islandfly.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free latency histogram with a fixed number of log-linear buckets.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKETS} buckets, so the relative error of a
+ * reported percentile is at most 12.5%. Values below {@value #SUB_BUCKETS} nanoseconds are
+ * exact. Recording does not allocate.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of bits used for linear sub buckets.
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * Number of linear sub buckets per power of two.
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Number of buckets needed for any positive long.
+     */
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+
+    /**
+     * Records one value.
+     * @param nanos duration in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0L, nanos);
+
+        this.counts.incrementAndGet(bucketOf(value));
+        this.count.increment();
+        this.total.add(value);
+        this.max.accumulate(value);
+    }
+
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+
+    /**
+     * @return sum of recorded values in nanoseconds
+     */
+    public long getTotal() {
+        return this.total.sum();
+    }
+
+
+    /**
+     * @return largest recorded value in nanoseconds
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+
+    /**
+     * Gets value below which given fraction of recorded values fall.
+     * @param quantile fraction between 0 and 1
+     * @return upper bound of the bucket that holds the quantile, never above {@link #getMax()},
+     * or 0 if nothing was recorded
+     */
+    public long getPercentile(double quantile) {
+        final long[] snapshot = this.getBucketCounts();
+        long recorded = 0;
+
+        for (long c : snapshot) {
+            recorded += c;
+        }
+
+        if (recorded == 0) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(quantile * recorded));
+        long seen = 0;
+
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.getMax());
+            }
+        }
+
+        return this.getMax();
+    }
+
+
+    /**
+     * @return copy of bucket counts
+     */
+    public long[] getBucketCounts() {
+        final long[] snapshot = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+        }
+
+        return snapshot;
+    }
+
+
+    /**
+     * Clears all recorded values. Values recorded concurrently may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0L);
+        }
+
+        this.count.reset();
+        this.total.reset();
+        this.max.reset();
+    }
+
+
+    /**
+     * @param value non-negative value
+     * @return bucket index of value
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) | sub;
+    }
+
+
+    /**
+     * @param bucket bucket index
+     * @return largest value stored in bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        final int sub = bucket & (SUB_BUCKETS - 1);
+
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
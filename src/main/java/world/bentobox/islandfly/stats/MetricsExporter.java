@@ -0,0 +1,200 @@
+package world.bentobox.islandfly.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.scheduler.FlyTask;
+
+
+/**
+ * This class exports IslandFly metrics in Prometheus text format, either on an embedded HTTP
+ * endpoint or into a file in the addon folder.
+ * <p>
+ * A {@link MetricsSnapshot} is taken on the main thread on every interval. Rendering, writing
+ * the file and serving requests happen on other threads. Scrapes always get the last rendered
+ * snapshot, so they never touch live data.
+ */
+public class MetricsExporter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * IslandFlyAddon instance.
+     */
+    private final IslandFlyAddon addon;
+
+    /**
+     * Last rendered snapshot.
+     */
+    private volatile byte[] rendered = "# No IslandFly metrics yet\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Snapshot task.
+     */
+    private FlyTask task;
+
+    /**
+     * Embedded HTTP server, if http mode is used.
+     */
+    private HttpServer server;
+
+    /**
+     * Thread that serves HTTP requests.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Target file, if file mode is used.
+     */
+    private Path file;
+
+
+    /**
+     * Default constructor.
+     * @param addon instance of IslandFlyAddon
+     */
+    public MetricsExporter(IslandFlyAddon addon) {
+        this.addon = addon;
+    }
+
+
+    /**
+     * @param settings addon settings
+     * @return true if settings enable metrics export
+     */
+    public static boolean isEnabled(Settings settings) {
+        final String mode = settings.getMetricsMode();
+        return "http".equalsIgnoreCase(mode) || "file".equalsIgnoreCase(mode);
+    }
+
+
+    /**
+     * Starts export according to settings. Does nothing if export is disabled.
+     */
+    public void start() {
+        final Settings settings = this.addon.getSettings();
+
+        if (!isEnabled(settings) || this.task != null) {
+            return;
+        }
+
+        if ("http".equalsIgnoreCase(settings.getMetricsMode())) {
+            if (!this.startServer(settings.getMetricsAddress(), settings.getMetricsPort())) {
+                return;
+            }
+        } else {
+            this.file = new File(this.addon.getDataFolder(), settings.getMetricsFile()).toPath();
+        }
+
+        final long interval = Math.max(1, settings.getMetricsInterval()) * 20L;
+        this.task = this.addon.getScheduler().runTimer(this::snapshot, interval, interval);
+    }
+
+
+    /**
+     * Stops export and releases the HTTP port.
+     */
+    public void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+
+        this.file = null;
+    }
+
+
+    /**
+     * Takes snapshot on the main thread and renders it asynchronously.
+     */
+    private void snapshot() {
+        final MetricsSnapshot snapshot = MetricsSnapshot.capture(this.addon);
+        final Path target = this.file;
+
+        this.addon.getScheduler().runAsync(() -> this.publish(snapshot, target));
+    }
+
+
+    private void publish(MetricsSnapshot snapshot, Path target) {
+        final byte[] bytes = PrometheusRenderer.render(snapshot).getBytes(StandardCharsets.UTF_8);
+        this.rendered = bytes;
+
+        if (target == null) {
+            return;
+        }
+
+        try {
+            // Write next to the target and move, so readers never see a partial file
+            final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.addon.logError("Could not write metrics file " + target + ": " + e.getMessage());
+        }
+    }
+
+
+    private boolean startServer(String address, int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        } catch (IOException e) {
+            this.addon.logError("Could not start metrics endpoint on " + address + ":" + port + ": " + e.getMessage());
+            return false;
+        }
+
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "IslandFly-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        this.addon.log("Serving IslandFly metrics on http://" + address + ":" + port + "/metrics");
+        return true;
+    }
+
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            final byte[] body = this.rendered;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
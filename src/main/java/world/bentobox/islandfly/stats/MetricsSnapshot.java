@@ -0,0 +1,259 @@
+package world.bentobox.islandfly.stats;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightDecision;
+import world.bentobox.islandfly.policy.FlightDecisionCache;
+import world.bentobox.islandfly.policy.ProtectionBoxCache;
+
+
+/**
+ * Immutable copy of all IslandFly metrics taken at one moment.
+ * <p>
+ * Snapshots are taken on the main thread, where caches and grace timers are updated, so all
+ * values are consistent with each other. Rendering a snapshot can then happen on any thread.
+ */
+public final class MetricsSnapshot {
+
+    private final long timestamp;
+    private final long[] counters;
+    private final long[] disables;
+    private final long[][] buckets;
+    private final long[] counts;
+    private final long[] totals;
+    private final int pendingGraceTimers;
+    private final int dirtyFlyStates;
+    private final long decisionHits;
+    private final long decisionMisses;
+    private final long levelHits;
+    private final long levelMisses;
+    private final long boxHits;
+    private final long boxMisses;
+    private final int workQueueDepth;
+    private final long[] workDelayBuckets;
+    private final long workDelayCount;
+    private final long workDelayTotal;
+
+
+    private MetricsSnapshot(IslandFlyAddon addon) {
+        final FlyStats stats = addon.getStats();
+        final Counter[] allCounters = Counter.values();
+        final FlightDecision[] decisions = FlightDecision.values();
+        final Probe[] probes = Probe.values();
+
+        this.timestamp = System.currentTimeMillis();
+        this.counters = new long[allCounters.length];
+        this.disables = new long[decisions.length];
+        this.buckets = new long[probes.length][];
+        this.counts = new long[probes.length];
+        this.totals = new long[probes.length];
+
+        for (Counter counter : allCounters) {
+            this.counters[counter.ordinal()] = stats.getCount(counter);
+        }
+
+        for (FlightDecision decision : decisions) {
+            this.disables[decision.ordinal()] = stats.getDisableCount(decision);
+        }
+
+        for (Probe probe : probes) {
+            final LatencyHistogram histogram = stats.getHistogram(probe);
+            this.buckets[probe.ordinal()] = histogram.getBucketCounts();
+            // Derived from buckets, so count always matches the +Inf bucket
+            this.counts[probe.ordinal()] = sum(this.buckets[probe.ordinal()]);
+            this.totals[probe.ordinal()] = histogram.getTotal();
+        }
+
+        final WorkQueue workQueue = addon.getWorkQueue();
+        this.workQueueDepth = workQueue.getDepth();
+        this.workDelayBuckets = workQueue.getDelays().getBucketCounts();
+        this.workDelayCount = sum(this.workDelayBuckets);
+        this.workDelayTotal = workQueue.getDelays().getTotal();
+
+        this.pendingGraceTimers = addon.getGraceTimers().getPendingCount();
+        this.dirtyFlyStates = addon.getFlyStates().getDirtyCount();
+
+        final FlightDecisionCache decisionCache = addon.getFlightPolicy().getDecisionCache();
+        this.decisionHits = decisionCache.getHits();
+        this.decisionMisses = decisionCache.getMisses();
+
+        final LevelCache levelCache = addon.getLevelCache();
+        this.levelHits = levelCache.getHits();
+        this.levelMisses = levelCache.getMisses();
+
+        final ProtectionBoxCache boxCache = addon.getFlightPolicy().getBoxCache();
+        this.boxHits = boxCache.getHits();
+        this.boxMisses = boxCache.getMisses();
+    }
+
+
+    private static long sum(long[] buckets) {
+        long count = 0;
+
+        for (long c : buckets) {
+            count += c;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Takes snapshot of current metrics. Must be called from the main thread.
+     * @param addon instance of IslandFlyAddon
+     * @return snapshot
+     */
+    public static MetricsSnapshot capture(IslandFlyAddon addon) {
+        return new MetricsSnapshot(addon);
+    }
+
+
+    /**
+     * @return time when snapshot was taken in milliseconds
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+
+    /**
+     * @param counter counted event
+     * @return number of counted events
+     */
+    public long getCount(Counter counter) {
+        return this.counters[counter.ordinal()];
+    }
+
+
+    /**
+     * @param reason decision that disabled fly
+     * @return number of fly disables caused by given decision
+     */
+    public long getDisableCount(FlightDecision reason) {
+        return this.disables[reason.ordinal()];
+    }
+
+
+    /**
+     * @param probe measured code path
+     * @return histogram bucket counts of given probe, must not be modified
+     */
+    long[] getBuckets(Probe probe) {
+        return this.buckets[probe.ordinal()];
+    }
+
+
+    /**
+     * @param probe measured code path
+     * @return number of measured calls
+     */
+    public long getCount(Probe probe) {
+        return this.counts[probe.ordinal()];
+    }
+
+
+    /**
+     * @param probe measured code path
+     * @return total time of measured calls in nanoseconds
+     */
+    public long getTotal(Probe probe) {
+        return this.totals[probe.ordinal()];
+    }
+
+
+    /**
+     * @return number of pending grace timers
+     */
+    public int getPendingGraceTimers() {
+        return this.pendingGraceTimers;
+    }
+
+
+    /**
+     * @return number of players with unsaved fly states
+     */
+    public int getDirtyFlyStates() {
+        return this.dirtyFlyStates;
+    }
+
+
+    /**
+     * @return decision cache hits
+     */
+    public long getDecisionHits() {
+        return this.decisionHits;
+    }
+
+
+    /**
+     * @return decision cache misses
+     */
+    public long getDecisionMisses() {
+        return this.decisionMisses;
+    }
+
+
+    /**
+     * @return level lookups answered from cache
+     */
+    public long getLevelHits() {
+        return this.levelHits;
+    }
+
+
+    /**
+     * @return level lookups that asked the Level addon
+     */
+    public long getLevelMisses() {
+        return this.levelMisses;
+    }
+
+
+    /**
+     * @return protection checks answered from cached box
+     */
+    public long getBoxHits() {
+        return this.boxHits;
+    }
+
+
+    /**
+     * @return protection checks that read island bounds
+     */
+    public long getBoxMisses() {
+        return this.boxMisses;
+    }
+
+
+    /**
+     * @return number of work items waiting for a later tick
+     */
+    public int getWorkQueueDepth() {
+        return this.workQueueDepth;
+    }
+
+
+    /**
+     * @return histogram bucket counts of work queue delay, must not be modified
+     */
+    long[] getWorkDelayBuckets() {
+        return this.workDelayBuckets;
+    }
+
+
+    /**
+     * @return number of deferred work items that ran
+     */
+    public long getWorkDelayCount() {
+        return this.workDelayCount;
+    }
+
+
+    /**
+     * @return total time deferred work items waited in nanoseconds
+     */
+    public long getWorkDelayTotal() {
+        return this.workDelayTotal;
+    }
+}
@@ -0,0 +1,40 @@
+package world.bentobox.islandfly.stats;
+
+
+/**
+ * Measured IslandFly code paths.
+ */
+public enum Probe {
+    TOGGLE_FLIGHT("toggle-flight"),
+    ENTER_ISLAND("enter-island"),
+    TELEPORT("teleport"),
+    EXIT_ISLAND("exit-island"),
+    FLAG_CHANGE("flag-change"),
+    LOGIN("login"),
+    LOGOUT("logout"),
+    DEATH("death"),
+    RESPAWN("respawn"),
+    FLY_COMMAND("fly-command"),
+    GRACE_TIMERS("grace-timers"),
+    BORDER_CHECKS("border-checks"),
+    WORK_QUEUE("work-queue"),
+    COUNTDOWN("countdown");
+
+    /**
+     * Name shown in stats output.
+     */
+    private final String key;
+
+
+    Probe(String key) {
+        this.key = key;
+    }
+
+
+    /**
+     * @return name shown in stats output
+     */
+    public String getKey() {
+        return this.key;
+    }
+}
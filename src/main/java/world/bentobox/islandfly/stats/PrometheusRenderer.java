@@ -0,0 +1,209 @@
+package world.bentobox.islandfly.stats;
+
+import java.util.Locale;
+
+import world.bentobox.islandfly.policy.FlightDecision;
+
+
+/**
+ * Renders {@link MetricsSnapshot} in Prometheus text exposition format.
+ * <p>
+ * Handler latency is exported with a fixed set of buckets, from 1 microsecond to 100
+ * milliseconds. Each histogram bucket is added to the first boundary that is not below its
+ * upper bound.
+ */
+public final class PrometheusRenderer {
+
+    private static final String PREFIX = "islandfly_";
+
+    private static final String FLY_DISABLED = "fly_disabled";
+
+    /**
+     * Upper bounds of exported latency buckets in nanoseconds.
+     */
+    private static final long[] BOUNDS = {
+            1_000L, 2_500L, 5_000L, 10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L
+    };
+
+    /**
+     * Upper bounds of exported latency buckets in seconds.
+     */
+    private static final String[] LABELS = {
+            "0.000001", "0.0000025", "0.000005", "0.00001", "0.000025", "0.00005", "0.0001",
+            "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1"
+    };
+
+
+    private PrometheusRenderer() {}
+
+
+    /**
+     * @param snapshot metrics snapshot
+     * @return metrics in Prometheus text format
+     */
+    public static String render(MetricsSnapshot snapshot) {
+        final StringBuilder out = new StringBuilder(8192);
+
+        renderCounters(out, snapshot);
+
+        header(out, "grace_timers_pending", "gauge", "Number of pending fly grace timers.");
+        sample(out, "grace_timers_pending", null, null, snapshot.getPendingGraceTimers());
+
+        header(out, "work_queue_depth", "gauge", "Number of work items waiting for a later tick.");
+        sample(out, "work_queue_depth", null, null, snapshot.getWorkQueueDepth());
+
+        header(out, "fly_states_dirty", "gauge", "Number of players with unsaved island fly states.");
+        sample(out, "fly_states_dirty", null, null, snapshot.getDirtyFlyStates());
+
+        header(out, "level_lookups_total", "counter", "Island level lookups by result.");
+        sample(out, "level_lookups_total", "result", "hit", snapshot.getLevelHits());
+        sample(out, "level_lookups_total", "result", "miss", snapshot.getLevelMisses());
+
+        header(out, "decision_lookups_total", "counter", "Fly decision cache lookups by result.");
+        sample(out, "decision_lookups_total", "result", "hit", snapshot.getDecisionHits());
+        sample(out, "decision_lookups_total", "result", "miss", snapshot.getDecisionMisses());
+
+        header(out, "box_lookups_total", "counter", "Protection box checks by result.");
+        sample(out, "box_lookups_total", "result", "hit", snapshot.getBoxHits());
+        sample(out, "box_lookups_total", "result", "miss", snapshot.getBoxMisses());
+
+        header(out, "cache_hit_ratio", "gauge", "Share of lookups answered from cache.");
+        ratio(out, "decision", snapshot.getDecisionHits(), snapshot.getDecisionMisses());
+        ratio(out, "level", snapshot.getLevelHits(), snapshot.getLevelMisses());
+        ratio(out, "box", snapshot.getBoxHits(), snapshot.getBoxMisses());
+
+        renderHistograms(out, snapshot);
+
+        header(out, "work_queue_delay_seconds", "histogram", "Time deferred work items waited in the queue.");
+        histogram(out, "work_queue_delay_seconds", "", snapshot.getWorkDelayBuckets(),
+                snapshot.getWorkDelayCount(), snapshot.getWorkDelayTotal());
+
+        return out.toString();
+    }
+
+
+    private static void renderCounters(StringBuilder out, MetricsSnapshot snapshot) {
+        String metric = null;
+
+        for (Counter counter : Counter.values()) {
+            if (!counter.getMetric().equals(metric)) {
+                metric = counter.getMetric();
+                header(out, metric + "_total", "counter", help(metric));
+
+                if (metric.equals(FLY_DISABLED)) {
+                    // Fly rule disables share the metric with other disable reasons
+                    for (FlightDecision decision : FlightDecision.values()) {
+                        if (!decision.isAllowed() && decision != FlightDecision.OFFLINE) {
+                            sample(out, metric + "_total", "reason", key(decision), snapshot.getDisableCount(decision));
+                        }
+                    }
+                }
+            }
+
+            sample(out, metric + "_total", counter.getLabel(), counter.getValue(), snapshot.getCount(counter));
+        }
+    }
+
+
+    private static void renderHistograms(StringBuilder out, MetricsSnapshot snapshot) {
+        final String name = "handler_duration_seconds";
+        header(out, name, "histogram", "Time spent in IslandFly handlers.");
+
+        for (Probe probe : Probe.values()) {
+            histogram(out, name, "handler=\"" + probe.getKey() + "\"", snapshot.getBuckets(probe),
+                    snapshot.getCount(probe), snapshot.getTotal(probe));
+        }
+    }
+
+
+    /**
+     * Renders one histogram series.
+     * @param out output
+     * @param name metric name without prefix
+     * @param labels rendered labels of the series, may be empty
+     * @param buckets histogram bucket counts
+     * @param count number of recorded values
+     * @param total sum of recorded values in nanoseconds
+     */
+    private static void histogram(StringBuilder out, String name, String labels, long[] buckets, long count,
+            long total) {
+        final String separator = labels.isEmpty() ? "" : ",";
+        final String series = labels.isEmpty() ? "" : "{" + labels + "}";
+        long cumulative = 0;
+        int bucket = 0;
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            while (bucket < buckets.length && LatencyHistogram.upperBoundOf(bucket) <= BOUNDS[i]) {
+                cumulative += buckets[bucket++];
+            }
+
+            out.append(PREFIX).append(name).append("_bucket{").append(labels).append(separator)
+            .append("le=\"").append(LABELS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+
+        out.append(PREFIX).append(name).append("_bucket{").append(labels).append(separator)
+        .append("le=\"+Inf\"} ").append(count).append('\n');
+        out.append(PREFIX).append(name).append("_sum").append(series).append(' ')
+        .append(total / 1_000_000_000D).append('\n');
+        out.append(PREFIX).append(name).append("_count").append(series).append(' ')
+        .append(count).append('\n');
+    }
+
+
+    private static void ratio(StringBuilder out, String cache, long hits, long misses) {
+        final long lookups = hits + misses;
+        out.append(PREFIX).append("cache_hit_ratio{cache=\"").append(cache).append("\"} ")
+        .append(lookups == 0 ? "NaN" : String.valueOf((double) hits / lookups)).append('\n');
+    }
+
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(PREFIX).append(name);
+
+        if (label != null) {
+            out.append('{').append(label).append("=\"").append(value).append("\"}");
+        }
+
+        out.append(' ').append(sample).append('\n');
+    }
+
+
+    private static String help(String metric) {
+        switch (metric) {
+        case "fly_enabled":
+            return "Fly enables by reason.";
+        case FLY_DISABLED:
+            return "Fly disables by reason.";
+        case "grace_timers":
+            return "Fly grace timers by event.";
+        case "ability_writes":
+            return "Fly ability writes by result. Suppressed writes did not change anything.";
+        case "border_checks":
+            return "Predictive border checks by event. Crossed checks found player outside island.";
+        case "work_items":
+            return "Work queue items by result. Deferred items waited for a later tick.";
+        case "alerts":
+            return "Fly alerts by result. Merged and rate-limited alerts were not sent.";
+        case "commands":
+            return "Fly command checks by result. Memo checks reused the last decision.";
+        default:
+            return metric;
+        }
+    }
+
+
+    /**
+     * @param decision fly decision
+     * @return label value of decision
+     */
+    static String key(FlightDecision decision) {
+        return decision.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,131 @@
+package world.bentobox.islandfly.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+
+/**
+ * Map from string keys to long values with per-entry expiration and a size limit, used by
+ * the island caches.
+ * <p>
+ * Entries are kept in access order. Storing a new key drops expired entries from the least
+ * recently used side and then the least recently used entries over the size limit. Refreshing
+ * an existing key updates its entry in place, so it does not allocate.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ExpiringLongMap {
+
+    /**
+     * Value returned for keys that are not stored or expired.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * Access ordered map from key to entry.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+
+    /**
+     * Gets value that has not expired.
+     * @param key key
+     * @param now current time in milliseconds
+     * @return stored value, or {@link #MISSING} if key is not stored or expired
+     */
+    public long get(String key, long now) {
+        final Entry entry = this.entries.get(key);
+        return entry != null && entry.expiresAt > now ? entry.value : MISSING;
+    }
+
+
+    /**
+     * Gets value even if it has expired, as long as it was not dropped yet.
+     * @param key key
+     * @return stored value, or {@link #MISSING} if key is not stored
+     */
+    public long getStale(String key) {
+        final Entry entry = this.entries.get(key);
+        return entry != null ? entry.value : MISSING;
+    }
+
+
+    /**
+     * Stores value for given key.
+     * @param key key
+     * @param value value
+     * @param now current time in milliseconds
+     * @param ttlMillis time to live in milliseconds
+     * @param maxSize maximal number of entries
+     */
+    public void put(String key, long value, long now, long ttlMillis, int maxSize) {
+        final Entry entry = this.entries.get(key);
+
+        if (entry == null) {
+            this.entries.put(key, new Entry(value, now + ttlMillis));
+            this.evict(now, Math.max(1, maxSize));
+        } else {
+            entry.value = value;
+            entry.expiresAt = now + ttlMillis;
+        }
+    }
+
+
+    /**
+     * Removes value of given key.
+     * @param key key
+     */
+    public void remove(String key) {
+        this.entries.remove(key);
+    }
+
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+
+    /**
+     * @return number of stored values, including expired ones not dropped yet
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+
+    /**
+     * Removes expired entries from the eldest side and then trims the map to the maximal size.
+     * @param now current time
+     * @param maxSize maximal number of entries
+     */
+    private void evict(long now, int maxSize) {
+        final Iterator<Entry> iterator = this.entries.values().iterator();
+
+        while (iterator.hasNext()) {
+            final Entry eldest = iterator.next();
+
+            if (this.entries.size() > maxSize || eldest.expiresAt <= now) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Mutable entry, so refreshing a value does not allocate.
+     */
+    private static class Entry {
+        private long value;
+        private long expiresAt;
+
+        private Entry(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package world.bentobox.islandfly.util;
+
+import org.bukkit.entity.Player;
+
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+
+/**
+ * Changes fly abilities of players only when they differ from the current state.
+ * <p>
+ * Every {@link Player#setAllowFlight(boolean)} and {@link Player#setFlying(boolean)} call
+ * sends player abilities packet, even if nothing changed. Players that hop over island borders
+ * trigger many such writes, so unchanged values are skipped and counted as suppressed.
+ */
+public final class FlyAbilities {
+
+    private FlyAbilities() {}
+
+
+    /**
+     * Sets if player can fly.
+     * @param player player
+     * @param allowFlight true if player can fly
+     * @param stats stats that count applied and suppressed writes
+     */
+    public static void setAllowFlight(Player player, boolean allowFlight, FlyStats stats) {
+        if (player.getAllowFlight() == allowFlight) {
+            stats.count(Counter.ABILITY_WRITE_SUPPRESSED);
+            return;
+        }
+
+        player.setAllowFlight(allowFlight);
+        stats.count(Counter.ABILITY_WRITE_APPLIED);
+    }
+
+
+    /**
+     * Sets if player is flying. Player must be allowed to fly before flying is set to true.
+     * @param player player
+     * @param flying true if player is flying
+     * @param stats stats that count applied and suppressed writes
+     */
+    public static void setFlying(Player player, boolean flying, FlyStats stats) {
+        if (player.isFlying() == flying) {
+            stats.count(Counter.ABILITY_WRITE_SUPPRESSED);
+            return;
+        }
+
+        player.setFlying(flying);
+        stats.count(Counter.ABILITY_WRITE_APPLIED);
+    }
+
+
+    /**
+     * Stops player flying and takes fly ability away.
+     * @param player player
+     * @param stats stats that count applied and suppressed writes
+     */
+    public static void disable(Player player, FlyStats stats) {
+        setFlying(player, false, stats);
+        setAllowFlight(player, false, stats);
+    }
+}
@@ -0,0 +1,222 @@
+package world.bentobox.islandfly.util;
+
+import java.util.function.Consumer;
+
+
+/**
+ * Hashed timing wheel that stores wall-clock deadlines in a fixed number of buckets.
+ * <p>
+ * Scheduling and cancelling are O(1). Advancing the wheel only visits the buckets of the ticks
+ * that elapsed since the previous call, so the cost of one advance does not depend on the number
+ * of pending timeouts that are not due yet. Deadlines are expressed in milliseconds, so if the
+ * wheel is advanced late, everything that became due in the meantime is expired in one batch.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> type of payload stored in the wheel
+ */
+public class TimingWheel<T> {
+
+    /**
+     * Length of one wheel tick in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * Mask used to map tick number to bucket index.
+     */
+    private final int mask;
+
+    /**
+     * Sentinel head node of each bucket.
+     */
+    private final Timeout<T>[] buckets;
+
+    /**
+     * Wall-clock time of tick zero.
+     */
+    private final long startTime;
+
+    /**
+     * Next tick that must be processed.
+     */
+    private long currentTick;
+
+    /**
+     * Number of pending timeouts.
+     */
+    private int size;
+
+
+    /**
+     * Default constructor.
+     * @param startTime current time in milliseconds
+     * @param tickMillis length of one tick in milliseconds
+     * @param wheelSize number of buckets, rounded up to power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTime, long tickMillis, int wheelSize) {
+        this.startTime = startTime;
+        this.tickMillis = Math.max(1, tickMillis);
+
+        int buckets = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.mask = buckets - 1;
+        this.buckets = new Timeout[buckets];
+
+        for (int i = 0; i < buckets; i++) {
+            Timeout<T> head = new Timeout<>(null, 0L);
+            head.next = head;
+            head.previous = head;
+            this.buckets[i] = head;
+        }
+    }
+
+
+    /**
+     * Schedules new timeout.
+     * @param deadline wall-clock time in milliseconds when payload becomes due
+     * @param payload payload that will be passed to expiry consumer
+     * @return timeout handle that can be cancelled
+     */
+    public Timeout<T> schedule(long deadline, T payload) {
+        Timeout<T> timeout = new Timeout<>(payload, deadline);
+
+        // Round up, so a timeout never fires before its deadline
+        long tick = Math.max(this.currentTick, Math.floorDiv(deadline - this.startTime + this.tickMillis - 1, this.tickMillis));
+        timeout.rounds = (tick - this.currentTick) / this.buckets.length;
+
+        Timeout<T> head = this.buckets[(int) (tick & this.mask)];
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+        timeout.wheel = this;
+        this.size++;
+
+        return timeout;
+    }
+
+
+    /**
+     * Advances the wheel up to the given time and passes every payload that became due to
+     * given consumer.
+     * @param now current time in milliseconds
+     * @param expired consumer that receives expired payloads
+     * @return number of expired timeouts
+     */
+    public int advance(long now, Consumer<T> expired) {
+        final long targetTick = Math.floorDiv(now - this.startTime, this.tickMillis);
+        int count = 0;
+
+        while (this.currentTick <= targetTick && this.size > 0) {
+            Timeout<T> head = this.buckets[(int) (this.currentTick & this.mask)];
+            Timeout<T> timeout = head.next;
+
+            while (timeout != head) {
+                Timeout<T> next = timeout.next;
+
+                if (timeout.rounds <= 0) {
+                    timeout.unlink();
+                    expired.accept(timeout.payload);
+                    count++;
+                } else {
+                    timeout.rounds--;
+                }
+
+                timeout = next;
+            }
+
+            this.currentTick++;
+        }
+
+        // Nothing left to process, so skip directly to the target tick
+        if (this.size == 0 && this.currentTick <= targetTick) {
+            this.currentTick = targetTick + 1;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * @return number of pending timeouts
+     */
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * Handle of one scheduled timeout.
+     *
+     * @param <T> type of payload
+     */
+    public static class Timeout<T> {
+
+        private final T payload;
+
+        private final long deadline;
+
+        private long rounds;
+
+        private Timeout<T> next;
+
+        private Timeout<T> previous;
+
+        private TimingWheel<T> wheel;
+
+
+        private Timeout(T payload, long deadline) {
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+
+        /**
+         * @return the payload
+         */
+        public T getPayload() {
+            return this.payload;
+        }
+
+
+        /**
+         * @return wall-clock deadline in milliseconds
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+
+        /**
+         * @return true if timeout is still waiting in the wheel
+         */
+        public boolean isPending() {
+            return this.wheel != null;
+        }
+
+
+        /**
+         * Removes this timeout from the wheel.
+         * @return true if timeout was pending
+         */
+        public boolean cancel() {
+            if (this.wheel == null) {
+                return false;
+            }
+
+            this.unlink();
+            return true;
+        }
+
+
+        private void unlink() {
+            this.previous.next = this.next;
+            this.next.previous = this.previous;
+            this.next = null;
+            this.previous = null;
+            this.wheel.size--;
+            this.wheel = null;
+        }
+    }
+}
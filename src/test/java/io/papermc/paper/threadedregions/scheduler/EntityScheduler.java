@@ -0,0 +1,11 @@
+package io.papermc.paper.threadedregions.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Test stub of the Folia entity scheduler, with the methods IslandFly uses.
+ */
+public interface EntityScheduler {
+
+    boolean execute(Plugin plugin, Runnable run, Runnable retired, long delay);
+}
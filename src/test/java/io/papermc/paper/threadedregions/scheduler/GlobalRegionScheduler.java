@@ -0,0 +1,13 @@
+package io.papermc.paper.threadedregions.scheduler;
+
+import java.util.function.Consumer;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Test stub of the Folia global region scheduler, with the methods IslandFly uses.
+ */
+public interface GlobalRegionScheduler {
+
+    ScheduledTask runAtFixedRate(Plugin plugin, Consumer<ScheduledTask> task, long initialDelayTicks, long periodTicks);
+}
@@ -0,0 +1,9 @@
+package io.papermc.paper.threadedregions.scheduler;
+
+/**
+ * Test stub of a Folia scheduled task, with the methods IslandFly uses.
+ */
+public interface ScheduledTask {
+
+    void cancel();
+}
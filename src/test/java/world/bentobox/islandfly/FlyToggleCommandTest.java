@@ -5,10 +5,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -20,8 +22,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.util.BoundingBox;
-import org.bukkit.util.Vector;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.After;
 import org.junit.Before;
@@ -34,13 +34,25 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import world.bentobox.bentobox.BentoBox;
+import world.bentobox.bentobox.api.addons.GameModeAddon;
 import world.bentobox.bentobox.api.commands.CompositeCommand;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.bentobox.managers.CommandsManager;
+import world.bentobox.bentobox.managers.IslandWorldManager;
 import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.bentobox.managers.RanksManager;
 import world.bentobox.bentobox.util.Util;
 import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.CommandThrottle;
+import world.bentobox.islandfly.managers.FlyState;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.level.Level;
 
 /**
  * @author tastybento
@@ -70,7 +82,9 @@ public class FlyToggleCommandTest {
     private Island island;
     private Settings settings;
     @Mock
-    private BoundingBox box;
+    private IslandWorldManager iwm;
+    @Mock
+    private GameModeAddon gameMode;
 
 
     /**
@@ -122,11 +136,31 @@ public class FlyToggleCommandTest {
         settings = new Settings();
         when(addon.getSettings()).thenReturn(settings);
 
+        // Flight policy
+        when(addon.getPlugin()).thenReturn(plugin);
+        when(addon.getIslands()).thenReturn(im);
+        when(plugin.getIWM()).thenReturn(iwm);
+        when(iwm.getAddon(any())).thenReturn(Optional.of(gameMode));
+        when(gameMode.getPermissionPrefix()).thenReturn("bskyblock.");
+        when(addon.getFlightPolicy()).thenReturn(new FlightPolicyEvaluator(addon));
+        // Stats
+        when(addon.getStats()).thenReturn(new FlyStats(true));
+        // Messages
+        when(addon.getMessages()).thenReturn(new MessageTemplateCache(addon));
+        when(addon.getAlerts()).thenReturn(new AlertLimiter(addon));
+        // Command throttle
+        when(addon.getCommandThrottle()).thenReturn(new CommandThrottle(addon));
+        // Flyers
+        when(addon.getFlyers()).thenReturn(new FlyerRegistry());
+
         // Island
-        when(island.getProtectionBoundingBox()).thenReturn(box);
-        when(location.toVector()).thenReturn(new Vector(0,60,0));
-        // Locations are always inside the box for now
-        when(box.contains(any(Vector.class))).thenReturn(true);
+        when(island.getUniqueId()).thenReturn("island1");
+        when(location.getY()).thenReturn(60D);
+        // Locations are inside the protection range unless moved
+        when(island.getMinProtectedX()).thenReturn(-50);
+        when(island.getMaxProtectedX()).thenReturn(50);
+        when(island.getMinProtectedZ()).thenReturn(-50);
+        when(island.getMaxProtectedZ()).thenReturn(50);
 
         ftc = new FlyToggleCommand(ic, addon);
     }
@@ -185,12 +219,50 @@ public class FlyToggleCommandTest {
         assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
     }
 
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteSpawnNoPermissionFlagAllowed() {
+        // Without flyspawn, spawn is checked like any other island
+        when(island.isSpawn()).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        when(user.hasPermission(anyString())).thenReturn(false);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user, never()).sendMessage(anyString());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteSpawnNoPermissionFlagDenied() {
+        when(island.isSpawn()).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
+        when(user.hasPermission(anyString())).thenReturn(false);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.command.not-allowed-fly");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteSpawnNoPermissionOutsideRange() {
+        when(island.isSpawn()).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        when(user.hasPermission(anyString())).thenReturn(false);
+        when(location.getBlockX()).thenReturn(100);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.outside-protection-range");
+    }
+
     /**
      * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
      */
     @Test
     public void testCanExecuteNotAllowedFlagNoPermission() {
-        when(island.isAllowed(eq(user), any())).thenReturn(false);
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
         when(user.hasPermission(anyString())).thenReturn(false);
         assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
         verify(user).sendMessage("islandfly.command.not-allowed-fly");
@@ -200,7 +272,7 @@ public class FlyToggleCommandTest {
      */
     @Test
     public void testCanExecuteNoFlagAllowedPermission() {
-        when(island.isAllowed(eq(user), any())).thenReturn(false);
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
         when(user.hasPermission(anyString())).thenReturn(true);
         assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
         verify(user, never()).sendMessage(anyString());
@@ -210,7 +282,7 @@ public class FlyToggleCommandTest {
      */
     @Test
     public void testCanExecuteFlagAllowed() {
-        when(island.isAllowed(eq(user), any())).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
         when(user.hasPermission(anyString())).thenReturn(false);
         assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
         verify(user, never()).sendMessage(anyString());
@@ -221,9 +293,9 @@ public class FlyToggleCommandTest {
      */
     @Test
     public void testCanExecuteOutsideProtectionRange() {
-        when(island.isAllowed(eq(user), any())).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
         when(user.hasPermission(anyString())).thenReturn(false);
-        when(box.contains(any(Vector.class))).thenReturn(false);
+        when(location.getBlockX()).thenReturn(100);
         assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
         verify(user).sendMessage("islandfly.outside-protection-range");
     }
@@ -234,23 +306,147 @@ public class FlyToggleCommandTest {
     @Test
     public void testCanExecuteOutsideProtectionRangeCommandAllowed() {
         settings.setAllowCommandOutsideProtectionRange(true);
-        when(island.isAllowed(eq(user), any())).thenReturn(true);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
         when(user.hasPermission(anyString())).thenReturn(false);
-        when(box.contains(any(Vector.class))).thenReturn(false);
+        when(location.getBlockX()).thenReturn(100);
         assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
         verify(user, never()).sendMessage(anyString());
     }
 
+    /**
+     * Sets island level below fly-min-level.
+     */
+    private void setLevelTooLow() {
+        settings.setFlyMinLevel(10);
+        when(addon.getLevelAddon()).thenReturn(mock(Level.class));
+        LevelCache levelCache = mock(LevelCache.class);
+        when(levelCache.getLevel(any())).thenReturn(5L);
+        when(addon.getLevelCache()).thenReturn(levelCache);
+        when(addon.getMessages()).thenReturn(mock(MessageTemplateCache.class));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteLevelTooLow() {
+        setLevelTooLow();
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(addon.getMessages()).send(user, "islandfly.fly-min-level-alert", 10L);
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteFlagCheckedBeforeLevel() {
+        setLevelTooLow();
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
+        when(user.hasPermission(anyString())).thenReturn(false);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.command.not-allowed-fly");
+        verify(addon.getMessages(), never()).send(any(), anyString(), anyLong());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteRangeCheckedBeforeLevel() {
+        setLevelTooLow();
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        when(location.getBlockX()).thenReturn(100);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.outside-protection-range");
+        verify(addon.getMessages(), never()).send(any(), anyString(), anyLong());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteThrottled() {
+        settings.setCommandBurst(1);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.command.cooldown");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteThrottleBypass() {
+        settings.setCommandBurst(1);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        when(user.hasPermission("bskyblock.island.fly.nocooldown")).thenReturn(true);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user, never()).sendMessage("islandfly.command.cooldown");
+        // Permission is checked only once the bucket is empty
+        verify(user, times(1)).hasPermission("bskyblock.island.fly.nocooldown");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteNotThrottledByDefault() {
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        }
+
+        verify(user, never()).sendMessage("islandfly.command.cooldown");
+        // Bypass permission is not checked while the cooldown is off
+        verify(user, never()).hasPermission("bskyblock.island.fly.nocooldown");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteDisableNotThrottled() {
+        settings.setCommandBurst(1);
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        // Player that turns fly off is not refused
+        when(p.getAllowFlight()).thenReturn(true);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user, never()).sendMessage("islandfly.command.cooldown");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#canExecute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
+     */
+    @Test
+    public void testCanExecuteMemo() {
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        assertTrue(ftc.canExecute(user, "fly", Collections.emptyList()));
+        // Second use in the same place reuses the decision
+        verify(im, times(1)).getIslandAt(any());
+        // Moving out of the protection range is seen at once
+        when(location.getBlockX()).thenReturn(100);
+        assertFalse(ftc.canExecute(user, "fly", Collections.emptyList()));
+        verify(user).sendMessage("islandfly.outside-protection-range");
+    }
+
     /**
      * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#execute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
      */
     @Test //I don't know what to do here
     public void testExecuteUserStringListOfStringAllowedFlight() {
         when(p.getAllowFlight()).thenReturn(true);
+        when(p.isFlying()).thenReturn(true);
         ftc.execute(user, "fly", Collections.emptyList());
         verify(p).setFlying(false);
         verify(p).setAllowFlight(false);
         verify(user).sendMessage("islandfly.disable-fly");
+        assertFalse(addon.getFlyers().isFlightEnabled(uuid));
     }
     /**
      * Test method for {@link world.bentobox.islandfly.FlyToggleCommand#execute(world.bentobox.bentobox.api.user.User, java.lang.String, java.util.List)}.
@@ -260,5 +456,6 @@ public class FlyToggleCommandTest {
         ftc.execute(user, "fly", Collections.emptyList());
         verify(p).setAllowFlight(true);
         verify(user).sendMessage("islandfly.enable-fly");
+        assertEquals(FlyState.ALLOWED, addon.getFlyers().getState(uuid));
     }
 }
@@ -1,5 +1,6 @@
 package world.bentobox.islandfly;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -19,6 +20,7 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -45,6 +47,8 @@ import world.bentobox.islandfly.listeners.FlyDeathListener;
 import world.bentobox.islandfly.listeners.FlyFlagListener;
 import world.bentobox.islandfly.listeners.FlyListener;
 import world.bentobox.islandfly.listeners.FlyLogoutListener;
+import world.bentobox.islandfly.managers.PlayerCheckBatch;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
 
 /**
  * @author tastybento
@@ -191,6 +195,24 @@ public class IslandFlyAddonTest {
         verify(plugin, never()).log(anyString());
     }
 
+    /**
+     * Test method for {@link world.bentobox.islandfly.IslandFlyAddon#onDisable()}.
+     */
+    @Test
+    public void testOnDisableCancelsTickers() {
+        ifa.onLoad();
+        TestFlyScheduler scheduler = new TestFlyScheduler(false);
+        Whitebox.setInternalState(ifa, "scheduler", scheduler);
+        FlyListener listener = new FlyListener(ifa);
+        Whitebox.setInternalState(ifa, "flyListener", listener);
+        PlayerCheckBatch deferredChecks = Whitebox.getInternalState(listener, "deferredChecks");
+        deferredChecks.add(UUID.randomUUID());
+        assertEquals(1, scheduler.getTimerCount());
+        ifa.onDisable();
+        assertEquals(0, scheduler.getTimerCount());
+        assertEquals(0, deferredChecks.size());
+    }
+
     /**
      * Test method for {@link world.bentobox.islandfly.IslandFlyAddon#getSettings()}.
      */
@@ -0,0 +1,85 @@
+package world.bentobox.islandfly.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SettingsDiff}.
+ */
+public class SettingsDiffTest {
+
+    private Settings previous;
+    private Settings current;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        previous = new Settings();
+        current = new Settings();
+    }
+
+    /**
+     * Test method for {@link SettingsDiff#of(Settings, Settings)}.
+     */
+    @Test
+    public void testSameSettings() {
+        // Settings that are read on every use need no action
+        current.setFlyDisableOnLogout(true);
+        current.setLevelCacheTtl(10);
+        SettingsDiff diff = SettingsDiff.of(previous, current);
+        assertTrue(diff.isEmpty());
+        assertFalse(diff.isFlyRuleChanged());
+    }
+
+    /**
+     * Test method for {@link SettingsDiff#of(Settings, Settings)}.
+     */
+    @Test
+    public void testFlyRules() {
+        current.setFlyMinLevel(10);
+        current.setAllowCommandOutsideProtectionRange(true);
+        SettingsDiff diff = SettingsDiff.of(previous, current);
+        assertTrue(diff.has(SettingsDiff.Change.FLY_MIN_LEVEL));
+        assertTrue(diff.has(SettingsDiff.Change.COMMAND_RANGE));
+        assertTrue(diff.isFlyRuleChanged());
+        assertEquals("fly-min-level, allow-command-outside-protection-range", diff.toString());
+    }
+
+    /**
+     * Test method for {@link SettingsDiff#isFlyRuleChanged()}.
+     */
+    @Test
+    public void testCommandRangeIsNotFlyRule() {
+        current.setAllowCommandOutsideProtectionRange(true);
+        SettingsDiff diff = SettingsDiff.of(previous, current);
+        assertTrue(diff.has(SettingsDiff.Change.COMMAND_RANGE));
+        // Only the fly command reads it, flying players need no re-check
+        assertFalse(diff.isFlyRuleChanged());
+    }
+
+    /**
+     * Test method for {@link SettingsDiff#of(Settings, Settings)}.
+     */
+    @Test
+    public void testOtherChanges() {
+        current.setFlyTimeout(1);
+        current.setDisabledGameModes(Set.of("AcidIsland"));
+        current.setMetricsPort(9000);
+        current.setCountdownMode("boss-bar");
+        SettingsDiff diff = SettingsDiff.of(previous, current);
+        assertTrue(diff.has(SettingsDiff.Change.FLY_TIMEOUT));
+        assertTrue(diff.has(SettingsDiff.Change.DISABLED_GAMEMODES));
+        assertTrue(diff.has(SettingsDiff.Change.METRICS));
+        assertTrue(diff.has(SettingsDiff.Change.COUNTDOWN));
+        assertFalse(diff.has(SettingsDiff.Change.STATS));
+        // Grace timers are shortened, players are not checked again
+        assertFalse(diff.isFlyRuleChanged());
+    }
+}
@@ -0,0 +1,91 @@
+package world.bentobox.islandfly.database.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FlyData}.
+ */
+public class FlyDataTest {
+
+    private FlyData data;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        data = new FlyData("player");
+    }
+
+    /**
+     * Test method for {@link FlyData#getFlyState(String)}.
+     */
+    @Test
+    public void testGetFlyStateUnknown() {
+        assertNull(data.getFlyState("island"));
+    }
+
+    /**
+     * Test method for {@link FlyData#setFlyState(String, boolean)}.
+     */
+    @Test
+    public void testSetFlyState() {
+        data.setFlyState("island1", true);
+        data.setFlyState("island2", false);
+        assertTrue(data.getFlyState("island1"));
+        assertFalse(data.getFlyState("island2"));
+        data.setFlyState("island1", false);
+        assertFalse(data.getFlyState("island1"));
+        assertEquals(2, data.getIslands().size());
+    }
+
+    /**
+     * Test method for {@link FlyData#setFlyState(String, boolean)}.
+     */
+    @Test
+    public void testSetFlyStateManyIslands() {
+        for (int i = 0; i < 130; i++) {
+            data.setFlyState("island" + i, i % 3 == 0);
+        }
+        for (int i = 0; i < 130; i++) {
+            assertEquals(i % 3 == 0, data.getFlyState("island" + i));
+        }
+        assertEquals(3, data.getFlying().length);
+    }
+
+    /**
+     * Test method for {@link FlyData#removeIsland(String)}.
+     */
+    @Test
+    public void testRemoveIsland() {
+        data.setFlyState("island1", false);
+        data.setFlyState("island2", false);
+        data.setFlyState("island3", true);
+        assertTrue(data.removeIsland("island1"));
+        assertFalse(data.removeIsland("island1"));
+        assertNull(data.getFlyState("island1"));
+        assertFalse(data.getFlyState("island2"));
+        assertTrue(data.getFlyState("island3"));
+        assertEquals(2, data.getIslands().size());
+    }
+
+    /**
+     * Loaded data has no index yet, so it must be rebuilt from the island list.
+     */
+    @Test
+    public void testLoadedData() {
+        FlyData loaded = new FlyData();
+        loaded.setIslands(new ArrayList<>(List.of("a", "b")));
+        loaded.setFlying(new long[] {2L});
+        assertFalse(loaded.getFlyState("a"));
+        assertTrue(loaded.getFlyState("b"));
+    }
+}
@@ -0,0 +1,31 @@
+package world.bentobox.islandfly.jfr;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+
+/**
+ * Tests for {@link FlagSweepEvent}.
+ */
+public class FlagSweepEventTest {
+
+    /**
+     * Test method for {@link FlagSweepEvent#isRecording()}.
+     */
+    @Test
+    public void testIsRecording() {
+        assertFalse(FlagSweepEvent.isRecording());
+
+        try (Recording recording = new Recording()) {
+            recording.enable(FlagSweepEvent.class);
+            recording.start();
+            assertTrue(FlagSweepEvent.isRecording());
+            recording.stop();
+        }
+
+        assertFalse(FlagSweepEvent.isRecording());
+    }
+}
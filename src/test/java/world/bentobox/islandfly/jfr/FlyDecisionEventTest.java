@@ -0,0 +1,31 @@
+package world.bentobox.islandfly.jfr;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+
+/**
+ * Tests for {@link FlyDecisionEvent}.
+ */
+public class FlyDecisionEventTest {
+
+    /**
+     * Test method for {@link FlyDecisionEvent#isRecording()}.
+     */
+    @Test
+    public void testIsRecording() {
+        assertFalse(FlyDecisionEvent.isRecording());
+
+        try (Recording recording = new Recording()) {
+            recording.enable(FlyDecisionEvent.class);
+            recording.start();
+            assertTrue(FlyDecisionEvent.isRecording());
+            recording.stop();
+        }
+
+        assertFalse(FlyDecisionEvent.isRecording());
+    }
+}
@@ -1,6 +1,7 @@
 package world.bentobox.islandfly.listeners;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -39,8 +40,19 @@ import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
 import world.bentobox.bentobox.managers.LocalesManager;
 import world.bentobox.bentobox.managers.PlaceholdersManager;
+import world.bentobox.bentobox.managers.PlayersManager;
+import world.bentobox.bentobox.managers.RanksManager;
 import world.bentobox.islandfly.IslandFlyAddon;
 import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.FlyState;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.BukkitFlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
 
 /**
  * @author tastybento
@@ -73,6 +85,7 @@ public class FlyFlagListenerTest {
     private Island island;
     @Mock
     private Spigot spigot;
+    private FlyerRegistry flyers;
 
     /**
      * @throws java.lang.Exception
@@ -88,10 +101,25 @@ public class FlyFlagListenerTest {
         PlaceholdersManager phm = mock(PlaceholdersManager.class);
         when(plugin.getPlaceholdersManager()).thenReturn(phm);
         when(phm.replacePlaceholders(any(), anyString())).thenAnswer((Answer<String>) invocation -> invocation.getArgument(1, String.class));
+        PlayersManager pm = mock(PlayersManager.class);
+        when(pm.getLocale(any())).thenReturn("en-US");
+        when(plugin.getPlayers()).thenReturn(pm);
+        when(addon.getMessages()).thenReturn(new MessageTemplateCache(addon));
+        when(addon.getAlerts()).thenReturn(new AlertLimiter(addon));
 
         // Settings
         when(settings.getFlyTimeout()).thenReturn(5);
         when(addon.getSettings()).thenReturn(settings);
+        // Scheduler
+        when(addon.getScheduler()).thenReturn(new BukkitFlyScheduler(plugin));
+        // Work queue
+        when(addon.getWorkQueue()).thenReturn(new WorkQueue(addon));
+        // Grace timers
+        when(addon.getGraceTimers()).thenReturn(new GraceTimerManager(addon));
+        // Flight policy
+        when(addon.getFlightPolicy()).thenReturn(new FlightPolicyEvaluator(addon));
+        // Stats
+        when(addon.getStats()).thenReturn(new FlyStats(true));
         // Bukkit
         PowerMockito.mockStatic(Bukkit.class);
         when(Bukkit.getScheduler()).thenReturn(scheduler);
@@ -109,6 +137,7 @@ public class FlyFlagListenerTest {
        when(p2.spigot()).thenReturn(spigot);
         User.getInstance(p2);
         when(p2.isFlying()).thenReturn(true);
+        when(p2.getAllowFlight()).thenReturn(true);
         when(p2.isOnline()).thenReturn(true);
         when(p2.getLocation()).thenReturn(mock(Location.class));
          when(p3.getUniqueId()).thenReturn(UUID.randomUUID());
@@ -124,10 +153,20 @@ public class FlyFlagListenerTest {
         list.add(p2);
         list.add(p3);
         list.add(op);
-        when(island.getPlayersOnIsland()).thenReturn(list);
+        // Flyers
+        flyers = new FlyerRegistry();
+        for (Player player : list) {
+            when(Bukkit.getPlayer(player.getUniqueId())).thenReturn(player);
+            flyers.update(player.getUniqueId(), player.isFlying());
+        }
+        when(addon.getFlyers()).thenReturn(flyers);
         // One player is allowed, others not
-        when(island.isAllowed(any(), any())).thenReturn(true, false);
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
+        when(island.getRank(any(User.class))).thenAnswer((Answer<Integer>) invocation ->
+        invocation.getArgument(0, User.class).getPlayer() == p1 ? RanksManager.MEMBER_RANK : RanksManager.VISITOR_RANK);
         when(island.onIsland(any())).thenReturn(true);
+        when(island.getPlayersOnIsland()).thenReturn(list);
         
         ffl = new FlyFlagListener(addon);
     }
@@ -162,9 +201,36 @@ public class FlyFlagListenerTest {
         this.checkSpigotMessage("islandfly.fly-turning-off-alert");
         verify(p3, never()).sendMessage(anyString());
         verify(op, never()).sendMessage(anyString());
-        verify(scheduler).runTaskLater(eq(plugin), any(Runnable.class), eq(100L));
+        verify(scheduler).runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L));
+        assertEquals(1, addon.getGraceTimers().getPendingCount());
+        assertEquals(FlyState.GRACE, flyers.getState(p2.getUniqueId()));
+        assertEquals(FlyState.FLYING, flyers.getState(p1.getUniqueId()));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyFlagListener#onFlagChange(world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent)}.
+     */
+    @Test
+    public void testOnFlagChangeGrounded() {
+        flyers.ground(p2.getUniqueId());
+        when(p2.getAllowFlight()).thenReturn(false);
+        ffl.onFlagChange(e);
+        checkSpigotMessage("islandfly.fly-turning-off-alert", 0);
+        assertEquals(0, addon.getGraceTimers().getPendingCount());
     }
     
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyFlagListener#onFlagChange(world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent)}.
+     */
+    @Test
+    public void testOnFlagChangeNotRegistered() {
+        // Fly was given without IslandFly
+        flyers.ground(p2.getUniqueId());
+        ffl.onFlagChange(e);
+        this.checkSpigotMessage("islandfly.fly-turning-off-alert");
+        assertEquals(FlyState.GRACE, flyers.getState(p2.getUniqueId()));
+    }
+
     /**
      * Test method for {@link world.bentobox.islandfly.listeners.FlyFlagListener#onFlagChange(world.bentobox.bentobox.api.events.flags.FlagProtectionChangeEvent)}.
      */
@@ -180,6 +246,7 @@ public class FlyFlagListenerTest {
         verify(p2).setFlying(false);
         verify(p2).setAllowFlight(false);
         checkSpigotMessage("islandfly.disable-fly");
+        assertFalse(flyers.isFlightEnabled(p2.getUniqueId()));
         
     }
 
@@ -188,7 +255,7 @@ public class FlyFlagListenerTest {
      */
     @Test
     public void testDisableAllowedAgain() {
-        when(island.isAllowed(any(), any())).thenReturn(true);
+        when(island.getRank(any(User.class))).thenReturn(RanksManager.MEMBER_RANK);
         ffl.disable(p2, User.getInstance(p2), island);
         checkSpigotMessage("islandfly.reallowed-fly");
     }
@@ -198,7 +265,7 @@ public class FlyFlagListenerTest {
      */
     @Test
     public void testDisable() {
-        when(island.isAllowed(any(), any())).thenReturn(false);
+        when(island.getRank(any(User.class))).thenReturn(RanksManager.VISITOR_RANK);
         ffl.disable(p2, User.getInstance(p2), island);
         this.checkSpigotMessage("islandfly.disable-fly");
     }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
@@ -22,7 +23,9 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Player.Spigot;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.After;
 import org.junit.Before;
@@ -37,6 +40,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import net.md_5.bungee.api.chat.TextComponent;
 import world.bentobox.bentobox.BentoBox;
 import world.bentobox.bentobox.api.addons.GameModeAddon;
+import world.bentobox.bentobox.api.events.island.IslandEnterEvent;
 import world.bentobox.bentobox.api.events.island.IslandExitEvent;
 import world.bentobox.bentobox.api.user.User;
 import world.bentobox.bentobox.database.objects.Island;
@@ -44,8 +48,21 @@ import world.bentobox.bentobox.managers.IslandWorldManager;
 import world.bentobox.bentobox.managers.IslandsManager;
 import world.bentobox.bentobox.managers.LocalesManager;
 import world.bentobox.bentobox.managers.PlaceholdersManager;
+import world.bentobox.bentobox.managers.PlayersManager;
+import world.bentobox.bentobox.managers.RanksManager;
 import world.bentobox.islandfly.IslandFlyAddon;
 import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.managers.AlertLimiter;
+import world.bentobox.islandfly.managers.FlyState;
+import world.bentobox.islandfly.managers.FlyStateStore;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.MessageTemplateCache;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.BukkitFlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.level.Level;
 
 /**
  * @author tastybento
@@ -87,6 +104,9 @@ public class FlyListenerTest {
     private Settings settings;
     @Mock
     private Spigot spigot;
+    private FlyerRegistry flyers;
+    @Mock
+    private FlyStateStore flyStates;
 
     /**
      */
@@ -97,9 +117,11 @@ public class FlyListenerTest {
         Optional<Island> opIsland1 = Optional.of(island);
         opIsland2 = Optional.of(island2);
         when(im.getProtectedIslandAt(any())).thenReturn(opIsland1);
-        // Island
-        when(island.isAllowed(any(), any())).thenReturn(true);
-        when(island2.isAllowed(any(), any())).thenReturn(false);
+        // Island - fly is allowed on island, but not on island2
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island2.getUniqueId()).thenReturn("island2");
+        when(island.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
+        when(island2.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
         // User
         uuid = UUID.randomUUID();
         when(p.getUniqueId()).thenReturn(uuid);
@@ -109,6 +131,7 @@ public class FlyListenerTest {
         when(p.hasPermission(eq("bskyblock.island.fly"))).thenReturn(true);
         when(p.isOp()).thenReturn(false);
         when(p.isFlying()).thenReturn(true);
+        when(p.getAllowFlight()).thenReturn(true);
         when(p.getGameMode()).thenReturn(GameMode.SURVIVAL);
         when(p.spigot()).thenReturn(spigot);
         User.setPlugin(plugin);
@@ -133,6 +156,20 @@ public class FlyListenerTest {
         // settings
         when(settings.getFlyTimeout()).thenReturn(5);
         when(addon.getSettings()).thenReturn(settings);
+        // Scheduler
+        when(addon.getScheduler()).thenReturn(new BukkitFlyScheduler(plugin));
+        // Grace timers
+        when(addon.getGraceTimers()).thenReturn(new GraceTimerManager(addon));
+        // Flight policy
+        when(addon.getFlightPolicy()).thenReturn(new FlightPolicyEvaluator(addon));
+        // Stats
+        when(addon.getStats()).thenReturn(new FlyStats(true));
+        // Flyers
+        flyers = new FlyerRegistry();
+        flyers.update(uuid, true);
+        when(addon.getFlyers()).thenReturn(flyers);
+        // Fly states
+        when(addon.getFlyStates()).thenReturn(flyStates);
         // Locales
         LocalesManager lm = mock(LocalesManager.class);
         when(lm.get(any(), any())).thenAnswer(invocation -> invocation.getArgument(1, String.class));
@@ -141,6 +178,11 @@ public class FlyListenerTest {
         when(phm.replacePlaceholders(any(), any())).thenAnswer(invocation -> invocation.getArgument(1, String.class));
         // Placeholder manager
         when(plugin.getPlaceholdersManager()).thenReturn(phm);
+        PlayersManager pm = mock(PlayersManager.class);
+        when(pm.getLocale(any())).thenReturn("en-US");
+        when(plugin.getPlayers()).thenReturn(pm);
+        when(addon.getMessages()).thenReturn(new MessageTemplateCache(addon));
+        when(addon.getAlerts()).thenReturn(new AlertLimiter(addon));
 
 
         fl = new FlyListener(addon);
@@ -162,10 +204,146 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch).runTaskLater(eq(plugin), any(Runnable.class), eq(100L));
+        verify(sch).runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L));
+        assertTrue(addon.getGraceTimers().isPending(uuid));
+        assertEquals(FlyState.GRACE, flyers.getState(uuid));
         checkSpigotMessage("islandfly.fly-outside-alert");
     }
 
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onExitIsland(world.bentobox.bentobox.api.events.island.IslandExitEvent)}.
+     */
+    @Test
+    public void testOnExitIslandGrounded() {
+        flyers.ground(uuid);
+        when(p.getAllowFlight()).thenReturn(false);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        IslandExitEvent event = mock(IslandExitEvent.class);
+        when(event.getPlayerUUID()).thenReturn(uuid);
+        fl.onExitIsland(event);
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
+        verify(p, never()).isFlying();
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onExitIsland(world.bentobox.bentobox.api.events.island.IslandExitEvent)}.
+     */
+    @Test
+    public void testOnExitIslandNotRegistered() {
+        // Fly was given without IslandFly
+        flyers.ground(uuid);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        IslandExitEvent event = mock(IslandExitEvent.class);
+        when(event.getPlayerUUID()).thenReturn(uuid);
+        fl.onExitIsland(event);
+        assertTrue(addon.getGraceTimers().isPending(uuid));
+        assertEquals(FlyState.GRACE, flyers.getState(uuid));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onExitIsland(world.bentobox.bentobox.api.events.island.IslandExitEvent)}.
+     */
+    @Test
+    public void testOnExitIslandTwiceReplacesTimer() {
+        BukkitTask task = mock(BukkitTask.class);
+        when(sch.runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L))).thenReturn(task);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        IslandExitEvent event = mock(IslandExitEvent.class);
+        when(event.getPlayerUUID()).thenReturn(uuid);
+        fl.onExitIsland(event);
+        fl.onExitIsland(event);
+        // One shared ticker drives all timers
+        verify(sch).runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L));
+        verify(task, never()).cancel();
+        assertEquals(1, addon.getGraceTimers().getPendingCount());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onEnterIsland(world.bentobox.bentobox.api.events.island.IslandEnterEvent)}.
+     */
+    @Test
+    public void testOnEnterIslandDestinationNotAllowed() {
+        when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
+        IslandEnterEvent event = mock(IslandEnterEvent.class);
+        when(event.getPlayerUUID()).thenReturn(uuid);
+        when(event.getIsland()).thenReturn(island2);
+        when(event.getLocation()).thenReturn(location);
+        fl.onEnterIsland(event);
+        // Destination is known, so nothing is deferred
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        verify(p).setAllowFlight(false);
+        assertFalse(flyers.isFlightEnabled(uuid));
+        checkSpigotMessage("islandfly.disable-fly");
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onEnterIsland(world.bentobox.bentobox.api.events.island.IslandEnterEvent)}.
+     */
+    @Test
+    public void testOnEnterIslandNoDestinationDeferred() {
+        when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
+        IslandEnterEvent event = mock(IslandEnterEvent.class);
+        when(event.getPlayerUUID()).thenReturn(uuid);
+        when(event.getIsland()).thenReturn(island2);
+        fl.onEnterIsland(event);
+        fl.onEnterIsland(event);
+        // Both entries wait for one batch
+        verify(sch).runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L));
+        verify(p, never()).setAllowFlight(false);
+        assertTrue(flyers.isFlightEnabled(uuid));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onTeleport(PlayerTeleportEvent)}.
+     */
+    @Test
+    public void testOnTeleportDestinationNotAllowed() {
+        when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
+        PlayerTeleportEvent event = mock(PlayerTeleportEvent.class);
+        when(event.getPlayer()).thenReturn(p);
+        when(event.getTo()).thenReturn(location);
+        fl.onTeleport(event);
+        verify(p).setAllowFlight(false);
+        assertFalse(flyers.isFlightEnabled(uuid));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onTeleport(PlayerTeleportEvent)}.
+     */
+    @Test
+    public void testOnTeleportBypassInDestinationWorld() {
+        // Player teleports from a world without game mode to an island world
+        World islandWorld = mock(World.class);
+        Location destination = mock(Location.class);
+        when(destination.getWorld()).thenReturn(islandWorld);
+        when(iwm.getAddon(world)).thenReturn(Optional.empty());
+        when(iwm.getAddon(islandWorld)).thenReturn(Optional.of(gameMode));
+        when(p.hasPermission("bskyblock.island.flybypass")).thenReturn(true);
+        when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
+        PlayerTeleportEvent event = mock(PlayerTeleportEvent.class);
+        when(event.getPlayer()).thenReturn(p);
+        when(event.getTo()).thenReturn(destination);
+        fl.onTeleport(event);
+        verify(p, never()).setAllowFlight(false);
+        assertTrue(flyers.isFlightEnabled(uuid));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#onTeleport(PlayerTeleportEvent)}.
+     */
+    @Test
+    public void testOnTeleportOutsideIsland() {
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        PlayerTeleportEvent event = mock(PlayerTeleportEvent.class);
+        when(event.getPlayer()).thenReturn(p);
+        when(event.getTo()).thenReturn(location);
+        fl.onTeleport(event);
+        // Exit event starts grace period instead
+        verify(p, never()).setAllowFlight(false);
+        assertTrue(flyers.isFlightEnabled(uuid));
+    }
+
     /**
      * Check that spigot sent the message
      * @param message - message to check
@@ -205,7 +383,8 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch, never()).runTaskLater(eq(plugin), any(Runnable.class), any(Long.class));
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
         verify(p, never()).sendMessage(anyString());
     }
 
@@ -219,7 +398,8 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch, never()).runTaskLater(eq(plugin), any(Runnable.class), any(Long.class));
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
         verify(p, never()).sendMessage(anyString());
     }
 
@@ -234,7 +414,8 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch).runTaskLater(eq(plugin), any(Runnable.class), eq(100L));
+        verify(sch).runTaskTimer(eq(plugin), any(Runnable.class), eq(1L), eq(1L));
+        assertTrue(addon.getGraceTimers().isPending(uuid));
         verify(p, never()).sendMessage("islandfly.fly-outside-alert");
     }
 
@@ -248,7 +429,8 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch, never()).runTaskLater(eq(plugin), any(Runnable.class), any(Long.class));
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
         checkSpigotMessage("islandfly.disable-fly");
     }
 
@@ -263,7 +445,8 @@ public class FlyListenerTest {
         IslandExitEvent event = mock(IslandExitEvent.class);
         when(event.getPlayerUUID()).thenReturn(uuid);
         fl.onExitIsland(event);
-        verify(sch, never()).runTaskLater(eq(plugin), any(Runnable.class), any(Long.class));
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
         verify(p, never()).sendMessage("islandfly.disable-fly");
     }
 
@@ -281,7 +464,8 @@ public class FlyListenerTest {
         // Spectator
         when(p.getGameMode()).thenReturn(GameMode.SPECTATOR);
         fl.onExitIsland(event);
-        verify(sch, never()).runTaskLater(eq(plugin), any(Runnable.class), any(Long.class));
+        verify(sch, never()).runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong());
+        assertFalse(addon.getGraceTimers().isPending(uuid));
         verify(p, never()).sendMessage("islandfly.disable-fly");
     }
 
@@ -307,6 +491,7 @@ public class FlyListenerTest {
         verify(p).setFlying(false);
         verify(p).setAllowFlight(false);
         verify(user).sendMessage("islandfly.disable-fly");
+        assertFalse(flyers.isFlightEnabled(uuid));
     }
 
     /**
@@ -334,7 +519,7 @@ public class FlyListenerTest {
      */
     @Test
     public void testRemoveFlyUserFlyingInOtherProtectedIslandAllowed() {
-        when(island2.isAllowed(any(), any())).thenReturn(true);
+        when(island2.getFlag(any())).thenReturn(RanksManager.VISITOR_RANK);
         when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
         assertFalse(fl.removeFly(user));
     }
@@ -344,7 +529,7 @@ public class FlyListenerTest {
      */
     @Test
     public void testRemoveFlyUserFlyingInOwnProtectedIslandNotAllowed() {
-        when(island.isAllowed(any(), any())).thenReturn(false);
+        when(island.getFlag(any())).thenReturn(RanksManager.MEMBER_RANK);
         assertTrue(fl.removeFly(user));
         verify(p).setFlying(false);
         verify(p).setAllowFlight(false);
@@ -374,4 +559,20 @@ public class FlyListenerTest {
         verify(user).sendMessage("islandfly.disable-fly");
     }
 
+    /**
+     * Test method for {@link world.bentobox.islandfly.listeners.FlyListener#removeFly(world.bentobox.bentobox.api.user.User)}.
+     */
+    @Test
+    public void testRemoveFlyLevelCheckedBeforeFlag() {
+        when(settings.getFlyMinLevel()).thenReturn(10L);
+        when(addon.getLevelAddon()).thenReturn(mock(Level.class));
+        LevelCache levelCache = mock(LevelCache.class);
+        when(levelCache.getLevel(any())).thenReturn(5L);
+        when(addon.getLevelCache()).thenReturn(levelCache);
+        // Flag denies fly on island2 too, but low level is the reason
+        when(im.getProtectedIslandAt(any())).thenReturn(opIsland2);
+        assertFalse(fl.removeFly(user));
+        verify(p).setAllowFlight(false);
+    }
+
 }
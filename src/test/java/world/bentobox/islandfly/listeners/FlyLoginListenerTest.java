@@ -0,0 +1,130 @@
+package world.bentobox.islandfly.listeners;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.managers.FlyStateStore;
+import world.bentobox.islandfly.managers.FlyerRegistry;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.WorkPriority;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.policy.FlyRankCache;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
+import world.bentobox.level.Level;
+
+/**
+ * Tests for {@link FlyLoginListener}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlyLoginListenerTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Player p;
+    @Mock
+    private FlyStateStore flyStates;
+    @Mock
+    private WorkQueue workQueue;
+    @Mock
+    private IslandsManager im;
+    @Mock
+    private Island island;
+    @Mock
+    private FlightPolicyEvaluator flightPolicy;
+    @Mock
+    private FlyRankCache rankCache;
+    @Mock
+    private LevelCache levelCache;
+    @Mock
+    private Level level;
+
+    private final UUID uuid = UUID.randomUUID();
+    private Settings settings;
+    private TestFlyScheduler scheduler;
+    private FlyLoginListener listener;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(addon.getStats()).thenReturn(new FlyStats(false));
+        settings = new Settings();
+        // Player is not restored to flying
+        settings.setFlyDisableOnLogout(true);
+        settings.setFlyMinLevel(10);
+        when(addon.getSettings()).thenReturn(settings);
+        scheduler = new TestFlyScheduler(true);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        when(addon.getFlyers()).thenReturn(new FlyerRegistry());
+        when(addon.getFlyStates()).thenReturn(flyStates);
+        when(addon.getWorkQueue()).thenReturn(workQueue);
+        when(addon.getIslands()).thenReturn(im);
+        when(im.getIslands(uuid)).thenReturn(List.of(island));
+        when(addon.getFlightPolicy()).thenReturn(flightPolicy);
+        when(flightPolicy.getRankCache()).thenReturn(rankCache);
+        when(addon.getLevelCache()).thenReturn(levelCache);
+        when(addon.getLevelAddon()).thenReturn(level);
+
+        when(p.getUniqueId()).thenReturn(uuid);
+        listener = new FlyLoginListener(addon);
+    }
+
+    /**
+     * Runs work submitted to the work queue, then tasks of the player.
+     */
+    private void runWarmUp() {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(workQueue).submit(eq(WorkPriority.LOW), captor.capture());
+        captor.getValue().run();
+        scheduler.runPlayer(uuid);
+    }
+
+    /**
+     * Test method for {@link FlyLoginListener#onLogin(PlayerJoinEvent)}.
+     */
+    @Test
+    public void testOnLoginWarmsCaches() {
+        listener.onLogin(new PlayerJoinEvent(p, "join"));
+        verify(flyStates).preload(uuid);
+        // Nothing is read until queued work reaches the player thread
+        verify(im, never()).getIslands(any(UUID.class));
+
+        runWarmUp();
+        verify(rankCache).getMinRank(island);
+        verify(levelCache).getLevel(island);
+    }
+
+    /**
+     * Test method for {@link FlyLoginListener#onLogin(PlayerJoinEvent)}.
+     */
+    @Test
+    public void testOnLoginNoLevelGate() {
+        settings.setFlyMinLevel(0);
+        listener.onLogin(new PlayerJoinEvent(p, "join"));
+        runWarmUp();
+        verify(rankCache).getMinRank(island);
+        verify(levelCache, never()).getLevel(any());
+    }
+}
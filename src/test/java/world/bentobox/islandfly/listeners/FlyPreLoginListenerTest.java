@@ -0,0 +1,80 @@
+package world.bentobox.islandfly.listeners;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent.Result;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.managers.FlyStateStore;
+
+/**
+ * Tests for {@link FlyPreLoginListener}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlyPreLoginListenerTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private FlyStateStore flyStates;
+    @Mock
+    private AsyncPlayerPreLoginEvent event;
+
+    private final UUID uuid = UUID.randomUUID();
+    private FlyPreLoginListener listener;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(addon.getFlyStates()).thenReturn(flyStates);
+        when(event.getUniqueId()).thenReturn(uuid);
+        when(event.getLoginResult()).thenReturn(Result.ALLOWED);
+        listener = new FlyPreLoginListener(addon);
+    }
+
+    /**
+     * Test method for {@link FlyPreLoginListener#onPreLogin(AsyncPlayerPreLoginEvent)}.
+     */
+    @Test
+    public void testOnPreLogin() {
+        listener.onPreLogin(event);
+        verify(flyStates).prefetch(uuid);
+        // Islands and Level addon are not used off the server thread
+        verify(addon, never()).getIslands();
+        verify(addon, never()).getLevelAddon();
+        verify(addon, never()).getLevelCache();
+    }
+
+    /**
+     * Test method for {@link FlyPreLoginListener#onPreLogin(AsyncPlayerPreLoginEvent)}.
+     */
+    @Test
+    public void testOnPreLoginDenied() {
+        when(event.getLoginResult()).thenReturn(Result.KICK_BANNED);
+        listener.onPreLogin(event);
+        verify(flyStates, never()).prefetch(uuid);
+    }
+
+    /**
+     * Test method for {@link FlyPreLoginListener#onPreLogin(AsyncPlayerPreLoginEvent)}.
+     */
+    @Test
+    public void testOnPreLoginDatabaseError() {
+        doThrow(new IllegalStateException("closed")).when(flyStates).prefetch(uuid);
+        listener.onPreLogin(event);
+        verify(addon).logWarning(anyString());
+    }
+}
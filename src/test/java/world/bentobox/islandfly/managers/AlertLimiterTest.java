@@ -0,0 +1,188 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link AlertLimiter}.
+ */
+@RunWith(PowerMockRunner.class)
+public class AlertLimiterTest {
+
+    private static final String OUTSIDE = "islandfly.fly-outside-alert";
+    private static final String COOLDOWN = "islandfly.command.cooldown";
+    private static final String DISABLE = "islandfly.disable-fly";
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private MessageTemplateCache messages;
+    @Mock
+    private User user;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final UUID uuid = UUID.randomUUID();
+    private Settings settings;
+    private FlyStats stats;
+    private AlertLimiter alerts;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        stats = new FlyStats(true);
+        when(addon.getStats()).thenReturn(stats);
+        settings = new Settings();
+        settings.setAlertMergeWindow(3);
+        settings.setAlertBurst(2);
+        settings.setAlertRefill(2);
+        when(addon.getSettings()).thenReturn(settings);
+        when(addon.getMessages()).thenReturn(messages);
+        when(user.getUniqueId()).thenReturn(uuid);
+        alerts = new AlertLimiter(addon, clock::get);
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#alert(User, String)}.
+     */
+    @Test
+    public void testMergeWithinWindow() {
+        alerts.alert(user, COOLDOWN);
+        clock.addAndGet(2000L);
+        alerts.alert(user, COOLDOWN);
+        verify(messages).send(user, COOLDOWN);
+        assertEquals(1, stats.getCount(Counter.ALERT_MERGED));
+        clock.addAndGet(1000L);
+        assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#countdown(User, String, int)}.
+     */
+    @Test
+    public void testCountdownHeldUntilEnd() {
+        alerts.countdown(user, OUTSIDE, 5);
+        // Border hopping within the countdown does not announce it again
+        clock.addAndGet(4000L);
+        alerts.countdown(user, OUTSIDE, 5);
+        verify(messages).send(user, OUTSIDE, 5);
+        assertEquals(1, stats.getCount(Counter.ALERT_MERGED));
+        clock.addAndGet(1000L);
+        assertTrue(alerts.tryAcquire(uuid, OUTSIDE, 5000L, false));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#countdown(User, String, int)}.
+     */
+    @Test
+    public void testCountdownHeldWithoutMergeWindow() {
+        settings.setAlertMergeWindow(0);
+        alerts.countdown(user, OUTSIDE, 5);
+        clock.addAndGet(4000L);
+        alerts.countdown(user, OUTSIDE, 5);
+        verify(messages).send(user, OUTSIDE, 5);
+        assertEquals(1, stats.getCount(Counter.ALERT_MERGED));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#tryAcquire(UUID, String, long, boolean)}.
+     */
+    @Test
+    public void testRateLimit() {
+        assertTrue(alerts.tryAcquire(uuid, OUTSIDE, 0L, true));
+        assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+        // Bucket is empty
+        assertFalse(alerts.tryAcquire(uuid, OUTSIDE, 0L, true));
+        assertEquals(1, stats.getCount(Counter.ALERT_RATE_LIMITED));
+        // One token is earned back every 2 seconds
+        clock.addAndGet(2000L);
+        assertTrue(alerts.tryAcquire(uuid, OUTSIDE, 0L, true));
+        assertFalse(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+        assertEquals(3, stats.getCount(Counter.ALERT_SENT));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#countdown(User, String, int)}.
+     */
+    @Test
+    public void testCountdownNotRateLimited() {
+        assertTrue(alerts.tryAcquire(uuid, OUTSIDE, 0L, true));
+        assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+        // Bucket is empty, but a countdown warning is never dropped
+        alerts.countdown(user, "islandfly.fly-turning-off-alert", 5);
+        verify(messages).send(user, "islandfly.fly-turning-off-alert", 5);
+        assertEquals(0, stats.getCount(Counter.ALERT_RATE_LIMITED));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#notice(User, String)}.
+     */
+    @Test
+    public void testNoticeNeverDropped() {
+        assertTrue(alerts.tryAcquire(uuid, OUTSIDE, 0L, true));
+        assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+        alerts.notice(user, DISABLE);
+        alerts.notice(user, DISABLE);
+        verify(messages, times(2)).send(user, DISABLE);
+        assertEquals(0, stats.getCount(Counter.ALERT_MERGED));
+        assertEquals(0, stats.getCount(Counter.ALERT_RATE_LIMITED));
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#tryAcquire(UUID, String, long, boolean)}.
+     */
+    @Test
+    public void testNoLimits() {
+        settings.setAlertMergeWindow(0);
+        settings.setAlertBurst(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+        }
+    }
+
+    /**
+     * Test method for {@link Settings#getAlertBurst()}.
+     */
+    @Test
+    public void testOffByDefault() {
+        when(addon.getSettings()).thenReturn(new Settings());
+
+        for (int i = 0; i < 10; i++) {
+            alerts.alert(user, COOLDOWN);
+        }
+
+        verify(messages, times(10)).send(user, COOLDOWN);
+    }
+
+    /**
+     * Test method for {@link AlertLimiter#forget(UUID)}.
+     */
+    @Test
+    public void testForget() {
+        alerts.alert(user, COOLDOWN);
+        assertEquals(1, alerts.size());
+        alerts.forget(uuid);
+        assertEquals(0, alerts.size());
+        assertTrue(alerts.tryAcquire(uuid, COOLDOWN, 0L, true));
+    }
+}
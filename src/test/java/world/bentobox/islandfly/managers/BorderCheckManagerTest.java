@@ -0,0 +1,211 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.policy.ProtectionBoxCache;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link BorderCheckManager}.
+ */
+@RunWith(PowerMockRunner.class)
+public class BorderCheckManagerTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Player p;
+    @Mock
+    private Location location;
+    @Mock
+    private World world;
+    @Mock
+    private Island island;
+    @Mock
+    private IslandsManager im;
+    @Mock
+    private FlightPolicyEvaluator policy;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final AtomicInteger runs = new AtomicInteger();
+    private final UUID uuid = UUID.randomUUID();
+    private FlyStats stats;
+    private FlyerRegistry flyers;
+    private TestFlyScheduler scheduler;
+    private BorderCheckManager checks;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        stats = new FlyStats(true);
+        when(addon.getStats()).thenReturn(stats);
+        Settings settings = new Settings();
+        when(addon.getSettings()).thenReturn(settings);
+        scheduler = new TestFlyScheduler(false);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        flyers = new FlyerRegistry();
+        flyers.update(uuid, true);
+        when(addon.getFlyers()).thenReturn(flyers);
+
+        // Island protection range is -50 to 50 on both axes
+        when(island.getMinProtectedX()).thenReturn(-50);
+        when(island.getMaxProtectedX()).thenReturn(50);
+        when(island.getMinProtectedZ()).thenReturn(-50);
+        when(island.getMaxProtectedZ()).thenReturn(50);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.of(island));
+        when(addon.getIslands()).thenReturn(im);
+        when(policy.getBoxCache()).thenReturn(new ProtectionBoxCache());
+        when(addon.getFlightPolicy()).thenReturn(policy);
+
+        // Player is in the middle of the island, flying 1 block per tick
+        when(location.getWorld()).thenReturn(world);
+        when(p.getUniqueId()).thenReturn(uuid);
+        when(p.getLocation()).thenReturn(location);
+        when(p.getVelocity()).thenReturn(new Vector(1, 0, 0));
+        when(p.isOnline()).thenReturn(true);
+        when(p.isFlying()).thenReturn(true);
+
+        checks = new BorderCheckManager(addon, player -> runs.incrementAndGet(), clock::get);
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#delayTicks(double, double, int, int)}.
+     */
+    @Test
+    public void testDelayTicks() {
+        // Half of the crossing time
+        assertEquals(25L, BorderCheckManager.delayTicks(50D, 1D, 2, 100));
+        assertEquals(2L, BorderCheckManager.delayTicks(1D, 1D, 2, 100));
+        assertEquals(100L, BorderCheckManager.delayTicks(50D, 0D, 2, 100));
+        assertEquals(100L, BorderCheckManager.delayTicks(5000D, 1D, 2, 100));
+        assertEquals(2L, BorderCheckManager.delayTicks(-1D, 1D, 2, 100));
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#track(Player)}.
+     */
+    @Test
+    public void testTrackAndRecheck() {
+        checks.track(p);
+        assertTrue(checks.isTracked(uuid));
+        assertEquals(1, scheduler.getTimerCount());
+        clock.addAndGet(20 * 50L);
+        scheduler.tick();
+        assertEquals(0, runs.get());
+        clock.addAndGet(10 * 50L);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+        // Player still flies, so next check is scheduled
+        assertTrue(checks.isTracked(uuid));
+        assertEquals(2, stats.getCount(Counter.BORDER_CHECK_SCHEDULED));
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#track(Player)}.
+     */
+    @Test
+    public void testMovementFasterThanVelocity() {
+        when(p.getVelocity()).thenReturn(new Vector(0, 0, 0));
+        when(location.getX()).thenReturn(0D);
+        checks.track(p);
+        // Velocity is unknown, so first check waits for max interval
+        clock.addAndGet(100 * 50L);
+        when(location.getX()).thenReturn(40D);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+        // Moved 40 blocks in 100 ticks and is 10 blocks from the edge, so half of 25 ticks
+        clock.addAndGet(11 * 50L);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+        clock.addAndGet(50L);
+        scheduler.tick();
+        assertEquals(2, runs.get());
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#track(Player)}.
+     */
+    @Test
+    public void testStopWhenGrounded() {
+        checks.track(p);
+        flyers.ground(uuid);
+        clock.addAndGet(30 * 50L);
+        scheduler.tick();
+        assertEquals(0, runs.get());
+        assertFalse(checks.isTracked(uuid));
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#track(Player)}.
+     */
+    @Test
+    public void testTrackAllowedUntilFlying() {
+        // Player entered with fly allowed, but does not fly yet
+        flyers.update(uuid, false);
+        when(p.isFlying()).thenReturn(false);
+        checks.track(p);
+        clock.addAndGet(30 * 50L);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+        assertTrue(checks.isTracked(uuid));
+        // Player starts flying later and is still checked
+        flyers.update(uuid, true);
+        when(p.isFlying()).thenReturn(true);
+        clock.addAndGet(30 * 50L);
+        scheduler.tick();
+        assertEquals(2, runs.get());
+        assertTrue(checks.isTracked(uuid));
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#track(Player)}.
+     */
+    @Test
+    public void testTrackOutsideIsland() {
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        checks.track(p);
+        assertFalse(checks.isTracked(uuid));
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link BorderCheckManager#untrack(UUID)}.
+     */
+    @Test
+    public void testUntrack() {
+        checks.track(p);
+        checks.untrack(uuid);
+        clock.addAndGet(30 * 50L);
+        scheduler.tick();
+        assertEquals(0, runs.get());
+        assertEquals(0, checks.getTrackedCount());
+    }
+}
@@ -0,0 +1,132 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.policy.FlightDecision;
+
+/**
+ * Tests for {@link CommandThrottle}.
+ */
+@RunWith(PowerMockRunner.class)
+public class CommandThrottleTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Location location;
+    @Mock
+    private World world;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final UUID uuid = UUID.randomUUID();
+    private Settings settings;
+    private CommandThrottle throttle;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        settings = new Settings();
+        settings.setCommandBurst(2);
+        settings.setCommandCooldown(1000);
+        settings.setCommandMemo(500);
+        when(addon.getSettings()).thenReturn(settings);
+        when(location.getWorld()).thenReturn(world);
+        when(location.getBlockX()).thenReturn(10);
+        when(location.getBlockZ()).thenReturn(20);
+        throttle = new CommandThrottle(addon, clock::get);
+    }
+
+    /**
+     * Test method for {@link CommandThrottle#tryAcquire(UUID)}.
+     */
+    @Test
+    public void testTryAcquire() {
+        assertTrue(throttle.isEnabled());
+        assertTrue(throttle.tryAcquire(uuid));
+        assertTrue(throttle.tryAcquire(uuid));
+        assertFalse(throttle.tryAcquire(uuid));
+        clock.addAndGet(500L);
+        assertFalse(throttle.tryAcquire(uuid));
+        // One use is earned back per cooldown
+        clock.addAndGet(500L);
+        assertTrue(throttle.tryAcquire(uuid));
+        assertFalse(throttle.tryAcquire(uuid));
+    }
+
+    /**
+     * Test method for {@link CommandThrottle#tryAcquire(UUID)}.
+     */
+    @Test
+    public void testNoCooldown() {
+        settings.setCommandCooldown(0);
+        assertFalse(throttle.isEnabled());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttle.tryAcquire(uuid));
+        }
+    }
+
+    /**
+     * Test method for {@link CommandThrottle#tryAcquire(UUID)}.
+     */
+    @Test
+    public void testNoBurst() {
+        settings.setCommandBurst(0);
+        assertFalse(throttle.isEnabled());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttle.tryAcquire(uuid));
+        }
+    }
+
+    /**
+     * Test method for {@link CommandThrottle#getMemo(UUID, Location)}.
+     */
+    @Test
+    public void testMemo() {
+        assertNull(throttle.getMemo(uuid, location));
+        throttle.putMemo(uuid, location, FlightDecision.FLAG_DENIED);
+        // Height does not matter
+        when(location.getBlockY()).thenReturn(200);
+        assertEquals(FlightDecision.FLAG_DENIED, throttle.getMemo(uuid, location));
+        when(location.getBlockX()).thenReturn(11);
+        assertNull(throttle.getMemo(uuid, location));
+        when(location.getBlockX()).thenReturn(10);
+        clock.addAndGet(500L);
+        assertNull(throttle.getMemo(uuid, location));
+    }
+
+    /**
+     * Test method for {@link CommandThrottle#clear()}.
+     */
+    @Test
+    public void testClear() {
+        throttle.putMemo(uuid, location, FlightDecision.ALLOWED);
+        throttle.tryAcquire(uuid);
+        throttle.tryAcquire(uuid);
+        throttle.clear();
+        assertNull(throttle.getMemo(uuid, location));
+        // Cooldown is kept
+        assertFalse(throttle.tryAcquire(uuid));
+        throttle.forget(uuid);
+        assertEquals(0, throttle.size());
+    }
+}
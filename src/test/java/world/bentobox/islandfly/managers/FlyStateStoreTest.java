@@ -0,0 +1,260 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.database.Database;
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.database.objects.FlyData;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+
+/**
+ * Tests for {@link FlyStateStore}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlyStateStoreTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Database<FlyData> database;
+    @Mock
+    private IslandsManager im;
+    @Mock
+    private Island island;
+    @Mock
+    private User user;
+    @Mock
+    private User otherUser;
+
+    private final UUID uuid = UUID.randomUUID();
+    private final UUID other = UUID.randomUUID();
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private TestFlyScheduler scheduler;
+    private FlyStateStore store;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(addon.getSettings()).thenReturn(new Settings());
+        scheduler = new TestFlyScheduler(false);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        when(addon.getIslands()).thenReturn(im);
+        when(im.getIslandById(anyString())).thenReturn(Optional.of(island));
+        when(user.getUniqueId()).thenReturn(uuid);
+        when(otherUser.getUniqueId()).thenReturn(other);
+
+        // Both players have stored data
+        when(database.objectExists(anyString())).thenReturn(true);
+        when(database.loadObject(anyString())).thenAnswer(invocation -> new FlyData(invocation.getArgument(0)));
+        store = new FlyStateStore(addon, database, clock::get);
+    }
+
+    /**
+     * Reads data of given players in the background, as on join.
+     * @param playerIds player unique ids
+     */
+    private void join(UUID... playerIds) {
+        for (UUID playerId : playerIds) {
+            store.preload(playerId);
+        }
+        scheduler.runAsyncTasks();
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#setFlyState(UUID, String, boolean)}.
+     */
+    @Test
+    public void testChangesAreCoalesced() {
+        join(uuid);
+        store.setFlyState(uuid, "island1", true);
+        store.setFlyState(uuid, "island1", false);
+        store.setFlyState(uuid, "island2", true);
+        assertEquals(1, store.getDirtyCount());
+        // One flush task for all changes
+        assertEquals(1, scheduler.getTimerCount());
+
+        store.flush();
+        verify(database, times(1)).saveObjectAsync(any());
+        assertEquals(0, store.getDirtyCount());
+        assertEquals(1, scheduler.getCancelledCount());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#flush()}.
+     */
+    @Test
+    public void testPeriodicFlush() {
+        join(uuid, other);
+        store.setFlyState(uuid, "island1", true);
+        store.setFlyState(other, "island1", true);
+        scheduler.tick();
+        verify(database, times(2)).saveObjectAsync(any());
+        assertEquals(0, scheduler.getTimerCount());
+        // Nothing changed since
+        store.flush();
+        verify(database, times(2)).saveObjectAsync(any());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#unload(UUID)}.
+     */
+    @Test
+    public void testUnload() {
+        join(uuid, other);
+        store.setFlyState(uuid, "island1", true);
+        store.setFlyState(other, "island1", true);
+        store.unload(uuid);
+        verify(database, times(1)).saveObjectAsync(any());
+        assertEquals(1, store.getDirtyCount());
+        store.unload(other);
+        verify(database, times(2)).saveObjectAsync(any());
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#removeIsland(String)}.
+     */
+    @Test
+    public void testRemoveIsland() {
+        join(uuid);
+        store.setFlyState(uuid, "island1", true);
+        store.setFlyState(uuid, "island2", true);
+        store.flush();
+        store.removeIsland("island1");
+        assertEquals(1, store.getDirtyCount());
+        assertNull(store.getFlyState(user, "island1"));
+        assertTrue(store.getFlyState(user, "island2"));
+        // Island without remembered states changes nothing
+        store.flush();
+        store.removeIsland("island3");
+        assertEquals(0, store.getDirtyCount());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#getFlyState(User, String)}.
+     */
+    @Test
+    public void testGetFlyStateLoadsInBackground() {
+        assertNull(store.getFlyState(user, "island1"));
+        assertNull(store.getFlyState(user, "island1"));
+        // Database is not read on the calling thread
+        verify(database, never()).objectExists(anyString());
+
+        scheduler.runAsyncTasks();
+        verify(database, times(1)).loadObject(uuid.toString());
+        store.setFlyState(uuid, "island1", true);
+        assertTrue(store.getFlyState(user, "island1"));
+        // Prefetched data was used
+        verify(database, times(1)).loadObject(uuid.toString());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#setFlyState(UUID, String, boolean)}.
+     */
+    @Test
+    public void testSetFlyStateBeforeLoadIsQueued() {
+        store.setFlyState(uuid, "island1", true);
+        // Database is not read on the calling thread
+        verify(database, never()).objectExists(anyString());
+        assertEquals(0, store.getDirtyCount());
+        assertTrue(store.getFlyState(user, "island1"));
+
+        // Queued change is merged into data read in the background
+        scheduler.runAsyncTasks();
+        store.flush();
+        verify(database, times(1)).saveObjectAsync(any());
+        assertTrue(store.getFlyState(user, "island1"));
+        verify(database, times(1)).loadObject(uuid.toString());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#unload(UUID)}.
+     */
+    @Test
+    public void testUnloadBeforeLoadSavesQueuedChanges() {
+        store.setFlyState(uuid, "island1", true);
+        store.unload(uuid);
+        verify(database, never()).saveObjectAsync(any());
+        scheduler.runAsyncTasks();
+        verify(database, times(1)).saveObjectAsync(any());
+        // Nothing is kept for the player who left
+        assertEquals(0, store.getDirtyCount());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#prefetch(UUID)}.
+     */
+    @Test
+    public void testPrefetchExpires() {
+        store.prefetch(other);
+        clock.addAndGet(60_000L);
+        store.prefetch(uuid);
+        // Data of the player who never joined was dropped and is read again
+        assertNull(store.getFlyState(otherUser, "island1"));
+        verify(database, times(1)).loadObject(other.toString());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#preload(UUID)}.
+     */
+    @Test
+    public void testPreloadDroppedAfterUnload() {
+        store.preload(uuid);
+        store.unload(uuid);
+        scheduler.runAsyncTasks();
+        assertNull(store.getFlyState(user, "island1"));
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#prefetch(UUID)}.
+     */
+    @Test
+    public void testPrefetchPrunesDeletedIslands() {
+        FlyData data = new FlyData(uuid.toString());
+        data.setFlyState("island1", true);
+        data.setFlyState("deleted", true);
+        when(database.loadObject(uuid.toString())).thenReturn(data);
+        when(im.getIslandById("deleted")).thenReturn(Optional.empty());
+
+        store.prefetch(uuid);
+        assertTrue(store.getFlyState(user, "island1"));
+        assertNull(store.getFlyState(user, "deleted"));
+        assertEquals(1, store.getDirtyCount());
+    }
+
+    /**
+     * Test method for {@link FlyStateStore#prefetch(UUID)}.
+     */
+    @Test
+    public void testPrefetchNoData() {
+        when(database.objectExists(uuid.toString())).thenReturn(false);
+        store.prefetch(uuid);
+        assertNull(store.getFlyState(user, "island1"));
+        assertFalse(store.getDirtyCount() > 0);
+        verify(database, never()).loadObject(anyString());
+    }
+}
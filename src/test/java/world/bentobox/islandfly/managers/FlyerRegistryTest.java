@@ -0,0 +1,148 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+/**
+ * Tests for {@link FlyerRegistry}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlyerRegistryTest {
+
+    @Mock
+    private Player p;
+
+    private final UUID uuid = UUID.randomUUID();
+    private FlyerRegistry flyers;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(p.getUniqueId()).thenReturn(uuid);
+        flyers = new FlyerRegistry();
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#update(UUID, boolean)}.
+     */
+    @Test
+    public void testUpdate() {
+        assertEquals(FlyState.GROUNDED, flyers.getState(uuid));
+        assertFalse(flyers.isFlightEnabled(uuid));
+        flyers.update(uuid, false);
+        assertEquals(FlyState.ALLOWED, flyers.getState(uuid));
+        flyers.update(uuid, true);
+        assertEquals(FlyState.FLYING, flyers.getState(uuid));
+        assertTrue(flyers.isFlightEnabled(uuid));
+        assertEquals(1, flyers.size());
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#startGrace(UUID)}.
+     */
+    @Test
+    public void testGraceIsKeptByUpdate() {
+        // Grounded player has no fly to end
+        flyers.startGrace(uuid);
+        assertEquals(FlyState.GROUNDED, flyers.getState(uuid));
+
+        flyers.update(uuid, true);
+        flyers.startGrace(uuid);
+        assertEquals(FlyState.GRACE, flyers.getState(uuid));
+        flyers.update(uuid, false);
+        assertEquals(FlyState.GRACE, flyers.getState(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#endGrace(Player)}.
+     */
+    @Test
+    public void testEndGrace() {
+        flyers.update(uuid, true);
+        flyers.startGrace(uuid);
+        when(p.getAllowFlight()).thenReturn(true);
+        when(p.isFlying()).thenReturn(false);
+        flyers.endGrace(p);
+        assertEquals(FlyState.ALLOWED, flyers.getState(uuid));
+
+        flyers.startGrace(uuid);
+        when(p.getAllowFlight()).thenReturn(false);
+        flyers.endGrace(p);
+        assertEquals(FlyState.GROUNDED, flyers.getState(uuid));
+        assertFalse(flyers.isFlightEnabled(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#endGrace(Player)}.
+     */
+    @Test
+    public void testEndGraceWithoutGrace() {
+        flyers.update(uuid, true);
+        when(p.getAllowFlight()).thenReturn(false);
+        flyers.endGrace(p);
+        assertEquals(FlyState.FLYING, flyers.getState(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#ground(UUID)}.
+     */
+    @Test
+    public void testGround() {
+        flyers.update(uuid, true);
+        flyers.startGrace(uuid);
+        flyers.ground(uuid);
+        assertEquals(FlyState.GROUNDED, flyers.getState(uuid));
+        assertFalse(flyers.remove(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#sync(Player)}.
+     */
+    @Test
+    public void testSync() {
+        when(p.getAllowFlight()).thenReturn(true);
+        when(p.isFlying()).thenReturn(true);
+        flyers.sync(p);
+        assertEquals(FlyState.FLYING, flyers.getState(uuid));
+        when(p.getAllowFlight()).thenReturn(false);
+        flyers.sync(p);
+        assertEquals(FlyState.GROUNDED, flyers.getState(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#isFlightEnabled(Player)}.
+     */
+    @Test
+    public void testIsFlightEnabledNotRegistered() {
+        assertFalse(flyers.isFlightEnabled(p));
+        assertEquals(0, flyers.size());
+        // Fly given without IslandFly is registered
+        when(p.getAllowFlight()).thenReturn(true);
+        when(p.isFlying()).thenReturn(true);
+        assertTrue(flyers.isFlightEnabled(p));
+        assertEquals(FlyState.FLYING, flyers.getState(uuid));
+        assertTrue(flyers.getFlightEnabled().contains(uuid));
+    }
+
+    /**
+     * Test method for {@link FlyerRegistry#remove(UUID)}.
+     */
+    @Test
+    public void testRemove() {
+        flyers.update(uuid, false);
+        assertTrue(flyers.remove(uuid));
+        assertFalse(flyers.remove(uuid));
+    }
+}
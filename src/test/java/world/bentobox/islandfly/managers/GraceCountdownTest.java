@@ -0,0 +1,160 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Player.Spigot;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link GraceCountdown}.
+ */
+@RunWith(PowerMockRunner.class)
+public class GraceCountdownTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Player p;
+    @Mock
+    private Spigot spigot;
+    @Mock
+    private MessageTemplateCache messages;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final UUID uuid = UUID.randomUUID();
+    private Settings settings;
+    private TestFlyScheduler scheduler;
+    private GraceTimerManager graceTimers;
+    private GraceCountdown countdown;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(addon.getStats()).thenReturn(new FlyStats(true));
+        settings = new Settings();
+        settings.setCountdownMode(GraceCountdown.ACTION_BAR);
+        when(addon.getSettings()).thenReturn(settings);
+        scheduler = new TestFlyScheduler(false);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        graceTimers = new GraceTimerManager(addon, clock::get);
+        when(addon.getGraceTimers()).thenReturn(graceTimers);
+        when(addon.getMessages()).thenReturn(messages);
+        when(messages.render(any(User.class), eq("islandfly.countdown"), anyLong())).thenReturn("countdown");
+
+        when(p.getUniqueId()).thenReturn(uuid);
+        when(p.isOnline()).thenReturn(true);
+        when(p.spigot()).thenReturn(spigot);
+        countdown = new GraceCountdown(addon);
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#isEnabled(Settings)}.
+     */
+    @Test
+    public void testIsEnabled() {
+        assertTrue(GraceCountdown.isEnabled(settings));
+        settings.setCountdownMode("Boss-Bar");
+        assertTrue(GraceCountdown.isEnabled(settings));
+        settings.setCountdownMode("none");
+        assertFalse(GraceCountdown.isEnabled(settings));
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#start(Player)}.
+     */
+    @Test
+    public void testStartWithoutGraceTimer() {
+        countdown.start(p);
+        assertEquals(0, countdown.size());
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#tick()}.
+     */
+    @Test
+    public void testUpdateOnlyWhenSecondChanges() {
+        graceTimers.schedule(uuid, 3000L, () -> {});
+        countdown.start(p);
+        assertEquals(1, countdown.size());
+        // One grace timer ticker and one countdown ticker
+        assertEquals(2, scheduler.getTimerCount());
+
+        countdown.tick();
+        verify(messages).render(any(User.class), eq("islandfly.countdown"), eq(3L));
+        // Same second is not sent again
+        clock.addAndGet(250L);
+        countdown.tick();
+        clock.addAndGet(750L);
+        countdown.tick();
+        verify(messages).render(any(User.class), eq("islandfly.countdown"), eq(2L));
+        verify(spigot, times(2)).sendMessage(eq(ChatMessageType.ACTION_BAR), any(BaseComponent.class));
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#tick()}.
+     */
+    @Test
+    public void testEndsWhenGraceTimerCancelled() {
+        graceTimers.schedule(uuid, 3000L, () -> {});
+        countdown.start(p);
+        countdown.tick();
+        graceTimers.cancel(uuid);
+        countdown.tick();
+        assertEquals(0, countdown.size());
+        // Shown countdown is cleared and ticker stops
+        verify(spigot, times(2)).sendMessage(eq(ChatMessageType.ACTION_BAR), any(BaseComponent.class));
+        assertEquals(1, scheduler.getCancelledCount());
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#tick()}.
+     */
+    @Test
+    public void testEndsWhenPlayerOffline() {
+        graceTimers.schedule(uuid, 3000L, () -> {});
+        countdown.start(p);
+        when(p.isOnline()).thenReturn(false);
+        countdown.tick();
+        assertEquals(0, countdown.size());
+        verify(spigot, never()).sendMessage(eq(ChatMessageType.ACTION_BAR), any(BaseComponent.class));
+    }
+
+    /**
+     * Test method for {@link GraceCountdown#cancelAll()}.
+     */
+    @Test
+    public void testCancelAll() {
+        graceTimers.schedule(uuid, 3000L, () -> {});
+        countdown.start(p);
+        countdown.cancelAll();
+        assertEquals(0, countdown.size());
+        assertEquals(1, scheduler.getCancelledCount());
+    }
+}
@@ -0,0 +1,146 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link GraceTimerManager}.
+ */
+@RunWith(PowerMockRunner.class)
+public class GraceTimerManagerTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+
+    private final AtomicLong clock = new AtomicLong(10_000L);
+    private final AtomicInteger runs = new AtomicInteger();
+    private final UUID uuid = UUID.randomUUID();
+    private FlyStats stats;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        stats = new FlyStats(true);
+        when(addon.getStats()).thenReturn(stats);
+    }
+
+    private GraceTimerManager create(TestFlyScheduler scheduler) {
+        when(addon.getScheduler()).thenReturn(scheduler);
+        return new GraceTimerManager(addon, clock::get);
+    }
+
+    /**
+     * Test method for {@link GraceTimerManager#tick()}.
+     */
+    @Test
+    public void testExpireMainThread() {
+        TestFlyScheduler scheduler = new TestFlyScheduler(false);
+        GraceTimerManager timers = create(scheduler);
+        timers.schedule(uuid, 1000L, runs::incrementAndGet);
+        assertEquals(1, scheduler.getTimerCount());
+        scheduler.tick();
+        assertEquals(0, runs.get());
+        clock.addAndGet(1100L);
+        scheduler.tick();
+        // Task runs in the same tick
+        assertEquals(1, runs.get());
+        assertFalse(timers.isPending(uuid));
+        assertEquals(0, scheduler.getTimerCount());
+        assertEquals(1, scheduler.getCancelledCount());
+        assertEquals(1, stats.getCount(Counter.GRACE_TIMER_EXPIRED));
+    }
+
+    /**
+     * Test method for {@link GraceTimerManager#tick()}.
+     */
+    @Test
+    public void testExpirePerPlayer() {
+        TestFlyScheduler scheduler = new TestFlyScheduler(true);
+        GraceTimerManager timers = create(scheduler);
+        timers.schedule(uuid, 1000L, runs::incrementAndGet);
+        clock.addAndGet(1100L);
+        scheduler.tick();
+        // Task waits for the thread that owns the player
+        assertEquals(0, runs.get());
+        assertFalse(timers.isPending(uuid));
+        assertEquals(0, scheduler.getTimerCount());
+        assertEquals(1, scheduler.getPlayerTaskCount(uuid));
+        assertEquals(1, scheduler.runPlayer(uuid));
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Test method for {@link GraceTimerManager#cancel(UUID)}.
+     */
+    @Test
+    public void testCancel() {
+        TestFlyScheduler scheduler = new TestFlyScheduler(true);
+        GraceTimerManager timers = create(scheduler);
+        timers.schedule(uuid, 1000L, runs::incrementAndGet);
+        assertTrue(timers.isPending(uuid));
+        assertTrue(timers.cancel(uuid));
+        assertFalse(timers.cancel(uuid));
+        clock.addAndGet(1100L);
+        scheduler.tick();
+        assertEquals(0, scheduler.getPlayerTaskCount(uuid));
+        assertEquals(0, runs.get());
+        assertEquals(1, stats.getCount(Counter.GRACE_TIMER_CANCELLED));
+    }
+
+    /**
+     * Test method for {@link GraceTimerManager#schedule(UUID, long, Runnable)}.
+     */
+    @Test
+    public void testRescheduleFromExpiredTask() {
+        TestFlyScheduler scheduler = new TestFlyScheduler(false);
+        GraceTimerManager timers = create(scheduler);
+        timers.schedule(uuid, 1000L, () -> timers.schedule(uuid, 1000L, runs::incrementAndGet));
+        clock.addAndGet(1100L);
+        scheduler.tick();
+        // Ticker stopped and started again for the new timer
+        assertTrue(timers.isPending(uuid));
+        assertEquals(1, scheduler.getTimerCount());
+        clock.addAndGet(1100L);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Test method for {@link GraceTimerManager#limitDelay(long)}.
+     */
+    @Test
+    public void testLimitDelay() {
+        TestFlyScheduler scheduler = new TestFlyScheduler(false);
+        GraceTimerManager timers = create(scheduler);
+        UUID other = UUID.randomUUID();
+        timers.schedule(uuid, 5000L, runs::incrementAndGet);
+        timers.schedule(other, 500L, runs::incrementAndGet);
+        // Only the timer due later than the new limit is shortened
+        assertEquals(1, timers.limitDelay(1000L));
+        clock.addAndGet(600L);
+        scheduler.tick();
+        assertEquals(1, runs.get());
+        clock.addAndGet(500L);
+        scheduler.tick();
+        assertEquals(2, runs.get());
+        assertEquals(0, timers.getPendingCount());
+    }
+}
@@ -0,0 +1,175 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.policy.FlightDecisionCache;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.level.Level;
+
+/**
+ * Tests for {@link LevelCache}.
+ */
+@RunWith(PowerMockRunner.class)
+public class LevelCacheTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Level level;
+    @Mock
+    private Island island;
+    @Mock
+    private Island island2;
+    @Mock
+    private World world;
+    @Mock
+    private FlightPolicyEvaluator policy;
+    @Mock
+    private FlightDecisionCache decisionCache;
+
+    private Settings settings;
+    private long now;
+    private LevelCache cache;
+    private UUID owner;
+    private TestFlyScheduler scheduler;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        settings = new Settings();
+        settings.setLevelCacheTtl(10);
+        settings.setLevelCacheSize(1);
+        when(addon.getSettings()).thenReturn(settings);
+        when(addon.getLevelAddon()).thenReturn(level);
+        scheduler = new TestFlyScheduler(false);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        when(policy.getDecisionCache()).thenReturn(decisionCache);
+        when(addon.getFlightPolicy()).thenReturn(policy);
+
+        owner = UUID.randomUUID();
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getWorld()).thenReturn(world);
+        when(island.getOwner()).thenReturn(owner);
+        when(island2.getUniqueId()).thenReturn("island2");
+        when(island2.getWorld()).thenReturn(world);
+        when(island2.getOwner()).thenReturn(UUID.randomUUID());
+        when(level.getIslandLevel(any(), any())).thenReturn(50L);
+
+        now = 1000L;
+        cache = new LevelCache(addon, () -> now);
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#getLevel(Island)}.
+     */
+    @Test
+    public void testGetLevelNoLevelAddon() {
+        when(addon.getLevelAddon()).thenReturn(null);
+        assertEquals(0L, cache.getLevel(island));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#getLevel(Island)}.
+     */
+    @Test
+    public void testGetLevelReadInBackground() {
+        // Level addon is not asked on the calling thread
+        assertEquals(0L, cache.getLevel(island));
+        assertEquals(0L, cache.getLevel(island));
+        verify(level, never()).getIslandLevel(any(), any());
+        scheduler.runAsyncTasks();
+        // Second miss did not start another read
+        verify(level, times(1)).getIslandLevel(world, owner);
+        verify(decisionCache).invalidateIsland("island1");
+        assertEquals(50L, cache.getLevel(island));
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#getLevel(Island)}.
+     */
+    @Test
+    public void testGetLevelCached() {
+        load(island);
+        assertEquals(50L, cache.getLevel(island));
+        assertEquals(50L, cache.getLevel(island));
+        verify(level, times(1)).getIslandLevel(world, owner);
+        assertEquals(2L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#getLevel(Island)}.
+     */
+    @Test
+    public void testGetLevelExpired() {
+        load(island);
+        now += 10_000L;
+        when(level.getIslandLevel(any(), any())).thenReturn(60L);
+        // Expired level is used until the new one arrives
+        assertEquals(50L, cache.getLevel(island));
+        scheduler.runAsyncTasks();
+        assertEquals(60L, cache.getLevel(island));
+        verify(level, times(2)).getIslandLevel(world, owner);
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#put(String, long)}.
+     */
+    @Test
+    public void testPut() {
+        cache.put("island1", 200L);
+        assertEquals(200L, cache.getLevel(island));
+        verify(level, never()).getIslandLevel(any(), any());
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#invalidate(String)}.
+     */
+    @Test
+    public void testInvalidate() {
+        load(island);
+        cache.invalidate("island1");
+        load(island);
+        verify(level, times(2)).getIslandLevel(world, owner);
+    }
+
+    /**
+     * Test method for {@link world.bentobox.islandfly.managers.LevelCache#getLevel(Island)}.
+     */
+    @Test
+    public void testEviction() {
+        load(island);
+        load(island2);
+        assertEquals(1, cache.size());
+        load(island);
+        verify(level, times(2)).getIslandLevel(world, owner);
+    }
+
+    /**
+     * Misses the cache and lets the background read finish.
+     * @param target island
+     */
+    private void load(Island target) {
+        cache.getLevel(target);
+        scheduler.runAsyncTasks();
+    }
+}
@@ -0,0 +1,143 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.BentoBox;
+import world.bentobox.bentobox.api.localization.TextVariables;
+import world.bentobox.bentobox.api.user.User;
+import world.bentobox.bentobox.managers.LocalesManager;
+import world.bentobox.islandfly.IslandFlyAddon;
+
+/**
+ * Tests for {@link MessageTemplateCache}.
+ */
+@RunWith(PowerMockRunner.class)
+public class MessageTemplateCacheTest {
+
+    private static final String ALERT = "islandfly.fly-outside-alert";
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private BentoBox plugin;
+    @Mock
+    private LocalesManager lm;
+    @Mock
+    private User user;
+
+    private MessageTemplateCache messages;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(addon.getPlugin()).thenReturn(plugin);
+        when(plugin.getLocalesManager()).thenReturn(lm);
+        when(lm.get(any(), anyString())).thenReturn("&c Fly ends in &e[number] &c seconds.");
+        when(user.getLocale()).thenReturn(Locale.US);
+        when(user.getTranslation(ALERT)).thenReturn("§c Fly ends in §e[number] §c seconds.");
+        messages = new MessageTemplateCache(addon);
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#send(User, String, long)}.
+     */
+    @Test
+    public void testSendFromTemplate() {
+        messages.send(user, ALERT, 5);
+        messages.send(user, ALERT, 3);
+        verify(user).sendRawMessage("§c Fly ends in §e5 §c seconds.");
+        verify(user).sendRawMessage("§c Fly ends in §e3 §c seconds.");
+        // Translated only once
+        verify(user).getTranslation(ALERT);
+        verify(user, never()).sendMessage(anyString(), anyString(), anyString());
+        assertEquals(1, messages.getHits());
+        assertEquals(1, messages.getMisses());
+        assertEquals(1, messages.size());
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#send(User, String)}.
+     */
+    @Test
+    public void testSendWithoutVariables() {
+        when(user.getTranslation("islandfly.disable-fly")).thenReturn("§c Your fly mode has been disabled.");
+        messages.send(user, "islandfly.disable-fly");
+        verify(user).sendRawMessage("§c Your fly mode has been disabled.");
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#send(User, String, long)}.
+     */
+    @Test
+    public void testPlaceholderNotCached() {
+        when(lm.get(any(), anyString())).thenReturn("&c %player_name%, fly ends in [number] seconds.");
+        messages.send(user, ALERT, 5);
+        messages.send(user, ALERT, 5);
+        verify(user, times(2)).sendMessage(ALERT, TextVariables.NUMBER, "5");
+        verify(user, never()).sendRawMessage(anyString());
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#send(User, String, long)}.
+     */
+    @Test
+    public void testOtherVariableNotCached() {
+        when(lm.get(any(), anyString())).thenReturn("&c Fly on [gamemode] ends in [number] seconds.");
+        messages.send(user, ALERT, 5);
+        verify(user).sendMessage(ALERT, TextVariables.NUMBER, "5");
+        verify(user, never()).getTranslation(anyString());
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#send(User, String)}.
+     */
+    @Test
+    public void testBlankMessageNotSent() {
+        when(user.getTranslation("islandfly.disable-fly")).thenReturn("§c ");
+        messages.send(user, "islandfly.disable-fly");
+        verify(user, never()).sendRawMessage(anyString());
+        verify(user, never()).sendMessage(anyString());
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#clear()}.
+     */
+    @Test
+    public void testClear() {
+        messages.send(user, ALERT, 5);
+        messages.clear();
+        assertEquals(0, messages.size());
+        when(user.getTranslation(ALERT)).thenReturn("§c Fly off in §e[number]§c.");
+        messages.send(user, ALERT, 5);
+        verify(user).sendRawMessage("§c Fly off in §e5§c.");
+    }
+
+    /**
+     * Test method for {@link MessageTemplateCache#resetCounters()}.
+     */
+    @Test
+    public void testResetCounters() {
+        messages.send(user, ALERT, 5);
+        messages.send(user, ALERT, 3);
+        messages.resetCounters();
+        assertEquals(0, messages.getHits());
+        assertEquals(0, messages.getMisses());
+        // Templates are kept
+        assertEquals(1, messages.size());
+    }
+}
@@ -0,0 +1,149 @@
+package world.bentobox.islandfly.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+import world.bentobox.islandfly.scheduler.TestFlyScheduler;
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link WorkQueue}.
+ */
+@RunWith(PowerMockRunner.class)
+public class WorkQueueTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final List<String> runs = new ArrayList<>();
+    private Settings settings;
+    private FlyStats stats;
+    private TestFlyScheduler scheduler;
+    private WorkQueue queue;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        stats = new FlyStats(true);
+        when(addon.getStats()).thenReturn(stats);
+        settings = new Settings();
+        // One millisecond per tick
+        settings.setWorkTickBudget(1000);
+        when(addon.getSettings()).thenReturn(settings);
+        scheduler = new TestFlyScheduler(false);
+        when(addon.getScheduler()).thenReturn(scheduler);
+        queue = new WorkQueue(addon, clock::get);
+    }
+
+    /**
+     * @param name name recorded when work runs
+     * @param nanos time the work takes
+     * @return work
+     */
+    private Runnable work(String name, long nanos) {
+        return () -> {
+            runs.add(name);
+            clock.addAndGet(nanos);
+        };
+    }
+
+    /**
+     * Test method for {@link WorkQueue#submit(WorkPriority, Runnable)}.
+     */
+    @Test
+    public void testSubmitWithinBudgetRunsNow() {
+        queue.submit(WorkPriority.NORMAL, work("a", 400_000L));
+        queue.submit(WorkPriority.NORMAL, work("b", 400_000L));
+        assertEquals(List.of("a", "b"), runs);
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, scheduler.getTimerCount());
+        assertEquals(2, stats.getCount(Counter.WORK_IMMEDIATE));
+    }
+
+    /**
+     * Test method for {@link WorkQueue#tick()}.
+     */
+    @Test
+    public void testCarryOverInPriorityOrder() {
+        queue.submit(WorkPriority.NORMAL, work("a", 1_200_000L));
+        // Budget is spent, so the rest waits
+        queue.submit(WorkPriority.LOW, work("low", 600_000L));
+        queue.submit(WorkPriority.NORMAL, work("normal", 600_000L));
+        queue.submit(WorkPriority.HIGH, work("high", 600_000L));
+        assertEquals(List.of("a"), runs);
+        assertEquals(3, queue.getDepth());
+        assertEquals(1, scheduler.getTimerCount());
+        assertEquals(3, stats.getCount(Counter.WORK_DEFERRED));
+
+        clock.addAndGet(50_000_000L);
+        scheduler.tick();
+        assertEquals(List.of("a", "high", "normal"), runs);
+        assertEquals(1, queue.getDepth());
+
+        clock.addAndGet(50_000_000L);
+        scheduler.tick();
+        assertEquals(List.of("a", "high", "normal", "low"), runs);
+        assertEquals(0, queue.getDepth());
+        assertEquals(3, queue.getDelays().getCount());
+        // Ticker stops once the queue is empty
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link WorkQueue#tick()}.
+     */
+    @Test
+    public void testSlowWorkStillProgresses() {
+        queue.submit(WorkPriority.NORMAL, work("a", 5_000_000L));
+        queue.submit(WorkPriority.NORMAL, work("b", 5_000_000L));
+        queue.submit(WorkPriority.NORMAL, work("c", 5_000_000L));
+        clock.addAndGet(50_000_000L);
+        scheduler.tick();
+        // One item per tick even if it does not fit
+        assertEquals(List.of("a", "b"), runs);
+        scheduler.tick();
+        assertEquals(List.of("a", "b", "c"), runs);
+    }
+
+    /**
+     * Test method for {@link WorkQueue#submit(WorkPriority, Runnable)}.
+     */
+    @Test
+    public void testNoBudgetRunsEverythingNow() {
+        settings.setWorkTickBudget(0);
+        for (int i = 0; i < 10; i++) {
+            queue.submit(WorkPriority.LOW, work("w" + i, 5_000_000L));
+        }
+        assertEquals(10, runs.size());
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    /**
+     * Test method for {@link WorkQueue#cancelAll()}.
+     */
+    @Test
+    public void testCancelAll() {
+        queue.submit(WorkPriority.NORMAL, work("a", 2_000_000L));
+        queue.submit(WorkPriority.NORMAL, work("b", 0L));
+        queue.cancelAll();
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, scheduler.getTimerCount());
+        scheduler.tick();
+        assertEquals(List.of("a"), runs);
+    }
+}
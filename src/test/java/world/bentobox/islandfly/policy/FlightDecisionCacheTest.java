@@ -0,0 +1,105 @@
+package world.bentobox.islandfly.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+
+/**
+ * Tests for {@link FlightDecisionCache}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlightDecisionCacheTest {
+
+    @Mock
+    private Island island;
+    @Mock
+    private Island island2;
+
+    private long now;
+    private UUID uuid;
+    private FlightDecisionCache cache;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island2.getUniqueId()).thenReturn("island2");
+        uuid = UUID.randomUUID();
+        now = 0L;
+        cache = new FlightDecisionCache(30, () -> now);
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#get(UUID, Island)}.
+     */
+    @Test
+    public void testGetSameIsland() {
+        cache.put(uuid, island, FlightDecision.FLAG_DENIED);
+        assertEquals(FlightDecision.FLAG_DENIED, cache.get(uuid, island));
+        assertEquals(1L, cache.getHits());
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#get(UUID, Island)}.
+     */
+    @Test
+    public void testGetOtherIsland() {
+        cache.put(uuid, island, FlightDecision.ALLOWED);
+        assertNull(cache.get(uuid, island2));
+        assertEquals(1L, cache.getMisses());
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#get(UUID, Island)}.
+     */
+    @Test
+    public void testGetExpired() {
+        cache.put(uuid, island, FlightDecision.ALLOWED);
+        now += 30_000L;
+        assertNull(cache.get(uuid, island));
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#invalidateIsland(String)}.
+     */
+    @Test
+    public void testInvalidateIsland() {
+        UUID other = UUID.randomUUID();
+        cache.put(uuid, island, FlightDecision.ALLOWED);
+        cache.put(other, island2, FlightDecision.ALLOWED);
+        cache.invalidateIsland("island1");
+        assertNull(cache.get(uuid, island));
+        assertEquals(FlightDecision.ALLOWED, cache.get(other, island2));
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#invalidatePlayer(UUID)}.
+     */
+    @Test
+    public void testInvalidatePlayer() {
+        cache.put(uuid, island, FlightDecision.ALLOWED);
+        cache.invalidatePlayer(uuid);
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test method for {@link FlightDecisionCache#setTtl(int)}.
+     */
+    @Test
+    public void testDisabled() {
+        cache.setTtl(0);
+        cache.put(uuid, island, FlightDecision.ALLOWED);
+        assertNull(cache.get(uuid, island));
+    }
+}
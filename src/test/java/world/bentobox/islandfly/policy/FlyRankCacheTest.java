@@ -0,0 +1,111 @@
+package world.bentobox.islandfly.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.RanksManager;
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.config.Settings;
+
+/**
+ * Tests for {@link FlyRankCache}.
+ */
+@RunWith(PowerMockRunner.class)
+public class FlyRankCacheTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private Island island;
+    @Mock
+    private Island island2;
+
+    private Settings settings;
+    private long now;
+    private FlyRankCache cache;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        settings = new Settings();
+        settings.setRankCacheTtl(10);
+        settings.setRankCacheSize(1);
+        when(addon.getSettings()).thenReturn(settings);
+
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION)).thenReturn(RanksManager.MEMBER_RANK);
+        when(island2.getUniqueId()).thenReturn("island2");
+        when(island2.getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION)).thenReturn(RanksManager.VISITOR_RANK);
+
+        now = 1000L;
+        cache = new FlyRankCache(addon, () -> now);
+    }
+
+    /**
+     * Test method for {@link FlyRankCache#getMinRank(Island)}.
+     */
+    @Test
+    public void testGetMinRankCached() {
+        assertEquals(RanksManager.MEMBER_RANK, cache.getMinRank(island));
+        assertEquals(RanksManager.MEMBER_RANK, cache.getMinRank(island));
+        verify(island, times(1)).getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+    }
+
+    /**
+     * Test method for {@link FlyRankCache#getMinRank(Island)}.
+     */
+    @Test
+    public void testGetMinRankExpired() {
+        cache.getMinRank(island);
+        now += 10_000L;
+        when(island.getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION)).thenReturn(RanksManager.TRUSTED_RANK);
+        assertEquals(RanksManager.TRUSTED_RANK, cache.getMinRank(island));
+        verify(island, times(2)).getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+    }
+
+    /**
+     * Test method for {@link FlyRankCache#getMinRank(Island)}.
+     */
+    @Test
+    public void testSizeLimit() {
+        cache.getMinRank(island);
+        cache.getMinRank(island2);
+        assertEquals(1, cache.size());
+        // Eldest island was evicted
+        cache.getMinRank(island);
+        verify(island, times(2)).getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+    }
+
+    /**
+     * Test method for {@link FlyRankCache#setMinRank(String, int)}.
+     */
+    @Test
+    public void testSetMinRank() {
+        cache.getMinRank(island);
+        cache.setMinRank("island1", RanksManager.OWNER_RANK);
+        assertEquals(RanksManager.OWNER_RANK, cache.getMinRank(island));
+        verify(island, times(1)).getFlag(IslandFlyAddon.ISLAND_FLY_PROTECTION);
+    }
+
+    /**
+     * Test method for {@link FlyRankCache#clear()}.
+     */
+    @Test
+    public void testClear() {
+        cache.getMinRank(island);
+        cache.invalidate("island2");
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
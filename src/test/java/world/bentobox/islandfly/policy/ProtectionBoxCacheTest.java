@@ -0,0 +1,138 @@
+package world.bentobox.islandfly.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.bentobox.database.objects.Island;
+import world.bentobox.bentobox.managers.IslandsManager;
+
+/**
+ * Tests for {@link ProtectionBoxCache}.
+ */
+@RunWith(PowerMockRunner.class)
+public class ProtectionBoxCacheTest {
+
+    @Mock
+    private Island island;
+    @Mock
+    private Island island2;
+    @Mock
+    private IslandsManager im;
+    @Mock
+    private World world;
+    @Mock
+    private World nether;
+
+    private UUID uuid;
+    private ProtectionBoxCache cache;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        when(island.getUniqueId()).thenReturn("island1");
+        when(island.getMinProtectedX()).thenReturn(-50);
+        when(island.getMaxProtectedX()).thenReturn(50);
+        when(island.getMinProtectedZ()).thenReturn(-50);
+        when(island.getMaxProtectedZ()).thenReturn(50);
+        when(island2.getUniqueId()).thenReturn("island2");
+        when(island2.getMinProtectedX()).thenReturn(350);
+        when(island2.getMaxProtectedX()).thenReturn(450);
+        when(island2.getMinProtectedZ()).thenReturn(-50);
+        when(island2.getMaxProtectedZ()).thenReturn(50);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.of(island));
+        uuid = UUID.randomUUID();
+        cache = new ProtectionBoxCache();
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#getProtectedIsland(UUID, Location, IslandsManager)}.
+     */
+    @Test
+    public void testGetProtectedIslandInsideBox() {
+        assertSame(island, cache.getProtectedIsland(uuid, new Location(world, 0.5, 80, 0.5), im));
+        assertSame(island, cache.getProtectedIsland(uuid, new Location(world, 49.9, 80, -50), im));
+        verify(im, times(1)).getProtectedIslandAt(any());
+        assertEquals(1L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#getProtectedIsland(UUID, Location, IslandsManager)}.
+     */
+    @Test
+    public void testGetProtectedIslandLeftBox() {
+        cache.getProtectedIsland(uuid, new Location(world, 0.5, 80, 0.5), im);
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        // Maximal coordinate is exclusive
+        assertNull(cache.getProtectedIsland(uuid, new Location(world, 50, 80, 0.5), im));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#getProtectedIsland(UUID, Location, IslandsManager)}.
+     */
+    @Test
+    public void testGetProtectedIslandOtherWorld() {
+        cache.getProtectedIsland(uuid, new Location(world, 0.5, 80, 0.5), im);
+        cache.getProtectedIsland(uuid, new Location(nether, 0.5, 80, 0.5), im);
+        verify(im, times(2)).getProtectedIslandAt(any());
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#getIslandId(UUID)}.
+     */
+    @Test
+    public void testGetIslandId() {
+        assertNull(cache.getIslandId(uuid));
+        cache.getProtectedIsland(uuid, new Location(world, 0.5, 80, 0.5), im);
+        assertEquals("island1", cache.getIslandId(uuid));
+        when(im.getProtectedIslandAt(any())).thenReturn(Optional.empty());
+        cache.getProtectedIsland(uuid, new Location(world, 200, 80, 0.5), im);
+        assertNull(cache.getIslandId(uuid));
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#isInside(UUID, Island, Location)}.
+     */
+    @Test
+    public void testIsInside() {
+        assertTrue(cache.isInside(uuid, island, new Location(world, 10, 80, 10)));
+        assertTrue(cache.isInside(uuid, island, new Location(world, -50, 80, 10)));
+        assertFalse(cache.isInside(uuid, island2, new Location(world, -50, 80, 10)));
+        assertFalse(cache.isInside(uuid, island, new Location(world, 10, 80, 60)));
+        assertEquals(1L, cache.getHits());
+    }
+
+    /**
+     * Test method for {@link ProtectionBoxCache#invalidateIsland(String)}.
+     */
+    @Test
+    public void testInvalidateIsland() {
+        cache.isInside(uuid, island, new Location(world, 10, 80, 10));
+        cache.isInside(UUID.randomUUID(), island2, new Location(world, 400, 80, 10));
+        cache.invalidateIsland("island1");
+        assertEquals(1, cache.size());
+        // Range shrank, so player is outside now
+        when(island.getMaxProtectedX()).thenReturn(5);
+        assertFalse(cache.isInside(uuid, island, new Location(world, 10, 80, 10)));
+    }
+}
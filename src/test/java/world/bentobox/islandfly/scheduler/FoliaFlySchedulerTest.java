@@ -0,0 +1,170 @@
+package world.bentobox.islandfly.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import io.papermc.paper.threadedregions.scheduler.AsyncScheduler;
+import io.papermc.paper.threadedregions.scheduler.EntityScheduler;
+import io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+
+/**
+ * Tests for {@link FoliaFlyScheduler}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Bukkit.class})
+public class FoliaFlySchedulerTest {
+
+    @Mock
+    private Plugin plugin;
+    @Mock
+    private GlobalRegionScheduler global;
+    @Mock
+    private AsyncScheduler async;
+    @Mock
+    private EntityScheduler entityScheduler;
+    @Mock
+    private ScheduledTask scheduledTask;
+    @Mock
+    private FoliaPlayer player;
+
+    private final UUID uuid = UUID.randomUUID();
+    private final AtomicInteger runs = new AtomicInteger();
+    private FoliaFlyScheduler scheduler;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        FoliaServer.global = global;
+        FoliaServer.async = async;
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(player.getScheduler()).thenReturn(entityScheduler);
+        PowerMockito.mockStatic(Bukkit.class);
+        when(Bukkit.getPlayer(uuid)).thenReturn(player);
+        scheduler = new FoliaFlyScheduler(plugin, FoliaServer.class, FoliaPlayer.class);
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#isSupported()}.
+     */
+    @Test
+    public void testIsSupported() {
+        // Spigot API test classpath is not region-threaded
+        assertFalse(FoliaFlyScheduler.isSupported());
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#FoliaFlyScheduler(Plugin)}.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testMissingApi() {
+        new FoliaFlyScheduler(plugin);
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#runTimer(Runnable, long, long)}.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRunTimer() {
+        when(global.runAtFixedRate(any(), any(), anyLong(), anyLong())).thenReturn(scheduledTask);
+        FlyTask task = scheduler.runTimer(runs::incrementAndGet, 0L, 5L);
+
+        // Folia needs a positive delay
+        ArgumentCaptor<Consumer<ScheduledTask>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(global).runAtFixedRate(eq(plugin), captor.capture(), eq(1L), eq(5L));
+        captor.getValue().accept(scheduledTask);
+        assertEquals(1, runs.get());
+
+        task.cancel();
+        verify(scheduledTask).cancel();
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#runAsync(Runnable)}.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRunAsync() {
+        scheduler.runAsync(runs::incrementAndGet);
+
+        ArgumentCaptor<Consumer<ScheduledTask>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(async).runNow(eq(plugin), captor.capture());
+        captor.getValue().accept(scheduledTask);
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#dispatchToPlayer(UUID, Runnable)}.
+     */
+    @Test
+    public void testDispatchToPlayer() {
+        Runnable task = runs::incrementAndGet;
+        scheduler.dispatchToPlayer(uuid, task);
+        verify(entityScheduler).execute(eq(plugin), eq(task), isNull(), eq(1L));
+        // Task waits for the thread that owns the player
+        assertEquals(0, runs.get());
+    }
+
+    /**
+     * Test method for {@link FoliaFlyScheduler#dispatchToPlayer(UUID, Runnable)}.
+     */
+    @Test
+    public void testDispatchToOfflinePlayer() {
+        when(Bukkit.getPlayer(uuid)).thenReturn(null);
+        scheduler.dispatchToPlayer(uuid, runs::incrementAndGet);
+        verify(entityScheduler, never()).execute(any(), any(), any(), anyLong());
+    }
+
+
+    /**
+     * Stands in for Folia server class with its static scheduler getters.
+     */
+    public static class FoliaServer {
+
+        private static GlobalRegionScheduler global;
+
+        private static AsyncScheduler async;
+
+        public static GlobalRegionScheduler getGlobalRegionScheduler() {
+            return global;
+        }
+
+        public static AsyncScheduler getAsyncScheduler() {
+            return async;
+        }
+    }
+
+
+    /**
+     * Stands in for Folia player with its entity scheduler.
+     */
+    public interface FoliaPlayer extends Player {
+
+        EntityScheduler getScheduler();
+    }
+}
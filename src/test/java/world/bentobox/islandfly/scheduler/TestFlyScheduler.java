@@ -0,0 +1,130 @@
+package world.bentobox.islandfly.scheduler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+/**
+ * {@link FlyScheduler} test double. Nothing runs until a test asks for it.
+ * <p>
+ * In main thread mode, {@link #dispatchToPlayer(UUID, Runnable)} runs the task immediately,
+ * like {@link BukkitFlyScheduler}. In per-player mode, tasks are queued for their player like on
+ * a region-threaded server, and can be run with {@link #runPlayer(UUID)}.
+ */
+public class TestFlyScheduler implements FlyScheduler {
+
+    private final boolean perPlayer;
+
+    private final List<Runnable> timers = new ArrayList<>();
+
+    private final List<Runnable> async = new ArrayList<>();
+
+    private final Map<UUID, List<Runnable>> playerTasks = new LinkedHashMap<>();
+
+    private int cancelled;
+
+
+    /**
+     * @param perPlayer true to queue player tasks like on a region-threaded server
+     */
+    public TestFlyScheduler(boolean perPlayer) {
+        this.perPlayer = perPlayer;
+    }
+
+
+    @Override
+    public FlyTask runTimer(Runnable task, long delayTicks, long periodTicks) {
+        this.timers.add(task);
+        return () -> {
+            if (this.timers.remove(task)) {
+                this.cancelled++;
+            }
+        };
+    }
+
+
+    @Override
+    public void runAsync(Runnable task) {
+        this.async.add(task);
+    }
+
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        this.playerTasks.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>()).add(task);
+    }
+
+
+    @Override
+    public void dispatchToPlayer(UUID playerId, Runnable task) {
+        if (this.perPlayer) {
+            this.playerTasks.computeIfAbsent(playerId, k -> new ArrayList<>()).add(task);
+        } else {
+            task.run();
+        }
+    }
+
+
+    /**
+     * Runs every active timer once.
+     */
+    public void tick() {
+        new ArrayList<>(this.timers).forEach(Runnable::run);
+    }
+
+
+    /**
+     * Runs and forgets all queued async tasks.
+     */
+    public void runAsyncTasks() {
+        final List<Runnable> tasks = new ArrayList<>(this.async);
+        this.async.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+
+    /**
+     * Runs and forgets all tasks queued for given player.
+     * @param playerId player unique id
+     * @return number of tasks that were run
+     */
+    public int runPlayer(UUID playerId) {
+        final List<Runnable> tasks = this.playerTasks.remove(playerId);
+
+        if (tasks == null) {
+            return 0;
+        }
+
+        tasks.forEach(Runnable::run);
+        return tasks.size();
+    }
+
+
+    /**
+     * @return number of active timers
+     */
+    public int getTimerCount() {
+        return this.timers.size();
+    }
+
+
+    /**
+     * @return number of cancelled timers
+     */
+    public int getCancelledCount() {
+        return this.cancelled;
+    }
+
+
+    /**
+     * @param playerId player unique id
+     * @return number of tasks queued for given player
+     */
+    public int getPlayerTaskCount(UUID playerId) {
+        return this.playerTasks.getOrDefault(playerId, List.of()).size();
+    }
+}
@@ -0,0 +1,89 @@
+package world.bentobox.islandfly.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    /**
+     * Test method for {@link LatencyHistogram#getPercentile(double)}.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(0.5));
+        assertEquals(0L, histogram.getMax());
+    }
+
+    /**
+     * Test method for {@link LatencyHistogram#record(long)}.
+     */
+    @Test
+    public void testRecord() {
+        histogram.record(100L);
+        histogram.record(300L);
+        histogram.record(-5L);
+        assertEquals(3L, histogram.getCount());
+        assertEquals(400L, histogram.getTotal());
+        assertEquals(300L, histogram.getMax());
+    }
+
+    /**
+     * Test method for {@link LatencyHistogram#getPercentile(double)}.
+     */
+    @Test
+    public void testPercentiles() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        // Buckets have at most 12.5% relative error
+        assertTrue(p50 >= 500_000L && p50 <= 562_500L);
+        assertTrue(p99 >= 990_000L && p99 <= 1_000_000L);
+        assertEquals(1_000_000L, histogram.getPercentile(1D));
+    }
+
+    /**
+     * Test method for {@link LatencyHistogram#reset()}.
+     */
+    @Test
+    public void testReset() {
+        histogram.record(42L);
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getTotal());
+        assertEquals(0L, histogram.getMax());
+        assertEquals(0L, histogram.getPercentile(0.99));
+    }
+
+    /**
+     * Test method for {@link LatencyHistogram#bucketOf(long)} and {@link LatencyHistogram#upperBoundOf(int)}.
+     */
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] {0L, 1L, 7L, 8L, 15L, 16L, 17L, 1000L, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKETS);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+}
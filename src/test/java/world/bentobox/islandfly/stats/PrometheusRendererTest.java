@@ -0,0 +1,134 @@
+package world.bentobox.islandfly.stats;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import world.bentobox.islandfly.IslandFlyAddon;
+import world.bentobox.islandfly.managers.FlyStateStore;
+import world.bentobox.islandfly.managers.GraceTimerManager;
+import world.bentobox.islandfly.managers.LevelCache;
+import world.bentobox.islandfly.managers.WorkQueue;
+import world.bentobox.islandfly.policy.FlightDecision;
+import world.bentobox.islandfly.policy.FlightDecisionCache;
+import world.bentobox.islandfly.policy.FlightPolicyEvaluator;
+import world.bentobox.islandfly.policy.ProtectionBoxCache;
+
+/**
+ * Tests for {@link PrometheusRenderer}.
+ */
+@RunWith(PowerMockRunner.class)
+public class PrometheusRendererTest {
+
+    @Mock
+    private IslandFlyAddon addon;
+    @Mock
+    private GraceTimerManager graceTimers;
+    @Mock
+    private FlyStateStore flyStates;
+    @Mock
+    private FlightPolicyEvaluator policy;
+    @Mock
+    private FlightDecisionCache decisionCache;
+    @Mock
+    private LevelCache levelCache;
+    @Mock
+    private ProtectionBoxCache boxCache;
+    @Mock
+    private WorkQueue workQueue;
+
+    private FlyStats stats;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        stats = new FlyStats(true);
+        when(addon.getStats()).thenReturn(stats);
+        when(addon.getGraceTimers()).thenReturn(graceTimers);
+        when(addon.getFlyStates()).thenReturn(flyStates);
+        when(addon.getFlightPolicy()).thenReturn(policy);
+        when(policy.getDecisionCache()).thenReturn(decisionCache);
+        when(policy.getBoxCache()).thenReturn(boxCache);
+        when(addon.getLevelCache()).thenReturn(levelCache);
+        when(addon.getWorkQueue()).thenReturn(workQueue);
+        when(workQueue.getDelays()).thenReturn(new LatencyHistogram());
+        when(workQueue.getDepth()).thenReturn(2);
+        when(graceTimers.getPendingCount()).thenReturn(3);
+        when(decisionCache.getHits()).thenReturn(3L);
+        when(decisionCache.getMisses()).thenReturn(1L);
+    }
+
+    /**
+     * Test method for {@link PrometheusRenderer#render(MetricsSnapshot)}.
+     */
+    @Test
+    public void testRenderCounters() {
+        stats.count(Counter.FLY_ENABLED_COMMAND);
+        stats.count(Counter.FLY_ENABLED_COMMAND);
+        stats.count(Counter.GRACE_TIMER_EXPIRED);
+        stats.countDisable(FlightDecision.FLAG_DENIED);
+        String text = PrometheusRenderer.render(MetricsSnapshot.capture(addon));
+        assertTrue(text.contains("# TYPE islandfly_fly_enabled_total counter\n"));
+        assertTrue(text.contains("islandfly_fly_enabled_total{reason=\"command\"} 2\n"));
+        assertTrue(text.contains("islandfly_fly_disabled_total{reason=\"flag-denied\"} 1\n"));
+        assertTrue(text.contains("islandfly_grace_timers_total{event=\"expired\"} 1\n"));
+        assertTrue(text.contains("islandfly_grace_timers_pending 3\n"));
+        assertTrue(text.contains("islandfly_cache_hit_ratio{cache=\"decision\"} 0.75\n"));
+        assertTrue(text.contains("islandfly_cache_hit_ratio{cache=\"level\"} NaN\n"));
+        assertTrue(text.contains("islandfly_box_lookups_total{result=\"hit\"} 0\n"));
+        assertTrue(text.contains("islandfly_work_queue_depth 2\n"));
+        // Allowed decisions never disable fly
+        assertFalse(text.contains("reason=\"allowed\""));
+    }
+
+    /**
+     * Test method for {@link PrometheusRenderer#render(MetricsSnapshot)}.
+     */
+    @Test
+    public void testRenderHistogram() {
+        LatencyHistogram histogram = stats.getHistogram(Probe.EXIT_ISLAND);
+        histogram.record(800L);
+        histogram.record(40_000L);
+        histogram.record(5_000_000_000L);
+        String text = PrometheusRenderer.render(MetricsSnapshot.capture(addon));
+        assertTrue(text.contains("# TYPE islandfly_handler_duration_seconds histogram\n"));
+        assertTrue(text.contains("islandfly_handler_duration_seconds_bucket{handler=\"exit-island\",le=\"0.000001\"} 1\n"));
+        assertTrue(text.contains("islandfly_handler_duration_seconds_bucket{handler=\"exit-island\",le=\"0.00005\"} 2\n"));
+        assertTrue(text.contains("islandfly_handler_duration_seconds_bucket{handler=\"exit-island\",le=\"0.1\"} 2\n"));
+        assertTrue(text.contains("islandfly_handler_duration_seconds_bucket{handler=\"exit-island\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("islandfly_handler_duration_seconds_count{handler=\"exit-island\"} 3\n"));
+    }
+
+    /**
+     * Test method for {@link PrometheusRenderer#render(MetricsSnapshot)}.
+     */
+    @Test
+    public void testRenderWorkQueueDelay() {
+        LatencyHistogram delays = new LatencyHistogram();
+        delays.record(30_000_000L);
+        when(workQueue.getDelays()).thenReturn(delays);
+        String text = PrometheusRenderer.render(MetricsSnapshot.capture(addon));
+        assertTrue(text.contains("# TYPE islandfly_work_queue_delay_seconds histogram\n"));
+        assertTrue(text.contains("islandfly_work_queue_delay_seconds_bucket{le=\"0.025\"} 0\n"));
+        assertTrue(text.contains("islandfly_work_queue_delay_seconds_bucket{le=\"0.05\"} 1\n"));
+        assertTrue(text.contains("islandfly_work_queue_delay_seconds_count 1\n"));
+    }
+
+    /**
+     * Test method for {@link MetricsSnapshot#capture(IslandFlyAddon)}.
+     */
+    @Test
+    public void testSnapshotIsStable() {
+        MetricsSnapshot snapshot = MetricsSnapshot.capture(addon);
+        stats.count(Counter.FLY_DISABLED_DEATH);
+        String text = PrometheusRenderer.render(snapshot);
+        assertTrue(text.contains("islandfly_fly_disabled_total{reason=\"death\"} 0\n"));
+    }
+}
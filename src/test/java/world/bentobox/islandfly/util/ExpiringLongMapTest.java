@@ -0,0 +1,69 @@
+package world.bentobox.islandfly.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExpiringLongMap}.
+ */
+public class ExpiringLongMapTest {
+
+    private ExpiringLongMap map;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        map = new ExpiringLongMap();
+    }
+
+    /**
+     * Test method for {@link ExpiringLongMap#get(String, long)}.
+     */
+    @Test
+    public void testExpiry() {
+        map.put("a", 5L, 1000L, 100L, 10);
+        assertEquals(5L, map.get("a", 1099L));
+        assertEquals(ExpiringLongMap.MISSING, map.get("a", 1100L));
+        // Expired value is kept until it is dropped
+        assertEquals(5L, map.getStale("a"));
+        assertEquals(ExpiringLongMap.MISSING, map.getStale("b"));
+    }
+
+    /**
+     * Test method for {@link ExpiringLongMap#put(String, long, long, long, int)}.
+     */
+    @Test
+    public void testRefresh() {
+        map.put("a", 5L, 1000L, 100L, 10);
+        map.put("a", 6L, 1050L, 100L, 10);
+        assertEquals(6L, map.get("a", 1120L));
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Test method for {@link ExpiringLongMap#put(String, long, long, long, int)}.
+     */
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        map.put("a", 1L, 1000L, 100L, 2);
+        map.put("b", 2L, 1000L, 100L, 2);
+        map.get("a", 1000L);
+        map.put("c", 3L, 1000L, 100L, 2);
+        assertEquals(2, map.size());
+        assertEquals(1L, map.get("a", 1000L));
+        assertEquals(ExpiringLongMap.MISSING, map.get("b", 1000L));
+    }
+
+    /**
+     * Test method for {@link ExpiringLongMap#put(String, long, long, long, int)}.
+     */
+    @Test
+    public void testExpiredEvicted() {
+        map.put("a", 1L, 1000L, 100L, 10);
+        map.put("b", 2L, 1200L, 100L, 10);
+        assertEquals(1, map.size());
+    }
+}
@@ -0,0 +1,71 @@
+package world.bentobox.islandfly.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import world.bentobox.islandfly.stats.Counter;
+import world.bentobox.islandfly.stats.FlyStats;
+
+/**
+ * Tests for {@link FlyAbilities}.
+ */
+public class FlyAbilitiesTest {
+
+    private Player player;
+    private FlyStats stats;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        player = mock(Player.class);
+        stats = new FlyStats(true);
+    }
+
+    /**
+     * Test method for {@link FlyAbilities#disable(Player, FlyStats)}.
+     */
+    @Test
+    public void testDisableFlying() {
+        when(player.isFlying()).thenReturn(true);
+        when(player.getAllowFlight()).thenReturn(true);
+        FlyAbilities.disable(player, stats);
+        verify(player).setFlying(false);
+        verify(player).setAllowFlight(false);
+        assertEquals(2, stats.getCount(Counter.ABILITY_WRITE_APPLIED));
+        assertEquals(0, stats.getCount(Counter.ABILITY_WRITE_SUPPRESSED));
+    }
+
+    /**
+     * Test method for {@link FlyAbilities#disable(Player, FlyStats)}.
+     */
+    @Test
+    public void testDisableGrounded() {
+        FlyAbilities.disable(player, stats);
+        verify(player, never()).setFlying(false);
+        verify(player, never()).setAllowFlight(false);
+        assertEquals(0, stats.getCount(Counter.ABILITY_WRITE_APPLIED));
+        assertEquals(2, stats.getCount(Counter.ABILITY_WRITE_SUPPRESSED));
+    }
+
+    /**
+     * Test method for {@link FlyAbilities#setAllowFlight(Player, boolean, FlyStats)}.
+     */
+    @Test
+    public void testSetAllowFlightAlreadyAllowed() {
+        when(player.getAllowFlight()).thenReturn(true);
+        FlyAbilities.setAllowFlight(player, true, stats);
+        FlyAbilities.setFlying(player, true, stats);
+        verify(player, never()).setAllowFlight(true);
+        verify(player).setFlying(true);
+        assertEquals(1, stats.getCount(Counter.ABILITY_WRITE_APPLIED));
+        assertEquals(1, stats.getCount(Counter.ABILITY_WRITE_SUPPRESSED));
+    }
+}
@@ -0,0 +1,90 @@
+package world.bentobox.islandfly.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimingWheel}.
+ */
+public class TimingWheelTest {
+
+    private TimingWheel<String> wheel;
+    private List<String> expired;
+
+    /**
+     */
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel<>(0L, 50L, 8);
+        expired = new ArrayList<>();
+    }
+
+    /**
+     * Test method for {@link TimingWheel#advance(long, java.util.function.Consumer)}.
+     */
+    @Test
+    public void testAdvanceNotDue() {
+        wheel.schedule(1000L, "a");
+        assertEquals(0, wheel.advance(999L, expired::add));
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+    }
+
+    /**
+     * Test method for {@link TimingWheel#advance(long, java.util.function.Consumer)}.
+     */
+    @Test
+    public void testAdvanceDue() {
+        wheel.schedule(1000L, "a");
+        wheel.schedule(120L, "b");
+        assertEquals(1, wheel.advance(150L, expired::add));
+        assertEquals(List.of("b"), expired);
+        assertEquals(1, wheel.advance(1000L, expired::add));
+        assertEquals(List.of("b", "a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Deadlines are wall-clock based, so a late advance expires everything in one batch.
+     */
+    @Test
+    public void testAdvanceLate() {
+        wheel.schedule(100L, "a");
+        wheel.schedule(5000L, "b");
+        wheel.schedule(9000L, "c");
+        assertEquals(2, wheel.advance(6000L, expired::add));
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(1, wheel.size());
+    }
+
+    /**
+     * Test method for {@link TimingWheel.Timeout#cancel()}.
+     */
+    @Test
+    public void testCancel() {
+        TimingWheel.Timeout<String> timeout = wheel.schedule(100L, "a");
+        assertTrue(timeout.isPending());
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.advance(200L, expired::add));
+    }
+
+    /**
+     * Test method for {@link TimingWheel#schedule(long, Object)}.
+     */
+    @Test
+    public void testScheduleInPast() {
+        wheel.advance(1000L, expired::add);
+        wheel.schedule(10L, "a");
+        // Overdue timeouts fire on the next tick
+        assertEquals(1, wheel.advance(1050L, expired::add));
+    }
+}